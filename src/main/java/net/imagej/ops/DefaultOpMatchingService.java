@@ -35,6 +35,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 
 import net.imagej.ops.OpCandidate.StatusCode;
@@ -42,6 +45,7 @@ import net.imagej.ops.OpCandidate.StatusCode;
 import org.scijava.Context;
 import org.scijava.InstantiableException;
 import org.scijava.convert.ConvertService;
+import org.scijava.event.EventHandler;
 import org.scijava.log.LogService;
 import org.scijava.module.Module;
 import org.scijava.module.ModuleInfo;
@@ -49,6 +53,8 @@ import org.scijava.module.ModuleItem;
 import org.scijava.module.ModuleService;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
+import org.scijava.plugin.event.PluginsAddedEvent;
+import org.scijava.plugin.event.PluginsRemovedEvent;
 import org.scijava.service.AbstractService;
 import org.scijava.service.Service;
 import org.scijava.util.ConversionUtils;
@@ -76,6 +82,54 @@ public class DefaultOpMatchingService extends AbstractService implements
 	@Parameter
 	private LogService log;
 
+	/**
+	 * Name and type indices of the ops available in each environment. Discarded
+	 * whenever plugins are added or removed.
+	 */
+	private final Map<OpEnvironment, OpInfoIndex> indices = Collections
+		.synchronizedMap(new WeakHashMap<>());
+
+	/**
+	 * Maximum number of request signatures whose match is remembered per
+	 * environment.
+	 */
+	private static final int MATCH_CACHE_SIZE = 1024;
+
+	/**
+	 * Winning ops of previous requests, per environment. Discarded whenever
+	 * plugins are added or removed.
+	 */
+	private final Map<OpEnvironment, OpMatchCache> matchCaches = Collections
+		.synchronizedMap(new WeakHashMap<>());
+
+	private final AtomicLong matchCacheHits = new AtomicLong();
+	private final AtomicLong matchCacheMisses = new AtomicLong();
+
+	// -- DefaultOpMatchingService methods --
+
+	/**
+	 * Gets the number of {@link #findMatch} requests which were answered from
+	 * the match cache, skipping the candidate filtering.
+	 */
+	public long getMatchCacheHits() {
+		return matchCacheHits.get();
+	}
+
+	/**
+	 * Gets the number of {@link #findMatch} requests which required a full
+	 * search for the matching op.
+	 */
+	public long getMatchCacheMisses() {
+		return matchCacheMisses.get();
+	}
+
+	/** Forgets all remembered matches, and resets the hit/miss counters. */
+	public void clearMatchCache() {
+		matchCaches.clear();
+		matchCacheHits.set(0);
+		matchCacheMisses.set(0);
+	}
+
 	// -- OpMatchingService methods --
 
 	@Override
@@ -87,6 +141,15 @@ public class DefaultOpMatchingService extends AbstractService implements
 	public OpCandidate findMatch(final OpEnvironment ops,
 		final List<OpRef> refs)
 	{
+		// reuse the winner of a previous request with the same signature
+		final OpMatchCache matchCache = matchCache(ops);
+		final OpCandidate cachedMatch = cachedMatch(ops, refs, matchCache);
+		if (cachedMatch != null) {
+			matchCacheHits.incrementAndGet();
+			return cachedMatch;
+		}
+		matchCacheMisses.incrementAndGet();
+
 		// find candidates with matching name & type
 		final List<OpCandidate> candidates = findCandidates(ops, refs);
 		assertCandidates(candidates, refs.get(0));
@@ -94,7 +157,9 @@ public class DefaultOpMatchingService extends AbstractService implements
 		// narrow down candidates to the exact matches
 		final List<OpCandidate> matches = filterMatches(candidates);
 
-		return singleMatch(candidates, matches);
+		final OpCandidate match = singleMatch(candidates, matches);
+		if (isCacheable(candidates)) matchCache.put(refs, match);
+		return match;
 	}
 
 	@Override
@@ -109,7 +174,7 @@ public class DefaultOpMatchingService extends AbstractService implements
 		final List<OpRef> refs)
 	{
 		final ArrayList<OpCandidate> candidates = new ArrayList<>();
-		for (final OpInfo info : ops.infos()) {
+		for (final OpInfo info : index(ops).get(refs)) {
 			for (final OpRef ref : refs) {
 				if (isCandidate(info, ref)) {
 					candidates.add(new OpCandidate(ops, ref, info));
@@ -205,8 +270,76 @@ public class DefaultOpMatchingService extends AbstractService implements
 		return paddedArgs;
 	}
 
+	// -- Event handlers --
+
+	@EventHandler
+	protected void onEvent(final PluginsAddedEvent evt) {
+		indices.clear();
+		matchCaches.clear();
+	}
+
+	@EventHandler
+	protected void onEvent(final PluginsRemovedEvent evt) {
+		indices.clear();
+		matchCaches.clear();
+	}
+
 	// -- Helper methods --
 
+	/** Gets the op index of the given environment, building it if needed. */
+	private OpInfoIndex index(final OpEnvironment ops) {
+		return indices.computeIfAbsent(ops, env -> new OpInfoIndex(env.infos()));
+	}
+
+	/** Gets the match cache of the given environment, creating it if needed. */
+	private OpMatchCache matchCache(final OpEnvironment ops) {
+		return matchCaches.computeIfAbsent(ops,
+			env -> new OpMatchCache(MATCH_CACHE_SIZE));
+	}
+
+	/**
+	 * Instantiates the op which previously won the match for requests with the
+	 * same signature, provided it still conforms to the given arguments.
+	 * <p>
+	 * Helper method of {@link #findMatch}.
+	 * </p>
+	 *
+	 * @return The initialized match, or null if there is no usable cached
+	 *         match.
+	 */
+	private OpCandidate cachedMatch(final OpEnvironment ops,
+		final List<OpRef> refs, final OpMatchCache matchCache)
+	{
+		final OpMatchCache.Match match = matchCache.get(refs);
+		if (match == null) return null;
+
+		final OpCandidate candidate = new OpCandidate(ops, refs.get(match
+			.refIndex()), match.info());
+		final Object[] args = padArgs(candidate);
+		if (args == null) return null;
+		candidate.setArgs(args);
+		if (!moduleConforms(candidate)) return null;
+		return initialize(candidate);
+	}
+
+	/**
+	 * Determines whether the outcome of a match can be reused for other requests
+	 * with the same signature. This is not the case when some candidate was
+	 * rejected by {@link Contingent#conforms()}, since that decision depends on
+	 * the argument values rather than their types.
+	 * <p>
+	 * Helper method of {@link #findMatch}.
+	 * </p>
+	 */
+	private boolean isCacheable(final List<OpCandidate> candidates) {
+		for (final OpCandidate candidate : candidates) {
+			if (candidate.getStatusCode() == StatusCode.DOES_NOT_CONFORM) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/** Helper method of {@link #findCandidates}. */
 	private boolean isCandidate(final OpInfo info, final OpRef ref) {
 		if (!info.nameMatches(ref.getName())) return false;
@@ -414,24 +547,34 @@ public class DefaultOpMatchingService extends AbstractService implements
 	{
 		if (matches.size() == 1) {
 			// a single match: initialize and return it
-			final Module m = matches.get(0).getModule();
-			if (log.isDebug()) {
-				log.debug("Selected '" + matches.get(0).getRef().getLabel() + "' op: " +
-					m.getDelegateObject().getClass().getName());
-			}
-
-			// initialize the op, if appropriate
-			if (m.getDelegateObject() instanceof Initializable) {
-				((Initializable) m.getDelegateObject()).initialize();
-			}
-
-			return matches.get(0);
+			return initialize(matches.get(0));
 		}
 
 		final String analysis = OpUtils.matchInfo(candidates, matches);
 		throw new IllegalArgumentException(analysis);
 	}
 
+	/**
+	 * Executes the initializer of the matched candidate's op, if applicable.
+	 * <p>
+	 * Helper method of {@link #findMatch}.
+	 * </p>
+	 */
+	private OpCandidate initialize(final OpCandidate match) {
+		final Module m = match.getModule();
+		if (log.isDebug()) {
+			log.debug("Selected '" + match.getRef().getLabel() + "' op: " + m
+				.getDelegateObject().getClass().getName());
+		}
+
+		// initialize the op, if appropriate
+		if (m.getDelegateObject() instanceof Initializable) {
+			((Initializable) m.getDelegateObject()).initialize();
+		}
+
+		return match;
+	}
+
 	/**
 	 * Verifies that the given candidate's module is valid.
 	 * <p>
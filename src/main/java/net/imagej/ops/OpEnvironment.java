@@ -707,7 +707,9 @@ public interface OpEnvironment extends Contextual {
 	}
 
 	/** Executes the "map" operation on the given arguments. */
-	@OpMethod(op = net.imagej.ops.map.neighborhood.DefaultMapNeighborhood.class)
+	@OpMethod(ops = {
+		net.imagej.ops.map.neighborhood.DefaultMapNeighborhood.class,
+		net.imagej.ops.map.neighborhood.MapNeighborhoodParallel.class })
 	default <EI, EO> IterableInterval<EO> map(
 		final IterableInterval<EO> out,
 		final RandomAccessibleInterval<EI> in, final Shape shape,
@@ -721,8 +723,9 @@ public interface OpEnvironment extends Contextual {
 	}
 
 	/** Executes the "map" operation on the given arguments. */
-	@OpMethod(
-		op = net.imagej.ops.map.neighborhood.MapNeighborhoodWithCenter.class)
+	@OpMethod(ops = {
+		net.imagej.ops.map.neighborhood.MapNeighborhoodWithCenter.class,
+		net.imagej.ops.map.neighborhood.MapNeighborhoodWithCenterParallel.class })
 	default <EI, EO> IterableInterval<EO> map(
 		final IterableInterval<EO> out, final RandomAccessibleInterval<EI> in,
 		final Shape shape, final CenterAwareComputerOp<EI, EO> func)
@@ -0,0 +1,160 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.ops;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.scijava.InstantiableException;
+import org.scijava.util.GenericUtils;
+
+/**
+ * Lookup table over the {@link OpInfo}s of an {@link OpEnvironment}, mapping
+ * op names, aliases and op types to the ops which could possibly satisfy an
+ * {@link OpRef} with that name or type.
+ * <p>
+ * The index is a snapshot: it is built once from {@link OpEnvironment#infos()}
+ * and must be discarded when the set of available ops changes. Candidate lists
+ * preserve the order of {@link OpEnvironment#infos()}, i.e. the priority order
+ * relied upon by the {@link OpMatchingService}.
+ * </p>
+ *
+ * @see DefaultOpMatchingService#findCandidates(OpEnvironment, List)
+ */
+class OpInfoIndex {
+
+	/** All ops of the environment, in their original order. */
+	private final List<OpInfo> infos;
+
+	/** Position of each op within {@link #infos}. */
+	private final Map<OpInfo, Integer> ordinals = new IdentityHashMap<>();
+
+	/** Table from full and simple op names (and aliases) to ops. */
+	private final Map<String, List<OpInfo>> byName = new HashMap<>();
+
+	/** Lazily populated table from op type constraints to ops. */
+	private final Map<Class<?>, List<OpInfo>> byType =
+		new ConcurrentHashMap<>();
+
+	public OpInfoIndex(final Collection<OpInfo> infos) {
+		this.infos = Collections.unmodifiableList(new ArrayList<>(infos));
+		for (final OpInfo info : this.infos) {
+			ordinals.put(info, ordinals.size());
+			addName(info.getName(), info);
+			final String[] aliases = info.getAliases();
+			if (aliases == null) continue;
+			for (final String alias : aliases) {
+				addName(alias, info);
+			}
+		}
+	}
+
+	// -- OpInfoIndex methods --
+
+	/**
+	 * Gets the ops which might match the given reference, based on its name or,
+	 * if it has no name, on its first type constraint. The returned list is a
+	 * superset of the actual candidates; callers must still check each op
+	 * against the reference.
+	 */
+	public List<OpInfo> get(final OpRef ref) {
+		final String name = ref.getName();
+		if (name != null) {
+			final List<OpInfo> named = byName.get(name);
+			return named == null ? Collections.<OpInfo> emptyList() : named;
+		}
+		final Collection<Type> types = ref.getTypes();
+		if (types == null || types.isEmpty()) return infos;
+		final Class<?> type = GenericUtils.getClass(types.iterator().next());
+		if (type == null) return infos;
+		return byType.computeIfAbsent(type, this::infosOfType);
+	}
+
+	/**
+	 * Gets the ops which might match any of the given references, in
+	 * environment order and without duplicates.
+	 */
+	public List<OpInfo> get(final List<OpRef> refs) {
+		if (refs.size() == 1) return get(refs.get(0));
+
+		final boolean[] selected = new boolean[infos.size()];
+		for (final OpRef ref : refs) {
+			for (final OpInfo info : get(ref)) {
+				selected[ordinals.get(info)] = true;
+			}
+		}
+		final ArrayList<OpInfo> result = new ArrayList<>();
+		for (int i = 0; i < selected.length; i++) {
+			if (selected[i]) result.add(infos.get(i));
+		}
+		return result;
+	}
+
+	// -- Helper methods --
+
+	private void addName(final String opName, final OpInfo info) {
+		if (opName == null) return;
+		add(opName, info);
+
+		// NB: Names without namespace also match; see OpInfo#nameMatches.
+		final int dot = opName.lastIndexOf(".");
+		if (dot >= 0) add(opName.substring(dot + 1), info);
+	}
+
+	private void add(final String key, final OpInfo info) {
+		final List<OpInfo> list = byName.computeIfAbsent(key,
+			k -> new ArrayList<>());
+		// NB: An op's name and aliases may share the same simple name.
+		if (list.isEmpty() || list.get(list.size() - 1) != info) list.add(info);
+	}
+
+	/** Helper method of {@link #get(OpRef)}. */
+	private List<OpInfo> infosOfType(final Class<?> type) {
+		final ArrayList<OpInfo> result = new ArrayList<>();
+		for (final OpInfo info : infos) {
+			try {
+				if (!type.isAssignableFrom(info.cInfo().loadClass())) continue;
+			}
+			catch (final InstantiableException exc) {
+				// NB: Keep invalid ops, so that the matcher can report them.
+			}
+			result.add(info);
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+}
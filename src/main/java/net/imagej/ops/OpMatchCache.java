@@ -0,0 +1,175 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.ops;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded, least-recently-used table remembering which {@link OpInfo} won the
+ * match for a given request signature. The signature of an {@link OpRef}
+ * consists of its name, its type constraints, its output types and the runtime
+ * classes of its arguments.
+ * <p>
+ * Only the identity of the winning op is remembered; the
+ * {@link OpMatchingService} still instantiates the op, injects the inputs and
+ * verifies that it conforms for every request.
+ * </p>
+ *
+ * @see DefaultOpMatchingService#findMatch(OpEnvironment, List)
+ */
+class OpMatchCache {
+
+	private final Map<List<RefKey>, Match> entries;
+
+	public OpMatchCache(final int maxSize) {
+		entries = new LinkedHashMap<List<RefKey>, Match>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(
+				final Map.Entry<List<RefKey>, Match> eldest)
+			{
+				return size() > maxSize;
+			}
+		};
+	}
+
+	// -- OpMatchCache methods --
+
+	/** Gets the cached match for the given references, or null if none. */
+	public synchronized Match get(final List<OpRef> refs) {
+		return entries.get(key(refs));
+	}
+
+	/** Remembers the given candidate as the match for its references. */
+	public synchronized void put(final List<OpRef> refs,
+		final OpCandidate match)
+	{
+		final int refIndex = refs.indexOf(match.getRef());
+		if (refIndex < 0) return;
+		entries.put(key(refs), new Match(refIndex, match.opInfo()));
+	}
+
+	/** Gets the number of cached matches. */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	// -- Helper methods --
+
+	private static List<RefKey> key(final List<OpRef> refs) {
+		final List<RefKey> key = new ArrayList<>(refs.size());
+		for (final OpRef ref : refs) {
+			key.add(new RefKey(ref));
+		}
+		return key;
+	}
+
+	// -- Helper classes --
+
+	/** The op which won the match, and the reference it satisfied. */
+	public static class Match {
+
+		private final int refIndex;
+		private final OpInfo info;
+
+		public Match(final int refIndex, final OpInfo info) {
+			this.refIndex = refIndex;
+			this.info = info;
+		}
+
+		/** Gets the index of the matched {@link OpRef} within the request. */
+		public int refIndex() {
+			return refIndex;
+		}
+
+		/** Gets the matched op. */
+		public OpInfo info() {
+			return info;
+		}
+	}
+
+	/** Signature of an {@link OpRef}, ignoring its argument values. */
+	private static class RefKey {
+
+		private final String name;
+		private final List<Type> types;
+		private final List<Type> outTypes;
+
+		/** Runtime class of each argument, or null for null arguments. */
+		private final Class<?>[] argClasses;
+
+		/** Whether each argument is a {@link Class} placeholder. */
+		private final boolean[] classArgs;
+
+		private final int hashCode;
+
+		public RefKey(final OpRef ref) {
+			name = ref.getName();
+			types = ref.getTypes() == null ? null : new ArrayList<>(ref.getTypes());
+			outTypes = ref.getOutTypes();
+			final Object[] args = ref.getArgs();
+			argClasses = new Class<?>[args.length];
+			classArgs = new boolean[args.length];
+			for (int i = 0; i < args.length; i++) {
+				if (args[i] instanceof Class) {
+					argClasses[i] = (Class<?>) args[i];
+					classArgs[i] = true;
+				}
+				else if (args[i] != null) argClasses[i] = args[i].getClass();
+			}
+			hashCode = Objects.hash(name, types, outTypes) * 31 + Arrays.hashCode(
+				argClasses);
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof RefKey)) return false;
+			final RefKey that = (RefKey) o;
+			return hashCode == that.hashCode && //
+				Objects.equals(name, that.name) && //
+				Objects.equals(types, that.types) && //
+				Objects.equals(outTypes, that.outTypes) && //
+				Arrays.equals(argClasses, that.argClasses) && //
+				Arrays.equals(classArgs, that.classArgs);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+}
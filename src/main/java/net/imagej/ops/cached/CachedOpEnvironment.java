@@ -31,9 +31,7 @@ package net.imagej.ops.cached;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.Objects;
 
 import net.imagej.ops.AbstractOp;
 import net.imagej.ops.CustomOpEnvironment;
@@ -41,26 +39,40 @@ import net.imagej.ops.Op;
 import net.imagej.ops.OpEnvironment;
 import net.imagej.ops.OpInfo;
 import net.imagej.ops.OpRef;
+import net.imagej.ops.special.computer.BinaryComputerOp;
+import net.imagej.ops.special.computer.UnaryComputerOp;
+import net.imagej.ops.special.function.BinaryFunctionOp;
 import net.imagej.ops.special.function.UnaryFunctionOp;
+import net.imagej.ops.special.hybrid.BinaryHybridCF;
 import net.imagej.ops.special.hybrid.UnaryHybridCF;
 
 import org.scijava.Priority;
-import org.scijava.cache.CacheService;
 import org.scijava.command.CommandInfo;
 import org.scijava.module.Module;
 import org.scijava.module.ModuleItem;
-import org.scijava.plugin.Parameter;
 import org.scijava.util.GenericUtils;
 
 /**
  * Creates {@link CachedFunctionOp}s which know how to cache their outputs.
+ * <p>
+ * Unary and binary functions and hybrids are cached, as well as unary
+ * computers. Computers only cache outputs which are {@link net.imglib2.type.Type}
+ * instances: a copy of the computed output is cached, and copied into the
+ * provided output on subsequent calls.
+ * </p>
+ * <p>
+ * Outputs are held in an {@link OpResultCache}, which bounds their estimated
+ * memory footprint. Unless a cache is given, the environment uses the one of
+ * the context's {@link OpCacheService}, so that all environments of a context
+ * share a single budget. Environments sharing the same {@link OpResultCache}
+ * also share their cached outputs.
+ * </p>
  * 
  * @author Christian Dietz (University of Konstanz)
  */
 public class CachedOpEnvironment extends CustomOpEnvironment {
 
-	@Parameter
-	private CacheService cs;
+	private final OpResultCache cache;
 	private Collection<Class<?>> ignoredOps;
 
 	public CachedOpEnvironment(final OpEnvironment parent) {
@@ -76,6 +88,13 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 	public CachedOpEnvironment(final OpEnvironment parent,
 		final Collection<? extends OpInfo> prioritizedInfos,
 		final Collection<Class<?>> ignoredOps)
+	{
+		this(parent, prioritizedInfos, ignoredOps, sharedCache(parent));
+	}
+
+	public CachedOpEnvironment(final OpEnvironment parent,
+		final Collection<? extends OpInfo> prioritizedInfos,
+		final Collection<Class<?>> ignoredOps, final OpResultCache cache)
 	{
 		super(parent, prioritizedInfos);
 
@@ -84,6 +103,14 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 		}
 
 		this.ignoredOps = ignoredOps;
+		this.cache = cache;
+	}
+
+	// -- CachedOpEnvironment methods --
+
+	/** Gets the cache holding the outputs of this environment's ops. */
+	public OpResultCache getCache() {
+		return cache;
 	}
 
 	@Override
@@ -101,20 +128,44 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 		}
 
 		final Op cachedOp;
-		if (op instanceof UnaryHybridCF) {
+		if (op instanceof BinaryHybridCF) {
+			cachedOp = wrapBinaryHybrid((BinaryHybridCF<?, ?, ?>) op);
+		}
+		else if (op instanceof BinaryFunctionOp) {
+			cachedOp = wrapBinaryFunction((BinaryFunctionOp<?, ?, ?>) op);
+		}
+		else if (op instanceof BinaryComputerOp) {
+			// NB: Binary computers are not cached.
+			return op;
+		}
+		else if (op instanceof UnaryHybridCF) {
 			cachedOp = wrapUnaryHybrid((UnaryHybridCF<?, ?>) op);
 		}
 		else if (op instanceof UnaryFunctionOp) {
 			cachedOp = wrapUnaryFunction((UnaryFunctionOp<?, ?>) op);
 		}
+		else if (op instanceof UnaryComputerOp) {
+			cachedOp = wrapUnaryComputer((UnaryComputerOp<?, ?>) op);
+		}
 		else return op;
 
-		getContext().inject(cachedOp);
+		cachedOp.setEnvironment(this);
 		return cachedOp;
 	}
 
 	// -- Helper methods --
 
+	/**
+	 * Gets the cache of the parent's {@link OpCacheService}, or a new cache if
+	 * the context has no such service.
+	 */
+	private static OpResultCache sharedCache(final OpEnvironment parent) {
+		final OpCacheService cacheService = parent.getContext().getService(
+			OpCacheService.class);
+		return cacheService == null ? new OpResultCache() : cacheService
+			.getResultCache();
+	}
+
 	private <I, O> CachedFunctionOp<I, O> wrapUnaryFunction(
 		final UnaryFunctionOp<I, O> op)
 	{
@@ -127,6 +178,62 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 		return new CachedHybridOp<>(op, otherArgs(op, 2));
 	}
 
+	private <I, O> CachedComputerOp<I, O> wrapUnaryComputer(
+		final UnaryComputerOp<I, O> op)
+	{
+		return new CachedComputerOp<>(op, otherArgs(op, 2));
+	}
+
+	private <I1, I2, O> CachedBinaryFunctionOp<I1, I2, O> wrapBinaryFunction(
+		final BinaryFunctionOp<I1, I2, O> op)
+	{
+		return new CachedBinaryFunctionOp<>(op, otherArgs(op, 2));
+	}
+
+	private <I1, I2, O> CachedBinaryHybridOp<I1, I2, O> wrapBinaryHybrid(
+		final BinaryHybridCF<I1, I2, O> op)
+	{
+		return new CachedBinaryHybridOp<>(op, otherArgs(op, 3));
+	}
+
+	/**
+	 * Runs the given computation of an output, unless a cached copy of the
+	 * output exists, in which case it is copied into the output instead. Outputs
+	 * which are not {@link net.imglib2.type.Type}s are always computed.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private void compute(final OpResultCache.Key key, final Op delegate,
+		final Object output, final Runnable computation)
+	{
+		if (!(output instanceof net.imglib2.type.Type)) {
+			computation.run();
+			return;
+		}
+		final net.imglib2.type.Type type = (net.imglib2.type.Type) output;
+
+		final Object cached = cache.get(key, delegate.getClass());
+		if (cached != null && cached.getClass() == output.getClass()) {
+			type.set((net.imglib2.type.Type) cached);
+			return;
+		}
+		computation.run();
+		cache.put(key, type.copy(), delegate.getClass());
+	}
+
+	/**
+	 * Creates the cache key of the given inputs, computed by the given op with
+	 * the given other arguments.
+	 */
+	private OpResultCache.Key key(final Op delegate, final Object[] args,
+		final Object... inputs)
+	{
+		final Object[] components = new Object[1 + inputs.length + args.length];
+		components[0] = delegate.getClass();
+		System.arraycopy(inputs, 0, components, 1, inputs.length);
+		System.arraycopy(args, 0, components, 1 + inputs.length, args.length);
+		return cache.key(components);
+	}
+
 	/**
 	 * Gets the given {@link Op} instance's argument value, starting at the
 	 * specified offset.
@@ -156,9 +263,6 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 		UnaryFunctionOp<I, O>
 	{
 
-		@Parameter
-		private CacheService cache;
-
 		private final UnaryFunctionOp<I, O> delegate;
 
 		private final Object[] args;
@@ -173,14 +277,14 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 		@Override
 		public O calculate(final I input) {
 
-			final Hash hash = new Hash(input, delegate, args);
+			final OpResultCache.Key key = key(delegate, args, input);
 
 			@SuppressWarnings("unchecked")
-			O output = (O) cache.get(hash);
+			O output = (O) cache.get(key, delegate.getClass());
 
 			if (output == null) {
 				output = delegate.calculate(input);
-				cache.put(hash, output);
+				cache.put(key, output, delegate.getClass());
 			}
 			return output;
 		}
@@ -230,9 +334,6 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 		UnaryHybridCF<I, O>
 	{
 
-		@Parameter
-		private CacheService cache;
-
 		private final UnaryHybridCF<I, O> delegate;
 
 		private final Object[] args;
@@ -247,15 +348,15 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 
 		@Override
 		public O calculate(final I input) {
-			final Hash hash = new Hash(input, delegate, args);
+			final OpResultCache.Key key = key(delegate, args, input);
 
 			@SuppressWarnings("unchecked")
-			O output = (O) cache.get(hash);
+			O output = (O) cache.get(key, delegate.getClass());
 
 			if (output == null) {
 				output = createOutput(input);
-				compute(input, output);
-				cache.put(hash, output);
+				delegate.compute(input, output);
+				cache.put(key, output, delegate.getClass());
 			}
 			return output;
 		}
@@ -267,7 +368,8 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 
 		@Override
 		public void compute(final I input, final O output) {
-			delegate.compute(input, output);
+			CachedOpEnvironment.this.compute(key(delegate, args, input),
+				delegate, output, () -> delegate.compute(input, output));
 		}
 
 		@Override
@@ -282,27 +384,208 @@ public class CachedOpEnvironment extends CustomOpEnvironment {
 	}
 
 	/**
-	 * Simple utility class to wrap two objects and an array of objects in a
-	 * single object which combines their hashes.
+	 * Wraps a {@link UnaryComputerOp} and caches the results, if they are
+	 * {@link net.imglib2.type.Type}s. New inputs will result in
+	 * re-computation of the result.
+	 * 
+	 * @param <I>
+	 * @param <O>
+	 */
+	class CachedComputerOp<I, O> extends AbstractOp implements
+		UnaryComputerOp<I, O>
+	{
+
+		private final UnaryComputerOp<I, O> delegate;
+
+		private final Object[] args;
+
+		public CachedComputerOp(final UnaryComputerOp<I, O> delegate,
+			final Object[] args)
+		{
+			this.delegate = delegate;
+			this.args = args;
+		}
+
+		@Override
+		public void compute(final I input, final O output) {
+			CachedOpEnvironment.this.compute(key(delegate, args, input),
+				delegate, output, () -> delegate.compute(input, output));
+		}
+
+		@Override
+		public void run() {
+			delegate.run();
+		}
+
+		@Override
+		public I in() {
+			return delegate.in();
+		}
+
+		@Override
+		public void setInput(final I input) {
+			delegate.setInput(input);
+		}
+
+		@Override
+		public O out() {
+			return delegate.out();
+		}
+
+		@Override
+		public void setOutput(final O output) {
+			delegate.setOutput(output);
+		}
+
+		@Override
+		public void initialize() {
+			delegate.initialize();
+		}
+
+		@Override
+		public CachedComputerOp<I, O> getIndependentInstance() {
+			return this;
+		}
+
+	}
+
+	/**
+	 * Wraps a {@link BinaryFunctionOp} and caches the results. New inputs will
+	 * result in re-computation of the result.
+	 * 
+	 * @param <I1>
+	 * @param <I2>
+	 * @param <O>
 	 */
-	private class Hash {
+	class CachedBinaryFunctionOp<I1, I2, O> extends AbstractOp implements
+		BinaryFunctionOp<I1, I2, O>
+	{
+
+		private final BinaryFunctionOp<I1, I2, O> delegate;
+
+		private final Object[] args;
+
+		public CachedBinaryFunctionOp(final BinaryFunctionOp<I1, I2, O> delegate,
+			final Object[] args)
+		{
+			this.delegate = delegate;
+			this.args = args;
+		}
+
+		@Override
+		public O calculate(final I1 input1, final I2 input2) {
+			final OpResultCache.Key key = key(delegate, args, input1, input2);
+
+			@SuppressWarnings("unchecked")
+			O output = (O) cache.get(key, delegate.getClass());
+
+			if (output == null) {
+				output = delegate.calculate(input1, input2);
+				cache.put(key, output, delegate.getClass());
+			}
+			return output;
+		}
+
+		@Override
+		public void run() {
+			delegate.run();
+		}
 
-		private final int hash;
+		@Override
+		public I1 in1() {
+			return delegate.in1();
+		}
 
-		public Hash(final Object o1, final Object o2, final Object[] args) {
-			hash = Objects.hash(o1, o2.getClass(), Arrays.hashCode(args));
+		@Override
+		public I2 in2() {
+			return delegate.in2();
 		}
 
 		@Override
-		public int hashCode() {
-			return hash;
+		public void setInput1(final I1 input1) {
+			delegate.setInput1(input1);
 		}
 
 		@Override
-		public boolean equals(final Object obj) {
-			if (obj == this) return true;
-			if (obj instanceof Hash) return hash == ((Hash) obj).hash;
-			return false;
+		public void setInput2(final I2 input2) {
+			delegate.setInput2(input2);
+		}
+
+		@Override
+		public O out() {
+			return delegate.out();
+		}
+
+		@Override
+		public void initialize() {
+			delegate.initialize();
+		}
+
+		@Override
+		public CachedBinaryFunctionOp<I1, I2, O> getIndependentInstance() {
+			return this;
+		}
+
+	}
+
+	/**
+	 * Wraps a {@link BinaryHybridCF} and caches the results. New inputs will
+	 * result in re-computation of the result.
+	 * 
+	 * @param <I1>
+	 * @param <I2>
+	 * @param <O>
+	 */
+	class CachedBinaryHybridOp<I1, I2, O> extends
+		CachedBinaryFunctionOp<I1, I2, O> implements BinaryHybridCF<I1, I2, O>
+	{
+
+		private final BinaryHybridCF<I1, I2, O> delegate;
+
+		private final Object[] args;
+
+		public CachedBinaryHybridOp(final BinaryHybridCF<I1, I2, O> delegate,
+			final Object[] args)
+		{
+			super(delegate, args);
+			this.delegate = delegate;
+			this.args = args;
+		}
+
+		@Override
+		public O calculate(final I1 input1, final I2 input2) {
+			final OpResultCache.Key key = key(delegate, args, input1, input2);
+
+			@SuppressWarnings("unchecked")
+			O output = (O) cache.get(key, delegate.getClass());
+
+			if (output == null) {
+				output = createOutput(input1, input2);
+				delegate.compute(input1, input2, output);
+				cache.put(key, output, delegate.getClass());
+			}
+			return output;
+		}
+
+		@Override
+		public O createOutput(final I1 input1, final I2 input2) {
+			return delegate.createOutput(input1, input2);
+		}
+
+		@Override
+		public void compute(final I1 input1, final I2 input2, final O output) {
+			CachedOpEnvironment.this.compute(key(delegate, args, input1, input2),
+				delegate, output, () -> delegate.compute(input1, input2, output));
+		}
+
+		@Override
+		public void setOutput(final O output) {
+			delegate.setOutput(output);
+		}
+
+		@Override
+		public CachedBinaryHybridOp<I1, I2, O> getIndependentInstance() {
+			return this;
 		}
 	}
 }
@@ -0,0 +1,93 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.ops.cached;
+
+import org.scijava.log.LogService;
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+import org.scijava.service.AbstractService;
+import org.scijava.service.Service;
+
+/**
+ * Default service holding the caches shared by the ops of a context.
+ * <p>
+ * The shared {@link OpResultCache} has a budget of a quarter of the maximum
+ * heap size by default. Another budget in bytes can be given by the
+ * {@value #MAX_BYTES_PROPERTY} system property, which is read when the service
+ * is initialized, or set with {@link #setMaxBytes(long)}.
+ * </p>
+ */
+@Plugin(type = Service.class)
+public class DefaultOpCacheService extends AbstractService implements
+	OpCacheService
+{
+
+	/** System property holding the budget of the shared cache, in bytes. */
+	public static final String MAX_BYTES_PROPERTY = "imagej.ops.cache.maxBytes";
+
+	@Parameter
+	private LogService log;
+
+	private final OpResultCache resultCache = new OpResultCache();
+
+	// -- OpCacheService methods --
+
+	@Override
+	public OpResultCache getResultCache() {
+		return resultCache;
+	}
+
+	@Override
+	public void setMaxBytes(final long maxBytes) {
+		resultCache.setMaxBytes(maxBytes);
+	}
+
+	// -- Service methods --
+
+	@Override
+	public void initialize() {
+		final String maxBytes = System.getProperty(MAX_BYTES_PROPERTY);
+		if (maxBytes == null) return;
+		try {
+			setMaxBytes(Long.parseLong(maxBytes.trim()));
+		}
+		catch (final IllegalArgumentException exc) {
+			log.warn("Invalid " + MAX_BYTES_PROPERTY + ": " + maxBytes);
+		}
+	}
+
+	// -- Disposable methods --
+
+	@Override
+	public void dispose() {
+		resultCache.clear();
+	}
+
+}
@@ -0,0 +1,490 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.ops.cached;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import net.imglib2.IterableInterval;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.Type;
+import net.imglib2.type.numeric.ComplexType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+
+/**
+ * Memory-bounded cache for the outputs of ops executed in a
+ * {@link CachedOpEnvironment}.
+ * <p>
+ * The footprint of each cached output is estimated by {@link #sizeOf(Object)};
+ * images are accounted for by their number of elements and the bit depth of
+ * their type. When the total estimate exceeds the byte budget, least recently
+ * used outputs are evicted. Hits, misses, evictions and the bytes held are
+ * tracked per op class.
+ * </p>
+ * <p>
+ * Outputs are looked up by a {@link Key} made from the inputs and arguments of
+ * the op. Images and other non-value objects are held weakly by the key, so
+ * the cache never keeps them from being garbage collected, and the outputs
+ * computed from them are dropped once they are. The footprint of all other
+ * key components is accounted for together with the output.
+ * </p>
+ */
+public class OpResultCache {
+
+	/** Estimated overhead of an arbitrary object, in bytes. */
+	private static final long OBJECT_SIZE = 16;
+
+	/** Estimated size of objects whose size cannot be determined, in bytes. */
+	private static final long UNKNOWN_SIZE = 64;
+
+	private long maxBytes;
+
+	private long bytes;
+
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16,
+		0.75f, true);
+
+	private final Map<Class<?>, Statistics> statistics = new HashMap<>();
+
+	/** Queue of the weakly held key components which were collected. */
+	private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+	/**
+	 * Creates a cache whose budget is a quarter of the maximum heap size.
+	 */
+	public OpResultCache() {
+		this(Runtime.getRuntime().maxMemory() / 4);
+	}
+
+	/**
+	 * Creates a cache with the given budget.
+	 *
+	 * @param maxBytes Maximum estimated size of all cached outputs, in bytes.
+	 */
+	public OpResultCache(final long maxBytes) {
+		checkMaxBytes(maxBytes);
+		this.maxBytes = maxBytes;
+	}
+
+	// -- OpResultCache methods --
+
+	/**
+	 * Creates a key from the given components, e.g. the class, inputs and
+	 * arguments of an op. Two keys are equal if their components are pairwise
+	 * equal, where weakly held components are compared for identity.
+	 */
+	public Key key(final Object... components) {
+		return new Key(components, collected);
+	}
+
+	/**
+	 * Gets the cached output for the given key, recording a hit or miss for the
+	 * given op class.
+	 *
+	 * @return The cached output, or null if there is none.
+	 */
+	public synchronized Object get(final Key key, final Class<?> opClass) {
+		expunge();
+		final Entry entry = entries.get(key);
+		final Statistics stats = stats(opClass);
+		if (entry == null) {
+			stats.misses++;
+			return null;
+		}
+		stats.hits++;
+		return entry.value;
+	}
+
+	/**
+	 * Caches the output computed by an op of the given class, evicting least
+	 * recently used outputs as needed. Outputs larger than the whole budget are
+	 * not cached.
+	 */
+	public synchronized void put(final Key key, final Object value,
+		final Class<?> opClass)
+	{
+		expunge();
+		remove(entries.remove(key));
+		if (value == null || key.isCollected()) return;
+
+		final long size = key.size + sizeOf(value);
+		if (size > maxBytes) return;
+
+		evict(maxBytes - size);
+		entries.put(key, new Entry(value, size, opClass));
+		stats(opClass).bytes += size;
+		bytes += size;
+	}
+
+	/** Removes all cached outputs. Statistics other than bytes held are kept. */
+	public synchronized void clear() {
+		entries.clear();
+		bytes = 0;
+		for (final Statistics stats : statistics.values()) {
+			stats.bytes = 0;
+		}
+	}
+
+	/** Gets the byte budget of the cache. */
+	public synchronized long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Sets the byte budget of the cache, evicting least recently used outputs
+	 * until the cached outputs fit into it.
+	 *
+	 * @param maxBytes Maximum estimated size of all cached outputs, in bytes.
+	 */
+	public synchronized void setMaxBytes(final long maxBytes) {
+		checkMaxBytes(maxBytes);
+		this.maxBytes = maxBytes;
+		expunge();
+		evict(maxBytes);
+	}
+
+	/**
+	 * Gets the estimated size of all cached outputs and the strongly held
+	 * components of their keys, in bytes.
+	 */
+	public synchronized long getBytes() {
+		expunge();
+		return bytes;
+	}
+
+	/** Gets the number of cached outputs. */
+	public synchronized int size() {
+		expunge();
+		return entries.size();
+	}
+
+	/** Gets a snapshot of the statistics of the given op class. */
+	public synchronized Statistics getStatistics(final Class<?> opClass) {
+		final Statistics stats = statistics.get(opClass);
+		return stats == null ? new Statistics() : new Statistics(stats);
+	}
+
+	/** Gets a snapshot of the statistics of all op classes. */
+	public synchronized Map<Class<?>, Statistics> getStatistics() {
+		final Map<Class<?>, Statistics> snapshot = new HashMap<>();
+		for (final Map.Entry<Class<?>, Statistics> e : statistics.entrySet()) {
+			snapshot.put(e.getKey(), new Statistics(e.getValue()));
+		}
+		return snapshot;
+	}
+
+	// -- Utility methods --
+
+	/**
+	 * Estimates the memory footprint of the given object, in bytes. Images are
+	 * estimated from their number of elements and the bit depth of their type;
+	 * arrays and collections from their elements.
+	 */
+	public static long sizeOf(final Object o) {
+		if (o == null) return 0;
+		if (o instanceof RealType) {
+			return OBJECT_SIZE + bytes(((RealType<?>) o).getBitsPerPixel());
+		}
+		if (o instanceof ComplexType) return OBJECT_SIZE + 16;
+		if (o instanceof Number || o instanceof Boolean) return OBJECT_SIZE + 8;
+		if (o instanceof CharSequence) {
+			return OBJECT_SIZE + 2L * ((CharSequence) o).length();
+		}
+		if (o instanceof RandomAccessibleInterval) {
+			final RandomAccessibleInterval<?> rai = (RandomAccessibleInterval<?>) o;
+			final long n = Intervals.numElements(rai);
+			return OBJECT_SIZE + (n == 0 ? 0 : n * bytesPerElement(Util
+				.getTypeFromInterval(rai)));
+		}
+		if (o instanceof IterableInterval) {
+			final IterableInterval<?> ii = (IterableInterval<?>) o;
+			final long n = ii.size();
+			return OBJECT_SIZE + (n == 0 ? 0 : n * bytesPerElement(ii
+				.firstElement()));
+		}
+		if (o instanceof Collection) {
+			long size = OBJECT_SIZE;
+			for (final Object element : (Collection<?>) o) {
+				size += 8 + sizeOf(element);
+			}
+			return size;
+		}
+		if (o instanceof Map) {
+			long size = OBJECT_SIZE;
+			for (final Map.Entry<?, ?> e : ((Map<?, ?>) o).entrySet()) {
+				size += OBJECT_SIZE + sizeOf(e.getKey()) + sizeOf(e.getValue());
+			}
+			return size;
+		}
+		if (o.getClass().isArray()) {
+			final Class<?> component = o.getClass().getComponentType();
+			final int length = Array.getLength(o);
+			if (component.isPrimitive()) {
+				return OBJECT_SIZE + length * primitiveSize(component);
+			}
+			long size = OBJECT_SIZE;
+			for (int i = 0; i < length; i++) {
+				size += 8 + sizeOf(Array.get(o, i));
+			}
+			return size;
+		}
+		return UNKNOWN_SIZE;
+	}
+
+	// -- Helper methods --
+
+	private Statistics stats(final Class<?> opClass) {
+		return statistics.computeIfAbsent(opClass, c -> new Statistics());
+	}
+
+	private static void checkMaxBytes(final long maxBytes) {
+		if (maxBytes < 0) {
+			throw new IllegalArgumentException("Negative cache size: " + maxBytes);
+		}
+	}
+
+	/**
+	 * Evicts least recently used outputs until at most the given number of
+	 * bytes is held.
+	 */
+	private void evict(final long limit) {
+		final Iterator<Entry> iter = entries.values().iterator();
+		while (bytes > limit && iter.hasNext()) {
+			final Entry eldest = iter.next();
+			iter.remove();
+			remove(eldest);
+			stats(eldest.opClass).evictions++;
+		}
+	}
+
+	/** Removes the outputs whose weakly held key components were collected. */
+	private void expunge() {
+		for (Object ref; (ref = collected.poll()) != null;) {
+			remove(entries.remove(((ComponentReference) ref).key));
+		}
+	}
+
+	/** Releases the accounting of a removed entry. */
+	private void remove(final Entry entry) {
+		if (entry == null) return;
+		bytes -= entry.size;
+		stats(entry.opClass).bytes -= entry.size;
+	}
+
+	private static long bytesPerElement(final Object type) {
+		if (type instanceof RealType) {
+			return bytes(((RealType<?>) type).getBitsPerPixel());
+		}
+		if (type instanceof ComplexType) return 16;
+		return 8;
+	}
+
+	private static long bytes(final int bits) {
+		return Math.max(1, (bits + 7) / 8);
+	}
+
+	private static long primitiveSize(final Class<?> c) {
+		if (c == byte.class || c == boolean.class) return 1;
+		if (c == short.class || c == char.class) return 2;
+		if (c == int.class || c == float.class) return 4;
+		return 8;
+	}
+
+	// -- Helper classes --
+
+	/**
+	 * Key of a cached output.
+	 * <p>
+	 * Value-like components (numbers, strings, classes, enums and imglib2
+	 * {@link Type}s) are held strongly and compared for equality; their
+	 * estimated footprint is charged to the cached output. All other
+	 * components, in particular images, are held weakly and compared for
+	 * identity.
+	 * </p>
+	 */
+	public static final class Key {
+
+		private final Object[] components;
+		private final int hash;
+
+		/** Estimated size of the key, in bytes. */
+		private final long size;
+
+		private Key(final Object[] components,
+			final ReferenceQueue<Object> queue)
+		{
+			this.components = new Object[components.length];
+			int h = 1;
+			long bytes = OBJECT_SIZE + 8L * components.length;
+			for (int i = 0; i < components.length; i++) {
+				final Object c = components[i];
+				if (isValue(c)) {
+					this.components[i] = c;
+					h = 31 * h + (c == null ? 0 : c.hashCode());
+					bytes += sizeOf(c);
+				}
+				else {
+					this.components[i] = new ComponentReference(c, queue, this);
+					h = 31 * h + System.identityHashCode(c);
+					bytes += OBJECT_SIZE + 16;
+				}
+			}
+			hash = h;
+			size = bytes;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (obj == this) return true;
+			if (!(obj instanceof Key)) return false;
+			final Key that = (Key) obj;
+			if (hash != that.hash || components.length != that.components.length) {
+				return false;
+			}
+			for (int i = 0; i < components.length; i++) {
+				final Object a = components[i];
+				final Object b = that.components[i];
+				if (a instanceof ComponentReference) {
+					if (!(b instanceof ComponentReference)) return false;
+					final Object referent = ((ComponentReference) a).get();
+					if (referent == null || referent != ((ComponentReference) b).get()) {
+						return false;
+					}
+				}
+				else if (b instanceof ComponentReference || !Objects.equals(a, b)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/** Whether a weakly held component of this key was collected. */
+		private boolean isCollected() {
+			for (final Object c : components) {
+				if (c instanceof ComponentReference && //
+					((ComponentReference) c).get() == null) return true;
+			}
+			return false;
+		}
+
+		private static boolean isValue(final Object o) {
+			return o == null || o instanceof Number || o instanceof Boolean ||
+				o instanceof Character || o instanceof CharSequence ||
+				o instanceof Enum || o instanceof Class || o instanceof Type;
+		}
+	}
+
+	/** Weak reference to a key component, which knows its key. */
+	private static class ComponentReference extends WeakReference<Object> {
+
+		private final Key key;
+
+		public ComponentReference(final Object referent,
+			final ReferenceQueue<Object> queue, final Key key)
+		{
+			super(referent, queue);
+			this.key = key;
+		}
+	}
+
+	private static class Entry {
+
+		private final Object value;
+		private final long size;
+		private final Class<?> opClass;
+
+		public Entry(final Object value, final long size, final Class<?> opClass) {
+			this.value = value;
+			this.size = size;
+			this.opClass = opClass;
+		}
+	}
+
+	/** Cache statistics of one op class. */
+	public static class Statistics {
+
+		private long hits;
+		private long misses;
+		private long evictions;
+		private long bytes;
+
+		public Statistics() {
+			// NB: Empty statistics.
+		}
+
+		private Statistics(final Statistics stats) {
+			hits = stats.hits;
+			misses = stats.misses;
+			evictions = stats.evictions;
+			bytes = stats.bytes;
+		}
+
+		/** Gets the number of requests answered from the cache. */
+		public long getHits() {
+			return hits;
+		}
+
+		/** Gets the number of requests which had to be computed. */
+		public long getMisses() {
+			return misses;
+		}
+
+		/** Gets the number of outputs evicted to stay within the budget. */
+		public long getEvictions() {
+			return evictions;
+		}
+
+		/** Gets the estimated size of the currently cached outputs, in bytes. */
+		public long getBytes() {
+			return bytes;
+		}
+
+		@Override
+		public String toString() {
+			return "hits=" + hits + ", misses=" + misses + ", evictions=" +
+				evictions + ", bytes=" + bytes;
+		}
+	}
+
+}
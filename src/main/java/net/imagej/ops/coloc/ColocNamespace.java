@@ -33,6 +33,7 @@ import net.imagej.ops.AbstractNamespace;
 import net.imagej.ops.Namespace;
 import net.imagej.ops.OpMethod;
 import net.imagej.ops.coloc.pValue.PValueResult;
+import net.imagej.ops.coloc.statistics.ColocStatisticsResult;
 import net.imagej.ops.special.function.BinaryFunctionOp;
 import net.imglib2.Dimensions;
 import net.imglib2.RandomAccessibleInterval;
@@ -81,6 +82,22 @@ public class ColocNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	@OpMethod(op = net.imagej.ops.coloc.kendallTau.KendallTauBRank.class)
+	public <T extends RealType<T>, U extends RealType<U>> Double kendallTau(final Iterable<T> image1, final Iterable<U> image2,
+			final int maxSamples) {
+		final Double result = (Double) ops().run(net.imagej.ops.coloc.kendallTau.KendallTauBRank.class, image1, image2,
+				maxSamples);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.coloc.kendallTau.KendallTauBRank.class)
+	public <T extends RealType<T>, U extends RealType<U>> Double kendallTau(final Iterable<T> image1, final Iterable<U> image2,
+			final int maxSamples, final long seed) {
+		final Double result = (Double) ops().run(net.imagej.ops.coloc.kendallTau.KendallTauBRank.class, image1, image2,
+				maxSamples, seed);
+		return result;
+	}
+
 	// -- pearsons --
 
 	@OpMethod(op = net.imagej.ops.coloc.pearsons.DefaultPearsons.class)
@@ -144,6 +161,64 @@ public class ColocNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	// -- statistics --
+
+	@OpMethod(op = net.imagej.ops.coloc.statistics.DefaultColocStatistics.class)
+	public <T extends RealType<T>, U extends RealType<U>> ColocStatisticsResult
+		statistics(final Iterable<T> image1, final Iterable<U> image2)
+	{
+		final ColocStatisticsResult result = (ColocStatisticsResult) ops().run(
+			net.imagej.ops.coloc.statistics.DefaultColocStatistics.class, image1,
+			image2);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.coloc.statistics.DefaultColocStatistics.class)
+	public <T extends RealType<T>, U extends RealType<U>> ColocStatisticsResult
+		statistics(final Iterable<T> image1, final Iterable<U> image2,
+		final DoubleType threshold1)
+	{
+		final ColocStatisticsResult result = (ColocStatisticsResult) ops().run(
+			net.imagej.ops.coloc.statistics.DefaultColocStatistics.class, image1,
+			image2, threshold1);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.coloc.statistics.DefaultColocStatistics.class)
+	public <T extends RealType<T>, U extends RealType<U>> ColocStatisticsResult
+		statistics(final Iterable<T> image1, final Iterable<U> image2,
+		final DoubleType threshold1, final DoubleType threshold2)
+	{
+		final ColocStatisticsResult result = (ColocStatisticsResult) ops().run(
+			net.imagej.ops.coloc.statistics.DefaultColocStatistics.class, image1,
+			image2, threshold1, threshold2);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.coloc.statistics.DefaultColocStatistics.class)
+	public <T extends RealType<T>, U extends RealType<U>> ColocStatisticsResult
+		statistics(final Iterable<T> image1, final Iterable<U> image2,
+		final DoubleType threshold1, final DoubleType threshold2,
+		final DoubleType mean1)
+	{
+		final ColocStatisticsResult result = (ColocStatisticsResult) ops().run(
+			net.imagej.ops.coloc.statistics.DefaultColocStatistics.class, image1,
+			image2, threshold1, threshold2, mean1);
+		return result;
+	}
+
+	@OpMethod(op = net.imagej.ops.coloc.statistics.DefaultColocStatistics.class)
+	public <T extends RealType<T>, U extends RealType<U>> ColocStatisticsResult
+		statistics(final Iterable<T> image1, final Iterable<U> image2,
+		final DoubleType threshold1, final DoubleType threshold2,
+		final DoubleType mean1, final DoubleType mean2)
+	{
+		final ColocStatisticsResult result = (ColocStatisticsResult) ops().run(
+			net.imagej.ops.coloc.statistics.DefaultColocStatistics.class, image1,
+			image2, threshold1, threshold2, mean1, mean2);
+		return result;
+	}
+
 	// -- Namespace methods --
 
 	@Override
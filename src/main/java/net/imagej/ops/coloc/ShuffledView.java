@@ -56,7 +56,7 @@ public class ShuffledView<T> extends AbstractInterval implements
 	RandomAccessibleInterval<T>, View
 {
 
-	private static Random rng;
+	private Random rng;
 	private final RandomAccessibleInterval<T> image;
 	private List<Integer> blockIndices;
 	private int[] blockSize;
@@ -127,6 +127,15 @@ public class ShuffledView<T> extends AbstractInterval implements
 		}
 		Collections.shuffle(blockIndices, rng);
 	}
+
+	/** Gets a copy of the current order of the blocks. */
+	public List<Integer> copyBlockIndices() {
+		final IntArray copy = new IntArray();
+		copy.ensureCapacity(blockIndices.size());
+		for (final Integer index : blockIndices)
+			copy.addValue(index);
+		return copy;
+	}
 	
 	@Override
 	public RandomAccess<T> randomAccess() {
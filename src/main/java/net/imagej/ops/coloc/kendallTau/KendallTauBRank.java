@@ -29,17 +29,16 @@
 package net.imagej.ops.coloc.kendallTau;
 
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
 
 import net.imagej.ops.Contingent;
 import net.imagej.ops.Ops;
 import net.imagej.ops.coloc.ColocUtil;
-import net.imagej.ops.coloc.IntArraySorter;
-import net.imagej.ops.coloc.IntComparator;
 import net.imagej.ops.special.function.AbstractBinaryFunctionOp;
 import net.imglib2.type.numeric.RealType;
-import net.imglib2.util.IterablePair;
-import net.imglib2.util.Pair;
 
+import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
 
 /**
@@ -69,6 +68,12 @@ import org.scijava.plugin.Plugin;
  * t_i = number of tied values in the i-th group of ties for the first quantity
  * u_j = number of tied values in the j-th group of ties for the second quantity
  * </pre>
+ * <p>
+ * The pairs are copied into primitive scratch buffers, which are reused
+ * between calls. For very large regions, {@code maxSamples} limits the number
+ * of pairs: a uniform random sample of that size is drawn (reservoir sampling
+ * with the given {@code seed}), and Tau-b is estimated from it.
+ * </p>
  *
  * @author Johannes Schindelin
  * @author Ellen T Arena
@@ -78,35 +83,76 @@ import org.scijava.plugin.Plugin;
 public class KendallTauBRank<T extends RealType<T>, U extends RealType<U>>
 		/* extends Algorithm<T> */ extends AbstractBinaryFunctionOp<Iterable<T>, Iterable<U>, Double>
 		implements Ops.Coloc.KendallTau, Contingent {
-	
+
+	/** Maximum number of pairs to use; larger inputs are sampled. */
+	@Parameter(required = false)
+	private int maxSamples = Integer.MAX_VALUE;
+
+	/** Seed for the sampling of large inputs. */
+	@Parameter(required = false)
+	private long seed = 0x27372034;
+
+	// scratch buffers, reused between calls
+	private double[] values1 = new double[0], values2 = new double[0];
+	private double[] buffer1 = new double[0], buffer2 = new double[0];
+
 	@Override
 	public Double calculate(Iterable<T> image1, Iterable<U> image2) {
-		final Iterable<Pair<T, U>> samples = new IterablePair<>(image1, image2);
-		return calculateMergeSort(samples);
+		final int n = getPairs(image1, image2);
+		return calculateMergeSort(n);
 	}
 
-	private double[][] getPairs(final Iterable<Pair<T, U>> samples) {
-		// TODO: it is ridiculous that this has to be counted all the time (i.e. in most if not all measurements!).
-		// We only need an upper bound to begin with, so even the number of pixels in the first channel would be enough!
-		int capacity = 0;
-		for (@SuppressWarnings("unused") Pair<T, U> sample : samples) {
-			capacity++;
-		}
+	@Override
+	public KendallTauBRank<T, U> getIndependentInstance() {
+		// NB: The scratch buffers cannot be shared across threads.
+		final KendallTauBRank<T, U> instance = new KendallTauBRank<>();
+		instance.maxSamples = maxSamples;
+		instance.seed = seed;
+		return instance;
+	}
 
-		double[] values1 = new double[capacity];
-		double[] values2 = new double[capacity];
+	/**
+	 * Copies the pairs into {@link #values1} and {@link #values2}, sampling
+	 * them if there are more than {@link #maxSamples}.
+	 *
+	 * @return the number of pairs
+	 */
+	private int getPairs(final Iterable<T> image1, final Iterable<U> image2) {
+		final Iterator<T> it1 = image1.iterator();
+		final Iterator<U> it2 = image2.iterator();
+		Random random = null;
 		int count = 0;
-		for (Pair<T, U> sample : samples) {
-			values1[count] = sample.getA().getRealDouble();
-			values2[count] = sample.getB().getRealDouble();
-			count++;
+		long seen = 0;
+		while (it1.hasNext() && it2.hasNext()) {
+			final double value1 = it1.next().getRealDouble();
+			final double value2 = it2.next().getRealDouble();
+			if (seen < maxSamples) {
+				ensureCapacity(count + 1);
+				values1[count] = value1;
+				values2[count] = value2;
+				count++;
+			}
+			else {
+				// reservoir sampling: replace a random pair with this one, with
+				// probability maxSamples / (seen + 1)
+				if (random == null) random = new Random(seed);
+				final long j = (long) (random.nextDouble() * (seen + 1));
+				if (j < maxSamples) {
+					values1[(int) j] = value1;
+					values2[(int) j] = value2;
+				}
+			}
+			seen++;
 		}
+		return count;
+	}
 
-		if (count < capacity) {
-			values1 = Arrays.copyOf(values1, count);
-			values2 = Arrays.copyOf(values2, count);
-		}
-		return new double[][] { values1, values2 };
+	private void ensureCapacity(final int capacity) {
+		if (values1.length >= capacity && values2.length >= capacity) return;
+		final int length = (int) Math.min(Integer.MAX_VALUE, Math.max(capacity,
+			Math.max(1024, 2L * values1.length)));
+		values1 = Arrays.copyOf(values1, length);
+		values2 = Arrays.copyOf(values2, length);
 	}
 
 	/**
@@ -125,57 +171,42 @@ public class KendallTauBRank<T extends RealType<T>, U extends RealType<U>>
 	 * unnecessarily hard to verify.
 	 * </p>
 	 * 
-	 * @param samples the iterator of the pairs
 	 * @return Tau-b
 	 */
-	private double calculateMergeSort(final Iterable<Pair<T, U>> samples) {
-		final double[][] pairs = getPairs(samples);
-		final double[] x = pairs[0];
-		final double[] y = pairs[1];
-		final int n = x.length;
-
-		int[] index = new int[n];
-		for (int i = 0; i < n; i++) {
-			index[i] = i;
+	private double calculateMergeSort(final int n) {
+		if (buffer1.length < n || buffer2.length < n) {
+			buffer1 = new double[n];
+			buffer2 = new double[n];
 		}
 
 		// First sort by x as primary key, y as secondary one.
-		// We use IntroSort here because it is fast and in-place.
-		IntArraySorter.sort(index, new IntComparator() {
-
-			@Override
-			public int compare(int a, int b) {
-				double xa = x[a], ya = y[a];
-				double xb = x[b], yb = y[b];
-				int result = Double.compare(xa, xb);
-				return result != 0 ? result : Double.compare(ya, yb);
-			}
-
-		});
+		sortPairs(n);
+		final double[] x = values1;
+		final double[] y = values2;
 
 		// The trick is to count the ties of x (n1) and the joint ties of x and y (n3) now, while
-		// index is sorted with regards to x.
+		// the pairs are sorted with regards to x.
 		long n0 = n * (long)(n - 1) / 2;
 		long n1 = 0, n3 = 0;
 
 		for (int i = 1; i < n; i++) {
-			double x0 = x[index[i - 1]];
-			if (x[index[i]] != x0) {
+			double x0 = x[i - 1];
+			if (x[i] != x0) {
 				continue;
 			}
-			double y0 = y[index[i - 1]];
+			double y0 = y[i - 1];
 			int i1 = i;
 			do {
-				double y1 = y[index[i1++]];
+				double y1 = y[i1++];
 				if (y1 == y0) {
 					int i2 = i1;
-					while (i1 < n && x[index[i1]] == x0 && y[index[i1]] == y0) {
+					while (i1 < n && x[i1] == x0 && y[i1] == y0) {
 						i1++;
 					}
 					n3 += (i1 - i2 + 2) * (long)(i1 - i2 + 1) / 2;
 				}
 				y0 = y1;
-			} while (i1 < n && x[index[i1]] == x0);
+			} while (i1 < n && x[i1] == x0);
 			n1 += (i1 - i + 1) * (long)(i1 - i) / 2;
 			i = i1;
 		}
@@ -183,26 +214,17 @@ public class KendallTauBRank<T extends RealType<T>, U extends RealType<U>>
 		// Now, let's perform that merge sort that also counts S, the number of
 		// swaps a Bubble Sort would require (and which therefore is half the number
 		// by which we have to adjust n_0 - n_1 - n_2 + n_3 to obtain n_c - n_d)
-		final MergeSort mergeSort = new MergeSort(index, new IntComparator() {
-
-			@Override
-			public int compare(int a, int b) {
-				double ya = y[a];
-				double yb = y[b];
-				return Double.compare(ya, yb);
-			}
-		});
-		long S = mergeSort.sort();
-		index = mergeSort.getSorted();
+		long S = sortCountingSwaps(n);
+		final double[] sortedY = values2;
 		long n2 = 0;
 
 		for (int i = 1; i < n; i++) {
-			double y0 = y[index[i - 1]];
-			if (y[index[i]] != y0) {
+			double y0 = sortedY[i - 1];
+			if (sortedY[i] != y0) {
 				continue;
 			}
 			int i1 = i + 1;
-			while (i1 < n && y[index[i1]] == y0) {
+			while (i1 < n && sortedY[i1] == y0) {
 				i1++;
 			}
 			n2 += (i1 - i + 1) * (long)(i1 - i) / 2;
@@ -212,76 +234,75 @@ public class KendallTauBRank<T extends RealType<T>, U extends RealType<U>>
 		return (n0 - n1 - n2 + n3 - 2 * S) / Math.sqrt((n0 - n1) * (double)(n0 - n2));
 	}
 
-	private final static class MergeSort {
-
-		private int[] index;
-		private final IntComparator comparator;
-
-		public MergeSort(int[] index, IntComparator comparator) {
-			this.index = index;
-			this.comparator = comparator;
-		}
-
-		public int[] getSorted() {
-			return index;
+	/**
+	 * Sorts the first {@code n} pairs by x, then y, using a non-recursive merge
+	 * sort on the primitive buffers.
+	 */
+	private void sortPairs(final int n) {
+		double[] x = values1, y = values2;
+		double[] x2 = buffer1, y2 = buffer2;
+		for (int step = 1; step < n; step <<= 1) {
+			for (int begin = 0; begin < n; begin += 2 * step) {
+				final int begin2 = Math.min(begin + step, n);
+				final int end = Math.min(begin2 + step, n);
+				int i = begin, j = begin2, k = begin;
+				while (i < begin2 && j < end) {
+					final int compare = Double.compare(x[j], x[i]);
+					if (compare < 0 || compare == 0 && Double.compare(y[j], y[i]) < 0) {
+						x2[k] = x[j];
+						y2[k++] = y[j++];
+					} else {
+						x2[k] = x[i];
+						y2[k++] = y[i++];
+					}
+				}
+				System.arraycopy(x, i, x2, k, begin2 - i);
+				System.arraycopy(y, i, y2, k, begin2 - i);
+				k += begin2 - i;
+				System.arraycopy(x, j, x2, k, end - j);
+				System.arraycopy(y, j, y2, k, end - j);
+			}
+			double[] swap = x; x = x2; x2 = swap;
+			swap = y; y = y2; y2 = swap;
 		}
+		values1 = x; values2 = y;
+		buffer1 = x2; buffer2 = y2;
+	}
 
-		/**
-		 * Sorts the {@link #index} array.
-		 * <p>
-		 * This implements a non-recursive merge sort.
-		 * </p>
-		 * @return the equivalent number of BubbleSort swaps
-		 */
-		public long sort() {
-			long swaps = 0;
-			int n = index.length;
-			// There are merge sorts which perform in-place, but their runtime is worse than O(n log n)
-			int[] index2 = new int[n];
-			for (int step = 1; step < n; step <<= 1) {
-				int begin = 0, k = 0;
-				for (;;) {
-					int begin2 = begin + step, end = begin2 + step;
-					if (end >= n) {
-						if (begin2 >= n) {
-							break;
-						}
-						end = n;
-					}
+	/**
+	 * Sorts the first {@code n} values of {@link #values2}, using a
+	 * non-recursive merge sort.
+	 *
+	 * @return the equivalent number of BubbleSort swaps
+	 */
+	private long sortCountingSwaps(final int n) {
+		long swaps = 0;
+		double[] y = values2, y2 = buffer2;
+		for (int step = 1; step < n; step <<= 1) {
+			for (int begin = 0; begin < n; begin += 2 * step) {
+				final int begin2 = Math.min(begin + step, n);
+				final int end = Math.min(begin2 + step, n);
 
-					// calculate the equivalent number of BubbleSort swaps
-					// and perform merge, too
-					int i = begin, j = begin2;
-					while (i < begin2 && j < end) {
-						int compare = comparator.compare(index[i], index[j]);
-						if (compare > 0) {
-							swaps += (begin2 - i);
-							index2[k++] = index[j++];
-						} else {
-							index2[k++] = index[i++];
-						}
-					}
-					if (i < begin2) {
-						do {
-							index2[k++] = index[i++];
-						} while (i < begin2);
+				// calculate the equivalent number of BubbleSort swaps
+				// and perform merge, too
+				int i = begin, j = begin2, k = begin;
+				while (i < begin2 && j < end) {
+					if (Double.compare(y[i], y[j]) > 0) {
+						swaps += (begin2 - i);
+						y2[k++] = y[j++];
 					} else {
-						while (j < end) {
-							index2[k++] = index[j++];
-						}
+						y2[k++] = y[i++];
 					}
-					begin = end;
 				}
-				if (k < n) {
-					System.arraycopy(index, k, index2, k, n - k);
-				}
-				int[] swapIndex = index2;
-				index2 = index;
-				index = swapIndex;
+				System.arraycopy(y, i, y2, k, begin2 - i);
+				k += begin2 - i;
+				System.arraycopy(y, j, y2, k, end - j);
 			}
-
-			return swaps;
+			final double[] swap = y; y = y2; y2 = swap;
 		}
+		values2 = y;
+		buffer2 = y2;
+		return swaps;
 	}
 
 	@Override
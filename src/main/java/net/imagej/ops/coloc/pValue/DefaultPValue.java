@@ -29,10 +29,14 @@
 
 package net.imagej.ops.coloc.pValue;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import net.imagej.ops.Ops;
 import net.imagej.ops.coloc.ShuffledView;
 import net.imagej.ops.special.computer.AbstractBinaryComputerOp;
 import net.imagej.ops.special.function.BinaryFunctionOp;
+import net.imagej.ops.thread.chunker.Chunk;
 import net.imglib2.Dimensions;
 import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccessibleInterval;
@@ -49,6 +53,12 @@ import org.scijava.plugin.Plugin;
  * (2017) IEEE Signal Processing "Automated and Robust Quantification of
  * Colocalization in Dual-Color Fluorescence Microscopy: A Nonparametric
  * Statistical Approach".
+ * <p>
+ * The block shuffles are drawn sequentially from {@code seed}, while the
+ * colocalization op is evaluated on the shuffled images in parallel, in
+ * chunks distributed by the chunker. The resulting distribution therefore
+ * does not depend on the number of threads.
+ * </p>
  */
 @Plugin(type = Ops.Coloc.PValue.class)
 public class DefaultPValue<T extends RealType<T>, U extends RealType<U>> extends
@@ -68,6 +78,9 @@ public class DefaultPValue<T extends RealType<T>, U extends RealType<U>> extends
 	@Parameter(required = false)
 	private long seed = 0x27372034;
 
+	/** Minimum number of randomizations performed by each chunk. */
+	private static final int RANDOMIZATIONS_PER_CHUNK = 25;
+
 	@Override
 	public void compute(final RandomAccessibleInterval<T> image1,
 		final RandomAccessibleInterval<U> image2, PValueResult output)
@@ -76,19 +89,40 @@ public class DefaultPValue<T extends RealType<T>, U extends RealType<U>> extends
 		final RandomAccessibleInterval<T> trimmedImage1 = trim(image1, blockSize);
 		final RandomAccessibleInterval<U> trimmedImage2 = trim(image2, blockSize);
 
-		final ShuffledView<T> shuffled = new ShuffledView<>(image1, blockSize,
-			seed);
-		final IterableInterval<T> shuffledIterable = Views.iterable(shuffled);
 		final double[] sampleDistribution = new double[nrRandomizations];
 
 		final IterableInterval<T> iterableImage1 = Views.iterable(trimmedImage1);
 		final IterableInterval<U> iterableImage2 = Views.iterable(trimmedImage2);
-		final double value = op.calculate(iterableImage1, iterableImage2); 
+		final double value = op.calculate(iterableImage1, iterableImage2);
 
+		// NB: The shuffles are drawn on this thread, so that each randomization
+		// uses the same block order regardless of scheduling.
+		final ShuffledView<T> shuffled = new ShuffledView<>(image1, blockSize,
+			seed);
+		final List<List<Integer>> blockOrders = new ArrayList<>(
+			nrRandomizations);
 		for (int i = 0; i < nrRandomizations; i++) {
 			shuffled.shuffleBlocks();
-			sampleDistribution[i] = op.calculate(shuffledIterable, iterableImage2);
+			blockOrders.add(shuffled.copyBlockIndices());
 		}
+
+		ops().thread().chunker(new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final BinaryFunctionOp<Iterable<T>, Iterable<U>, Double> chunkOp = op
+					.getIndependentInstance();
+				for (int k = 0, i = startIndex; k < numSteps; k++, i += stepSize) {
+					final ShuffledView<T> view = new ShuffledView<>(image1, blockSize,
+						blockOrders.get(i));
+					sampleDistribution[i] = chunkOp.calculate(Views.iterable(view),
+						iterableImage2);
+				}
+			}
+		}, nrRandomizations, RANDOMIZATIONS_PER_CHUNK);
+
 		output.setColocValue(value);
 		output.setColocValuesArray(sampleDistribution);
 		output.setPValue(calculatePvalue(value, sampleDistribution));
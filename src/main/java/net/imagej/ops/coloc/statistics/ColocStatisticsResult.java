@@ -0,0 +1,127 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.coloc.statistics;
+
+/**
+ * The colocalization statistics of two channels, as computed by
+ * {@link DefaultColocStatistics}.
+ */
+public class ColocStatisticsResult {
+
+	private final long count;
+	private final double mean1;
+	private final double mean2;
+	private final double variance1;
+	private final double variance2;
+	private final double covariance;
+	private final double pearsons;
+	private final double icq;
+	private final double manders1;
+	private final double manders2;
+
+	public ColocStatisticsResult(final long count, final double mean1,
+		final double mean2, final double variance1, final double variance2,
+		final double covariance, final double pearsons, final double icq,
+		final double manders1, final double manders2)
+	{
+		this.count = count;
+		this.mean1 = mean1;
+		this.mean2 = mean2;
+		this.variance1 = variance1;
+		this.variance2 = variance2;
+		this.covariance = covariance;
+		this.pearsons = pearsons;
+		this.icq = icq;
+		this.manders1 = manders1;
+		this.manders2 = manders2;
+	}
+
+	/** Gets the number of sample pairs. */
+	public long getCount() {
+		return count;
+	}
+
+	/** Gets the mean of the first channel. */
+	public double getMean1() {
+		return mean1;
+	}
+
+	/** Gets the mean of the second channel. */
+	public double getMean2() {
+		return mean2;
+	}
+
+	/** Gets the sample variance of the first channel. */
+	public double getVariance1() {
+		return variance1;
+	}
+
+	/** Gets the sample variance of the second channel. */
+	public double getVariance2() {
+		return variance2;
+	}
+
+	/** Gets the sample covariance of both channels. */
+	public double getCovariance() {
+		return covariance;
+	}
+
+	/**
+	 * Gets Pearson's R value, which is {@code NaN} if either channel is
+	 * constant.
+	 */
+	public double getPearsons() {
+		return pearsons;
+	}
+
+	/** Gets Li et al.'s ICQ (intensity correlation quotient). */
+	public double getICQ() {
+		return icq;
+	}
+
+	/**
+	 * Gets the Manders coefficient M1, the fraction of the first channel's
+	 * intensity above its threshold which colocalizes with the second channel
+	 * above its threshold.
+	 */
+	public double getManders1() {
+		return manders1;
+	}
+
+	/**
+	 * Gets the Manders coefficient M2, the fraction of the second channel's
+	 * intensity above its threshold which colocalizes with the first channel
+	 * above its threshold.
+	 */
+	public double getManders2() {
+		return manders2;
+	}
+}
@@ -0,0 +1,255 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.coloc.statistics;
+
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.Ops;
+import net.imagej.ops.coloc.ColocUtil;
+import net.imagej.ops.special.function.AbstractBinaryFunctionOp;
+import net.imagej.ops.thread.chunker.CursorBasedChunk;
+import net.imglib2.Cursor;
+import net.imglib2.IterableInterval;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.util.IterablePair;
+import net.imglib2.util.Pair;
+
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Computes the means, variances and covariance of two channels together with
+ * Pearson's R, Li's ICQ and the Manders coefficients, in a single pass over
+ * the paired samples.
+ * <p>
+ * The moments are accumulated with Welford's algorithm, which is numerically
+ * stable also for large images with a large offset. If both inputs are
+ * {@link IterableInterval}s, the samples are split into chunks which are
+ * accumulated in parallel and merged afterwards. Since the ICQ depends on the
+ * means of both channels, a second pass is needed for it unless both means
+ * are given.
+ * </p>
+ *
+ * @param <T> Type of the first image
+ * @param <U> Type of the second image
+ */
+@Plugin(type = Ops.Coloc.Statistics.class)
+public class DefaultColocStatistics<T extends RealType<T>, U extends RealType<U>>
+	extends AbstractBinaryFunctionOp<Iterable<T>, Iterable<U>, ColocStatisticsResult>
+	implements Ops.Coloc.Statistics, Contingent
+{
+
+	/** Threshold of the first channel for the Manders coefficients. */
+	@Parameter(required = false)
+	private DoubleType threshold1;
+
+	/** Threshold of the second channel for the Manders coefficients. */
+	@Parameter(required = false)
+	private DoubleType threshold2;
+
+	@Parameter(required = false)
+	private DoubleType mean1;
+
+	@Parameter(required = false)
+	private DoubleType mean2;
+
+	@Override
+	public ColocStatisticsResult calculate(final Iterable<T> image1,
+		final Iterable<U> image2)
+	{
+		final double t1 = threshold1 == null ? 0 : threshold1.get();
+		final double t2 = threshold2 == null ? 0 : threshold2.get();
+		final boolean meansKnown = mean1 != null && mean2 != null;
+		final double m1 = mean1 == null ? Double.NaN : mean1.get();
+		final double m2 = mean2 == null ? Double.NaN : mean2.get();
+
+		final Accumulator acc = accumulate(image1, image2, () -> new Accumulator(
+			true, t1, t2, meansKnown, m1, m2));
+
+		final Accumulator icqAcc;
+		if (meansKnown) icqAcc = acc;
+		else {
+			// NB: The ICQ needs the final means, hence a second pass.
+			final double icqMean1 = mean1 == null ? acc.meanX : m1;
+			final double icqMean2 = mean2 == null ? acc.meanY : m2;
+			icqAcc = accumulate(image1, image2, () -> new Accumulator(false, t1, t2,
+				true, icqMean1, icqMean2));
+		}
+
+		final long n = acc.count;
+		final double pearsons = acc.cXY / Math.sqrt(acc.m2X * acc.m2Y);
+		final double icq = (double) icqAcc.positive / (icqAcc.positive +
+			icqAcc.negative) - 0.5;
+		return new ColocStatisticsResult(n, acc.meanX, acc.meanY, acc.m2X / (n -
+			1), acc.m2Y / (n - 1), acc.cXY / (n - 1), pearsons, icq, acc.sum1Coloc /
+				acc.sum1, acc.sum2Coloc / acc.sum2);
+	}
+
+	@Override
+	public boolean conforms() {
+		return ColocUtil.sameIterationOrder(in1(), in2());
+	}
+
+	// -- Helper methods --
+
+	private Accumulator accumulate(final Iterable<T> image1,
+		final Iterable<U> image2, final Supplier<Accumulator> factory)
+	{
+		final Accumulator result = factory.get();
+
+		if (!(image1 instanceof IterableInterval) ||
+			!(image2 instanceof IterableInterval) || //
+			((IterableInterval<?>) image1).size() > Integer.MAX_VALUE)
+		{
+			for (final Pair<T, U> sample : new IterablePair<>(image1, image2)) {
+				result.add(sample.getA().getRealDouble(), sample.getB()
+					.getRealDouble());
+			}
+			return result;
+		}
+
+		final IterableInterval<T> ii1 = (IterableInterval<T>) image1;
+		final IterableInterval<U> ii2 = (IterableInterval<U>) image2;
+
+		// NB: The partial results are merged in order of their first sample, so
+		// that the result does not depend on the scheduling of the chunks.
+		final ConcurrentSkipListMap<Integer, Accumulator> partials =
+			new ConcurrentSkipListMap<>();
+		ops().thread().chunker(new CursorBasedChunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final Cursor<T> c1 = ii1.cursor();
+				final Cursor<U> c2 = ii2.cursor();
+				setToStart(c1, startIndex);
+				setToStart(c2, startIndex);
+
+				final Accumulator acc = factory.get();
+				for (int i = 0; i < numSteps; i++) {
+					acc.add(c1.get().getRealDouble(), c2.get().getRealDouble());
+					c1.jumpFwd(stepSize);
+					c2.jumpFwd(stepSize);
+				}
+				partials.put(startIndex, acc);
+			}
+		}, ii1.size());
+
+		for (final Accumulator partial : partials.values())
+			result.merge(partial);
+		return result;
+	}
+
+	// -- Helper classes --
+
+	/**
+	 * Accumulates the moments, Manders sums and ICQ counts of paired samples.
+	 * Partial accumulators are combined with the pairwise update of Chan et al.
+	 */
+	private static class Accumulator {
+
+		private final boolean moments;
+		private final double threshold1, threshold2;
+		private final boolean icq;
+		private final double icqMean1, icqMean2;
+
+		private long count;
+		private double meanX, meanY, m2X, m2Y, cXY;
+		private double sum1, sum1Coloc, sum2, sum2Coloc;
+		private long positive, negative;
+
+		public Accumulator(final boolean moments, final double threshold1,
+			final double threshold2, final boolean icq, final double icqMean1,
+			final double icqMean2)
+		{
+			this.moments = moments;
+			this.threshold1 = threshold1;
+			this.threshold2 = threshold2;
+			this.icq = icq;
+			this.icqMean1 = icqMean1;
+			this.icqMean2 = icqMean2;
+		}
+
+		public void add(final double x, final double y) {
+			if (moments) {
+				count++;
+				final double dx = x - meanX;
+				final double dy = y - meanY;
+				meanX += dx / count;
+				meanY += dy / count;
+				final double newDy = y - meanY;
+				m2X += dx * (x - meanX);
+				m2Y += dy * newDy;
+				cXY += dx * newDy;
+
+				final boolean above1 = x > threshold1;
+				final boolean above2 = y > threshold2;
+				if (above1) {
+					sum1 += x;
+					if (above2) sum1Coloc += x;
+				}
+				if (above2) {
+					sum2 += y;
+					if (above1) sum2Coloc += y;
+				}
+			}
+			if (icq) {
+				if ((icqMean1 - x) * (icqMean2 - y) < 0.0) negative++;
+				else positive++;
+			}
+		}
+
+		public void merge(final Accumulator other) {
+			if (other.count > 0) {
+				final long n = count + other.count;
+				final double dx = other.meanX - meanX;
+				final double dy = other.meanY - meanY;
+				final double f = (double) count * other.count / n;
+				meanX += dx * other.count / n;
+				meanY += dy * other.count / n;
+				m2X += other.m2X + dx * dx * f;
+				m2Y += other.m2Y + dy * dy * f;
+				cXY += other.cXY + dx * dy * f;
+				count = n;
+			}
+			sum1 += other.sum1;
+			sum1Coloc += other.sum1Coloc;
+			sum2 += other.sum2;
+			sum2Coloc += other.sum2Coloc;
+			positive += other.positive;
+			negative += other.negative;
+		}
+	}
+}
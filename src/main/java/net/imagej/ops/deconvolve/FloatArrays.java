@@ -0,0 +1,103 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.deconvolve;
+
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Utility methods for working directly on the {@code float[]} storage of
+ * {@link FloatType} {@link ArrayImg}s and {@link PlanarImg}s, which the
+ * iterative deconvolution steps use to avoid per-pixel cursor overhead.
+ */
+public final class FloatArrays {
+
+	private FloatArrays() {
+		// NB: prevent instantiation of utility class.
+	}
+
+	/**
+	 * Gets the arrays backing the given image, in flat iteration order: one array
+	 * for an {@link ArrayImg}, one per plane for a {@link PlanarImg}.
+	 * 
+	 * @return the arrays, or null if the image is not a {@link FloatType} image
+	 *         backed by {@link FloatArray}s.
+	 */
+	public static float[][] of(final Object image) {
+		if (image instanceof ArrayImg) {
+			final ArrayImg<?, ?> img = (ArrayImg<?, ?>) image;
+			final Object access = img.update(null);
+			if (!(img.firstElement() instanceof FloatType) ||
+				!(access instanceof FloatArray)) return null;
+			return new float[][] { ((FloatArray) access).getCurrentStorageArray() };
+		}
+		if (image instanceof PlanarImg) {
+			final PlanarImg<?, ?> img = (PlanarImg<?, ?>) image;
+			if (!(img.firstElement() instanceof FloatType)) return null;
+			final float[][] planes = new float[img.numSlices()][];
+			for (int i = 0; i < planes.length; i++) {
+				final Object plane = img.getPlane(i);
+				if (!(plane instanceof FloatArray)) return null;
+				planes[i] = ((FloatArray) plane).getCurrentStorageArray();
+			}
+			return planes;
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the arrays backing the given images if all of them are backed by
+	 * arrays of the same lengths, i.e. if their pixels can be visited together
+	 * by index.
+	 * 
+	 * @return the arrays per image, or null if the images do not share a layout.
+	 */
+	public static float[][][] ofAll(final Object... images) {
+		final float[][][] arrays = new float[images.length][][];
+		for (int i = 0; i < images.length; i++) {
+			arrays[i] = of(images[i]);
+			if (arrays[i] == null) return null;
+			if (i > 0 && !sameLayout(arrays[0], arrays[i])) return null;
+		}
+		return arrays;
+	}
+
+	private static boolean sameLayout(final float[][] a, final float[][] b) {
+		if (a.length != b.length) return false;
+		for (int i = 0; i < a.length; i++) {
+			if (a[i].length != b[i].length) return false;
+		}
+		return true;
+	}
+
+}
@@ -50,11 +50,13 @@ import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.img.Img;
 import net.imglib2.type.numeric.ComplexType;
 import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
 import net.imglib2.util.Util;
 import net.imglib2.view.IntervalView;
 import net.imglib2.view.Views;
 
 import org.scijava.Priority;
+import org.scijava.log.LogService;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
 
@@ -115,6 +117,28 @@ public class RichardsonLucyC<I extends RealType<I>, O extends RealType<O>, K ext
 
 	private RandomAccessibleInterval<O> raiExtendedReblurred;
 
+	/**
+	 * Estimate buffer used when no starting estimate was passed in; reused
+	 * across calls
+	 */
+	private RandomAccessibleInterval<O> estimateBuffer;
+
+	/**
+	 * Copy of the observed image, made when the estimate buffers are backed by
+	 * float arrays but the observed image is not, so that the correction can run
+	 * directly on the storage. NB: This costs one more image of the (extended)
+	 * input size, which is kept for reuse across calls.
+	 */
+	private RandomAccessibleInterval<O> observedBuffer;
+
+	/**
+	 * Duration of each iteration of the last call, in nanoseconds
+	 */
+	private long[] iterationTimes = new long[0];
+
+	@Parameter(required = false)
+	private LogService log;
+
 	@Override
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public void initialize() {
@@ -164,25 +188,48 @@ public class RichardsonLucyC<I extends RealType<I>, O extends RealType<O>, K ext
 			setFFTKernel(getCreateOp().calculate(in));
 		}
 
-		// if a starting point for the estimate was not passed in then create
-		// estimate Img and use the input as the starting point
+		// if a starting point for the estimate was not passed in then use the
+		// input as the starting point
+		final RandomAccessibleInterval<O> estimate;
 		if (raiExtendedEstimate == null) {
-
-			raiExtendedEstimate = createOp.calculate(in);
-
-			copyOp.compute(in, raiExtendedEstimate);
+			estimateBuffer = buffer(estimateBuffer, in);
+			copyOp.compute(in, estimateBuffer);
+			estimate = estimateBuffer;
+		}
+		else {
+			estimate = raiExtendedEstimate;
 		}
 
 		// create image for the reblurred
-		raiExtendedReblurred = createOp.calculate(in);
+		raiExtendedReblurred = buffer(raiExtendedReblurred, in);
+
+		// if the correction can work on float arrays, give it a copy of the
+		// observed image in the same layout
+		RandomAccessibleInterval<I> observed = in;
+		if (FloatArrays.of(in) == null && FloatArrays.ofAll(raiExtendedReblurred,
+			estimate) != null)
+		{
+			observedBuffer = buffer(observedBuffer, in);
+			copyOp.compute(in, observedBuffer);
+			@SuppressWarnings("unchecked")
+			final RandomAccessibleInterval<I> copy =
+				(RandomAccessibleInterval<I>) observedBuffer;
+			observed = copy;
+		}
 
-		// perform fft of psf
-		fftKernelOp.compute(kernel, getFFTKernel());
+		// perform fft of psf if needed
+		if (getPerformKernelFFT()) {
+			fftKernelOp.compute(kernel, getFFTKernel());
+		}
 
 		// -- perform iterations --
 
+		iterationTimes = new long[getMaxIterations()];
+
 		for (int i = 0; i < getMaxIterations(); i++) {
 
+			final long start = System.nanoTime();
+
 			if (status != null) {
 				status.showProgress(i, getMaxIterations());
 			}
@@ -191,24 +238,32 @@ public class RichardsonLucyC<I extends RealType<I>, O extends RealType<O>, K ext
 			// NOTE: the FFT of the PSF of the kernel has been passed in as a
 			// parameter. when the op was set up, and computed above, so we can use
 			// compute
-			convolverOp.compute(raiExtendedEstimate, this.raiExtendedReblurred);
+			convolverOp.compute(estimate, this.raiExtendedReblurred);
 
 			// compute correction factor
-			rlCorrectionOp.compute(in, raiExtendedReblurred, raiExtendedReblurred);
+			rlCorrectionOp.compute(observed, raiExtendedReblurred,
+				raiExtendedReblurred);
 
 			// perform update to calculate new estimate
-			updateOp.compute(raiExtendedReblurred, raiExtendedEstimate);
+			updateOp.compute(raiExtendedReblurred, estimate);
 
 			// apply post processing
 			if (iterativePostProcessingOps != null) {
 				for (UnaryInplaceOp<RandomAccessibleInterval<O>, RandomAccessibleInterval<O>> pp : iterativePostProcessingOps) {
-					pp.mutate(raiExtendedEstimate);
+					pp.mutate(estimate);
 				}
 			}
 
 			// accelerate the algorithm by taking a larger step
 			if (getAccelerator() != null) {
-				getAccelerator().mutate(raiExtendedEstimate);
+				getAccelerator().mutate(estimate);
+			}
+
+			iterationTimes[i] = System.nanoTime() - start;
+
+			if (log != null && log.isDebug()) {
+				log.debug("Richardson Lucy iteration " + (i + 1) + " took " +
+					iterationTimes[i] / 1000000.0 + " ms");
 			}
 		}
 
@@ -222,8 +277,28 @@ public class RichardsonLucyC<I extends RealType<I>, O extends RealType<O>, K ext
 			end[d] = start[d] + out.dimension(d) - 1;
 		}
 
-		copy2Op.compute(Views.interval(raiExtendedEstimate, new FinalInterval(start,
+		copy2Op.compute(Views.interval(estimate, new FinalInterval(start,
 			end)), out);
 	}
 
+	/**
+	 * Gets the duration of each iteration of the last computation, in
+	 * nanoseconds.
+	 */
+	public long[] getIterationTimes() {
+		return iterationTimes.clone();
+	}
+
+	/**
+	 * Gets an image of the given size, reusing the buffer if it fits.
+	 */
+	private RandomAccessibleInterval<O> buffer(
+		final RandomAccessibleInterval<O> buffer, final Interval size)
+	{
+		if (buffer != null && Intervals.equalDimensions(buffer, size)) {
+			return buffer;
+		}
+		return createOp.calculate(size);
+	}
+
 }
@@ -131,7 +131,20 @@ public class RichardsonLucyCorrection<I extends RealType<I>, O extends RealType<
 		public void mutate1(final IterableInterval<O> outin,
 			final IterableInterval<I> input2)
 		{
-			map.mutate1(outin, input2);
+			final float[][][] arrays = FloatArrays.ofAll(outin, input2);
+			if (arrays == null) {
+				map.mutate1(outin, input2);
+				return;
+			}
+
+			// NB: same as DivideHandleZeroOp1, directly on the float storage
+			for (int i = 0; i < arrays[0].length; i++) {
+				final float[] reblurred = arrays[0][i];
+				final float[] observed = arrays[1][i];
+				for (int j = 0; j < reblurred.length; j++) {
+					reblurred[j] = reblurred[j] > 0 ? observed[j] / reblurred[j] : 0;
+				}
+			}
 		}
 	}
 
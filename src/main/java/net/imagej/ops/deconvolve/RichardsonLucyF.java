@@ -129,7 +129,7 @@ public class RichardsonLucyF<I extends RealType<I> & NativeType<I>, O extends Re
 		createFilterComputer(RandomAccessibleInterval<I> raiExtendedInput,
 			RandomAccessibleInterval<K> raiExtendedKernel,
 			RandomAccessibleInterval<C> fftImg, RandomAccessibleInterval<C> fftKernel,
-			RandomAccessibleInterval<O> output)
+			boolean performKernelFFT, RandomAccessibleInterval<O> output)
 	{
 		UnaryInplaceOp<RandomAccessibleInterval<O>, RandomAccessibleInterval<O>> accelerator =
 			null;
@@ -161,14 +161,14 @@ public class RichardsonLucyF<I extends RealType<I> & NativeType<I>, O extends Re
 						.getTypeFromInterval(output), in());
 
 			return Computers.binary(ops(), RichardsonLucyC.class, output,
-				raiExtendedInput, raiExtendedKernel, fftImg, fftKernel, true, true,
+				raiExtendedInput, raiExtendedKernel, fftImg, fftKernel, true, performKernelFFT,
 				maxIterations, accelerator, computeEstimateOp, fg.calculate(
 					raiExtendedInput), list);
 		}
 
 		// return a richardson lucy computer
 		return Computers.binary(ops(), RichardsonLucyC.class, output,
-			raiExtendedInput, raiExtendedKernel, fftImg, fftKernel, true, true,
+			raiExtendedInput, raiExtendedKernel, fftImg, fftKernel, true, performKernelFFT,
 			maxIterations, accelerator, computeEstimateOp);
 	}
 
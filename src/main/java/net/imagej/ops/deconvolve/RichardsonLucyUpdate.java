@@ -76,6 +76,17 @@ public class RichardsonLucyUpdate<T extends RealType<T>> extends
 	public void compute(RandomAccessibleInterval<T> correction,
 		RandomAccessibleInterval<T> estimate)
 	{
+		final float[][][] arrays = FloatArrays.ofAll(correction, estimate);
+		if (arrays != null) {
+			for (int i = 0; i < arrays[0].length; i++) {
+				final float[] c = arrays[0][i];
+				final float[] e = arrays[1][i];
+				for (int j = 0; j < c.length; j++) {
+					e[j] *= c[j];
+				}
+			}
+			return;
+		}
 
 		// TODO: delte these lines when problem in initialization is fixed
 		if (mul == null) {
@@ -30,6 +30,7 @@
 package net.imagej.ops.deconvolve.accelerate;
 
 import net.imagej.ops.Ops;
+import net.imagej.ops.deconvolve.FloatArrays;
 import net.imagej.ops.special.function.Functions;
 import net.imagej.ops.special.function.UnaryFunctionOp;
 import net.imagej.ops.special.inplace.AbstractUnaryInplaceOp;
@@ -69,6 +70,9 @@ public class VectorAccelerator<T extends RealType<T> & NativeType<T>> extends
 	Img<T> gk;
 	Img<T> gkm1;
 
+	/** buffer of a discarded gkm1, reused instead of allocating a new one */
+	Img<T> gkm1Spare;
+
 	private UnaryFunctionOp<Dimensions, Img<T>> create;
 
 	double accelerationFactor = 0.0f;
@@ -118,6 +122,7 @@ public class VectorAccelerator<T extends RealType<T> & NativeType<T>> extends
 			accelerationFactor = computeAccelerationFactor(yk_iterated);
 
 			if ((accelerationFactor < 0)) {
+				gkm1Spare = gkm1;
 				gkm1 = null;
 				accelerationFactor = 0.0;
 			}
@@ -135,8 +140,8 @@ public class VectorAccelerator<T extends RealType<T> & NativeType<T>> extends
 			Subtract(xk_estimate, xkm1_previous, hk_vector);
 
 			// make the next prediction
-			yk_prediction = AddAndScale(xk_estimate, hk_vector,
-				(float) accelerationFactor);
+			AddAndScale(xk_estimate, hk_vector, (float) accelerationFactor,
+				yk_prediction);
 		}
 		else {
 
@@ -161,21 +166,46 @@ public class VectorAccelerator<T extends RealType<T> & NativeType<T>> extends
 			double numerator = DotProduct(gk, gkm1);
 			double denominator = DotProduct(gkm1, gkm1);
 
-			gkm1 = gk.copy();
+			// NB: gk becomes gkm1, and the old gkm1 buffer is overwritten next time
+			swapGradients();
 			return numerator / denominator;
 
 		}
 
-		gkm1 = gk.copy();
+		if (gkm1Spare == null) {
+			gkm1Spare = create.calculate(gk);
+		}
+		gkm1 = gkm1Spare;
+		gkm1Spare = null;
+		swapGradients();
 
 		return 0.0;
 
 	}
 
+	private void swapGradients() {
+		final Img<T> temp = gkm1;
+		gkm1 = gk;
+		gk = temp;
+	}
+
 	/*
 	 * multiply inputOutput by input and place the result in input
 	 */
 	public double DotProduct(final Img<T> image1, final Img<T> image2) {
+		final float[][][] arrays = FloatArrays.ofAll(image1, image2);
+		if (arrays != null) {
+			double dotProduct = 0.0d;
+			for (int i = 0; i < arrays[0].length; i++) {
+				final float[] a = arrays[0][i];
+				final float[] b = arrays[1][i];
+				for (int j = 0; j < a.length; j++) {
+					dotProduct += a[j] * b[j];
+				}
+			}
+			return dotProduct;
+		}
+
 		final Cursor<T> cursorImage1 = image1.cursor();
 		final Cursor<T> cursorImage2 = image2.cursor();
 
@@ -199,6 +229,14 @@ public class VectorAccelerator<T extends RealType<T> & NativeType<T>> extends
 	protected void Copy(RandomAccessibleInterval<T> a,
 		RandomAccessibleInterval<T> b)
 	{
+		final float[][][] arrays = FloatArrays.ofAll(a, b);
+		if (arrays != null) {
+			for (int i = 0; i < arrays[0].length; i++) {
+				System.arraycopy(arrays[0][i], 0, arrays[1][i], 0,
+					arrays[0][i].length);
+			}
+			return;
+		}
 
 		final Cursor<T> cursorA = Views.iterable(a).cursor();
 		final Cursor<T> cursorB = Views.iterable(b).cursor();
@@ -215,6 +253,18 @@ public class VectorAccelerator<T extends RealType<T> & NativeType<T>> extends
 	protected void Subtract(RandomAccessibleInterval<T> a,
 		RandomAccessibleInterval<T> input, RandomAccessibleInterval<T> output)
 	{
+		final float[][][] arrays = FloatArrays.ofAll(a, input, output);
+		if (arrays != null) {
+			for (int i = 0; i < arrays[0].length; i++) {
+				final float[] x = arrays[0][i];
+				final float[] y = arrays[1][i];
+				final float[] z = arrays[2][i];
+				for (int j = 0; j < x.length; j++) {
+					z[j] = x[j] - y[j];
+				}
+			}
+			return;
+		}
 
 		final Cursor<T> cursorA = Views.iterable(a).cursor();
 		final Cursor<T> cursorInput = Views.iterable(input).cursor();
@@ -235,6 +285,26 @@ public class VectorAccelerator<T extends RealType<T> & NativeType<T>> extends
 		final Img<T> img2, final float a)
 	{
 		Img<T> out = create.calculate(img1);
+		AddAndScale(img1, img2, a, out);
+		return out;
+	}
+
+	// write max(img1 + a * img2, 0.0001) into out
+	public void AddAndScale(final RandomAccessibleInterval<T> img1,
+		final Img<T> img2, final float a, final Img<T> out)
+	{
+		final float[][][] arrays = FloatArrays.ofAll(img1, img2, out);
+		if (arrays != null) {
+			for (int i = 0; i < arrays[0].length; i++) {
+				final float[] x = arrays[0][i];
+				final float[] y = arrays[1][i];
+				final float[] z = arrays[2][i];
+				for (int j = 0; j < x.length; j++) {
+					z[j] = Math.max(x[j] + a * y[j], 0.0001f);
+				}
+			}
+			return;
+		}
 
 		final Cursor<T> cursor1 = Views.iterable(img1).cursor();
 		final Cursor<T> cursor2 = img2.cursor();
@@ -252,7 +322,5 @@ public class VectorAccelerator<T extends RealType<T> & NativeType<T>> extends
 
 			cursorOut.get().setReal(val3);
 		}
-
-		return out;
 	}
 }
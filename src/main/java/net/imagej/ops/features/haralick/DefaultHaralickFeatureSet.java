@@ -0,0 +1,244 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.features.haralick;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.Ops;
+import net.imagej.ops.image.cooccurrenceMatrix.MatrixOrientation;
+import net.imagej.ops.special.function.AbstractUnaryFunctionOp;
+import net.imagej.ops.special.function.Functions;
+import net.imagej.ops.special.function.UnaryFunctionOp;
+import net.imglib2.IterableInterval;
+import net.imglib2.type.numeric.RealType;
+
+import org.scijava.plugin.Parameter;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Computes several Haralick features from a single co-occurrence matrix.
+ * <p>
+ * The individual {@link HaralickFeature}s each compute their own
+ * co-occurrence matrix (and its marginals) from the input. This op computes
+ * the matrix and the marginal distributions only once and evaluates all
+ * requested features from them, using the same formulas as the individual
+ * ops. The result holds one value per requested {@link HaralickFeatureType},
+ * in the order they were requested, or one value per feature in declaration
+ * order if no features are given.
+ * </p>
+ */
+@Plugin(type = Ops.Haralick.FeatureSet.class,
+	label = "Haralick: Feature Set")
+public class DefaultHaralickFeatureSet<T extends RealType<T>> extends
+	AbstractUnaryFunctionOp<IterableInterval<T>, double[]> implements
+	Ops.Haralick.FeatureSet, Contingent
+{
+
+	private static final double EPSILON = Double.MIN_NORMAL;
+
+	@Parameter
+	private int numGreyLevels = 32;
+
+	@Parameter
+	private int distance = 1;
+
+	@Parameter
+	private MatrixOrientation orientation;
+
+	@Parameter(required = false)
+	private HaralickFeatureType[] features;
+
+	private UnaryFunctionOp<IterableInterval<T>, double[][]> coocFunc;
+
+	@Override
+	public void initialize() {
+		coocFunc = Functions.unary(ops(), Ops.Image.CooccurrenceMatrix.class,
+			double[][].class, in(), numGreyLevels, distance, orientation);
+	}
+
+	@Override
+	public double[] calculate(final IterableInterval<T> input) {
+		final double[] all = computeAll(coocFunc.calculate(input));
+		if (features == null) return all;
+
+		final double[] result = new double[features.length];
+		for (int i = 0; i < features.length; i++) {
+			result[i] = all[features[i].ordinal()];
+		}
+		return result;
+	}
+
+	@Override
+	public boolean conforms() {
+		return orientation.numDims() == in().numDimensions();
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Evaluates every {@link HaralickFeatureType} on the given co-occurrence
+	 * matrix.
+	 */
+	private static double[] computeAll(final double[][] matrix) {
+		final int nrGrayLevels = matrix.length;
+
+		// marginals and all features depending on the matrix only
+		final double[] px = new double[nrGrayLevels];
+		final double[] py = new double[nrGrayLevels];
+		final double[] pxplusy = new double[2 * nrGrayLevels + 1];
+		final double[] pxminusy = new double[nrGrayLevels];
+		double asm = 0;
+		double correlation = 0;
+		double entropy = 0;
+		double ifdm = 0;
+		double maxProbability = 0;
+		double textureHomogeneity = 0;
+		double total = 0;
+		for (int i = 0; i < nrGrayLevels; i++) {
+			final double[] row = matrix[i];
+			for (int j = 0; j < nrGrayLevels; j++) {
+				final double v = row[j];
+				px[j] += v;
+				py[i] += v;
+				pxplusy[i + j + 2] += v;
+				pxminusy[Math.abs(i - j)] += v;
+				asm += v * v;
+				correlation += i * j * v;
+				entropy += v * Math.log(v + EPSILON);
+				ifdm += v / (1 + ((i - j) * (i - j)));
+				if (v > maxProbability) maxProbability = v;
+				textureHomogeneity += v / (1 + Math.abs(i - j));
+				total += v;
+			}
+		}
+		entropy = -entropy;
+
+		double meanx = 0;
+		double meany = 0;
+		for (int i = 0; i < nrGrayLevels; i++) {
+			meanx += i * px[i];
+			meany += i * py[i];
+		}
+		double stdx = 0;
+		double stdy = 0;
+		double hx = 0;
+		double hy = 0;
+		for (int i = 0; i < nrGrayLevels; i++) {
+			stdx += ((i - meanx) * (i - meanx)) * px[i];
+			stdy += ((i - meany) * (i - meany)) * py[i];
+			hx += px[i] * Math.log(px[i] + EPSILON);
+			hy += py[i] * Math.log(py[i] + EPSILON);
+		}
+		stdx = Math.sqrt(stdx);
+		stdy = Math.sqrt(stdy);
+		hx = -hx;
+		hy = -hy;
+
+		// features depending on the means of the marginals
+		final double mean = total / (nrGrayLevels * nrGrayLevels);
+		double clusterPromenence = 0;
+		double clusterShade = 0;
+		double variance = 0;
+		double hxy1 = 0;
+		double hxy2 = 0;
+		for (int i = 0; i < nrGrayLevels; i++) {
+			final double[] row = matrix[i];
+			for (int j = 0; j < nrGrayLevels; j++) {
+				final double v = row[j];
+				clusterPromenence += Math.pow(i + j - meanx - meany, 4) * v;
+				clusterShade += Math.pow(i + j - meanx - meany, 3) * v;
+				variance += (i - mean) * (i - mean) * v;
+				final double pxy = px[i] * py[j];
+				final double log = Math.log(pxy + EPSILON);
+				hxy1 += v * log;
+				hxy2 += pxy * log;
+			}
+		}
+		hxy1 = -hxy1;
+		hxy2 = -hxy2;
+
+		// features depending on the difference distribution
+		double contrast = 0;
+		double differenceEntropy = 0;
+		double mu = 0;
+		for (int k = 0; k < nrGrayLevels; k++) {
+			contrast += k * k * pxminusy[k];
+			differenceEntropy += pxminusy[k] * Math.log(pxminusy[k] + EPSILON);
+			mu += k * pxminusy[k];
+		}
+		differenceEntropy = -differenceEntropy;
+		double differenceVariance = 0;
+		for (int k = 0; k < nrGrayLevels; k++) {
+			differenceVariance += Math.pow(k - mu, 2) * pxminusy[k];
+		}
+
+		// features depending on the sum distribution
+		double sumAverage = 0;
+		double sumEntropy = 0;
+		for (int k = 2; k <= 2 * nrGrayLevels; k++) {
+			sumAverage += k * pxplusy[k];
+			sumEntropy += pxplusy[k] * Math.log(pxplusy[k] + EPSILON);
+		}
+		sumEntropy = -sumEntropy;
+		double sumVariance = 0;
+		for (int k = 2; k <= 2 * nrGrayLevels; k++) {
+			sumVariance += (k - sumEntropy) * (k - sumEntropy) * pxplusy[k];
+		}
+
+		final double icm2 = Math.sqrt(1 - Math.exp(-2 * (hxy2 - entropy)));
+
+		final double[] result = new double[HaralickFeatureType.values().length];
+		result[HaralickFeatureType.ASM.ordinal()] = asm;
+		result[HaralickFeatureType.CLUSTER_PROMENENCE.ordinal()] =
+			clusterPromenence;
+		result[HaralickFeatureType.CLUSTER_SHADE.ordinal()] = clusterShade;
+		result[HaralickFeatureType.CONTRAST.ordinal()] = contrast;
+		result[HaralickFeatureType.CORRELATION.ordinal()] = (correlation -
+			(meanx * meany)) / (stdx * stdy);
+		result[HaralickFeatureType.DIFFERENCE_ENTROPY.ordinal()] =
+			differenceEntropy;
+		result[HaralickFeatureType.DIFFERENCE_VARIANCE.ordinal()] =
+			differenceVariance;
+		result[HaralickFeatureType.ENTROPY.ordinal()] = entropy;
+		result[HaralickFeatureType.ICM1.ordinal()] = (entropy - hxy1) / (hx > hy
+			? hx : hy);
+		result[HaralickFeatureType.ICM2.ordinal()] = Double.isNaN(icm2) ? 0 : icm2;
+		result[HaralickFeatureType.IFDM.ordinal()] = ifdm;
+		result[HaralickFeatureType.MAX_PROBABILITY.ordinal()] = maxProbability;
+		result[HaralickFeatureType.SUM_AVERAGE.ordinal()] = sumAverage;
+		result[HaralickFeatureType.SUM_ENTROPY.ordinal()] = sumEntropy;
+		result[HaralickFeatureType.SUM_VARIANCE.ordinal()] = sumVariance;
+		result[HaralickFeatureType.TEXTURE_HOMOGENEITY.ordinal()] =
+			textureHomogeneity;
+		result[HaralickFeatureType.VARIANCE.ordinal()] = variance;
+		return result;
+	}
+
+}
@@ -234,6 +234,30 @@ public class HaralickNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	@OpMethod(
+		op = net.imagej.ops.features.haralick.DefaultHaralickFeatureSet.class)
+	public <T extends RealType<T>> double[] featureSet(
+		final IterableInterval<T> in, final int numGreyLevels, final int distance,
+		final MatrixOrientation orientation)
+	{
+		final double[] result = (double[]) ops().run(
+			net.imagej.ops.Ops.Haralick.FeatureSet.class, in, numGreyLevels,
+			distance, orientation);
+		return result;
+	}
+
+	@OpMethod(
+		op = net.imagej.ops.features.haralick.DefaultHaralickFeatureSet.class)
+	public <T extends RealType<T>> double[] featureSet(
+		final IterableInterval<T> in, final int numGreyLevels, final int distance,
+		final MatrixOrientation orientation, final HaralickFeatureType[] features)
+	{
+		final double[] result = (double[]) ops().run(
+			net.imagej.ops.Ops.Haralick.FeatureSet.class, in, numGreyLevels,
+			distance, orientation, features);
+		return result;
+	}
+
 	@OpMethod(op = net.imagej.ops.features.haralick.DefaultICM1.class)
 	public <T extends RealType<T>> DoubleType icm1(final IterableInterval<T> in,
 		final int numGreyLevels, final int distance,
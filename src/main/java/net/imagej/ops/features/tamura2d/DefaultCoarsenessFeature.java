@@ -28,30 +28,29 @@
  */
 package net.imagej.ops.features.tamura2d;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-
 import net.imagej.ops.Ops;
-import net.imagej.ops.filter.mean.MeanFilterOp;
-import net.imglib2.Cursor;
+import net.imagej.ops.special.function.Functions;
+import net.imagej.ops.special.function.UnaryFunctionOp;
+import net.imagej.ops.thread.chunker.Chunk;
 import net.imglib2.FinalInterval;
 import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessibleInterval;
-import net.imglib2.algorithm.neighborhood.RectangleShape;
-import net.imglib2.img.Img;
-import net.imglib2.img.array.ArrayImgs;
-import net.imglib2.outofbounds.OutOfBoundsMirrorFactory;
-import net.imglib2.outofbounds.OutOfBoundsMirrorFactory.Boundary;
 import net.imglib2.type.numeric.RealType;
-import net.imglib2.type.numeric.integer.ByteType;
-import net.imglib2.type.numeric.real.DoubleType;
 import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
 
 import org.scijava.plugin.Plugin;
 
 /**
  * 
  * Implementation of Tamura's Coarseness feature
+ * <p>
+ * The means of the neighborhoods of all sizes are computed from a single
+ * integral image of the mirrored input, and the leading differences of all
+ * sizes are then evaluated in one pass over the mean buffers. Both passes are
+ * distributed over the rows of the input.
+ * </p>
  * 
  * @author Andreas Graumann (University of Konstanz)
  *
@@ -62,111 +61,165 @@ import org.scijava.plugin.Plugin;
 public class DefaultCoarsenessFeature<I extends RealType<I>, O extends RealType<O>>
 		extends AbstractTamuraFeature<I, O> implements Ops.Tamura.Coarseness {
 
-	@SuppressWarnings("unchecked")
+	/** Largest span of the neighborhoods. */
+	private static final int MAX_SPAN = 5;
+
+	/** Minimum number of rows per chunk. */
+	private static final int ROWS_PER_CHUNK = 16;
+
+	private UnaryFunctionOp<RandomAccessibleInterval<I>, RandomAccessibleInterval<? extends RealType<?>>> integralOp;
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
 	@Override
-	public void compute(final RandomAccessibleInterval<I> input, final O output) {
-		HashMap<Integer, Img<I>> meanImages = new HashMap<>();
+	public void initialize() {
+		integralOp = (UnaryFunctionOp) Functions.unary(ops(),
+			Ops.Image.Integral.class, RandomAccessibleInterval.class, in());
+	}
 
-		// get mean images
-		for (int i = 1; i <= 5; i++) {
-			meanImages.put(i, mean(input, i));
-		}
+	@Override
+	public boolean conforms() {
+		// NB: The mean buffers of all spans are indexed with ints.
+		return super.conforms() && Intervals.numElements(in()) <= Integer.MAX_VALUE;
+	}
 
-		ArrayList<Double> maxDifferences = sizedLeadDiffValues(input, meanImages);
+	@Override
+	public void compute(final RandomAccessibleInterval<I> input, final O output) {
+		final int width = (int) input.dimension(0);
+		final int height = (int) input.dimension(1);
+		final byte[][] means = means(input);
+
+		// leading differences, summed per row
+		final long[] rowSums = new long[height];
+		ops().thread().chunker(new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				for (int k = 0, y = startIndex; k < numSteps; k++, y += stepSize) {
+					rowSums[y] = sizedLeadDiffValues(means, width, height, y);
+				}
+			}
+		}, height, ROWS_PER_CHUNK);
 
 		double out = 0.0;
-		for (Double i : maxDifferences) {
-			out += i;
+		for (final long rowSum : rowSums) {
+			out += rowSum;
 		}
+		out /= (double) width * height;
 
-		out /= maxDifferences.size();
-
-		output.set((O) new DoubleType(out));
+		output.setReal(out);
 	}
 
+	// -- Helper methods --
+
 	/**
 	 * 
-	 * For every point calculate differences between the not overlapping
-	 * neighborhoods on opposite sides of the point in horizontal and vertical
-	 * direction. At each point take the highest difference value when
+	 * For every point of a row calculate differences between the not
+	 * overlapping neighborhoods on opposite sides of the point in horizontal and
+	 * vertical direction. At each point take the highest difference value when
 	 * considering all directions together.
 	 * 
-	 * @param input
-	 *            Input image
-	 * @param meanImages
-	 *            Mean images
-	 * @return Array containing all leadding difference values
+	 * @param means
+	 *            Mean images of all spans
+	 * @param y
+	 *            The row
+	 * @return Sum of the leading difference values of the row
 	 */
-	private ArrayList<Double> sizedLeadDiffValues(final RandomAccessibleInterval<I> input,
-			final HashMap<Integer, Img<I>> meanImages) {
-
-		long[] pos = new long[input.numDimensions()];
-		long[] dim = new long[input.numDimensions()];
-		input.dimensions(dim);
-
-		ArrayList<Double> maxDifferences = new ArrayList<>();
-		Cursor<I> cursor = meanImages.get(1).cursor();
-
-		while (cursor.hasNext()) {
-
-			cursor.next();
-
+	private static long sizedLeadDiffValues(final byte[][] means,
+		final int width, final int height, final int y)
+	{
+		long sum = 0;
+		for (int x = 0, i = y * width; x < width; x++, i++) {
 			// NB: the smallest possible value for maxDiff is 0
-			double maxDiff = 0;
-
-			for (int i = 1; i <= 5; i++) {
-
-				RandomAccess<I> ra1 = meanImages.get(i).randomAccess();
-				RandomAccess<I> ra2 = meanImages.get(i).randomAccess();
-
-				for (int d = 0; d < input.numDimensions(); d++) {
-
-					cursor.localize(pos);
-
-					if ((pos[d] + 2 * i + 1) < dim[d]) {
-
-						ra1.setPosition(pos);
-						double val1 = ra1.get().getRealDouble();
-
-						pos[d] += 2 * i + 1;
-						ra2.setPosition(pos);
-						double val2 = ra2.get().getRealDouble();
-
-						double diff = Math.abs(val2 - val1);
-						maxDiff = diff >= maxDiff ? diff : maxDiff;
-					}
+			int maxDiff = 0;
+			for (int span = 1; span <= MAX_SPAN; span++) {
+				final byte[] mean = means[span - 1];
+				final int step = 2 * span + 1;
+				final int val1 = mean[i] & 0xff;
+				if (x + step < width) {
+					maxDiff = Math.max(maxDiff, Math.abs((mean[i + step] & 0xff) -
+						val1));
+				}
+				if (y + step < height) {
+					maxDiff = Math.max(maxDiff, Math.abs((mean[i + step * width] &
+						0xff) - val1));
 				}
 			}
-
-			maxDifferences.add(maxDiff);
+			sum += maxDiff;
 		}
-		return maxDifferences;
+		return sum;
 	}
 
 	/**
-	 * Apply mean filter with given size of reactangle shape
+	 * Computes the means of the square neighborhoods, without their centers, of
+	 * all spans. Like the mean images of the original implementation, the
+	 * means are rounded to unsigned bytes.
 	 * 
 	 * @param input
 	 *            Input image
-	 * @param i
-	 *            Size of rectangle shape
-	 * @return Filered mean image
+	 * @return one mean image per span, in row-major order
 	 */
-	@SuppressWarnings("unchecked")
-	private Img<I> mean(final RandomAccessibleInterval<I> input, final int i) {
-
-		long[] dims = new long[input.numDimensions()];
-		input.dimensions(dims);
-
-		final byte[] array = new byte[(int) Intervals.numElements(new FinalInterval(dims))];
-		Img<I> meanImg = (Img<I>) ArrayImgs.unsignedBytes(array, dims);
-
-		OutOfBoundsMirrorFactory<ByteType, Img<ByteType>> oobFactory = new OutOfBoundsMirrorFactory<>(
-				Boundary.SINGLE);
-
-		ops().run(MeanFilterOp.class, meanImg, input, new RectangleShape(i, true), oobFactory);
+	private byte[][] means(final RandomAccessibleInterval<I> input) {
+		final int width = (int) input.dimension(0);
+		final int height = (int) input.dimension(1);
+
+		// Pad by one more element on the lower side, such that the sum over each
+		// neighborhood is given by the integral image at its corners.
+		final RandomAccessibleInterval<I> padded = Views.offsetInterval(Views
+			.extendMirrorSingle(input), new FinalInterval(new long[] { input.min(0) -
+				MAX_SPAN - 1, input.min(1) - MAX_SPAN - 1 }, new long[] { input.max(0) +
+					MAX_SPAN, input.max(1) + MAX_SPAN }));
+		final RandomAccessibleInterval<? extends RealType<?>> integral = integralOp
+			.calculate(padded);
+
+		final byte[][] means = new byte[MAX_SPAN][width * height];
+		ops().thread().chunker(new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final RandomAccess<I> centers = input.randomAccess();
+				final RandomAccess<? extends RealType<?>> sums = integral
+					.randomAccess();
+				for (int k = 0, y = startIndex; k < numSteps; k++, y += stepSize) {
+					centers.setPosition(input.min(0), 0);
+					centers.setPosition(input.min(1) + y, 1);
+					for (int x = 0; x < width; x++, centers.fwd(0)) {
+						final double center = centers.get().getRealDouble();
+						for (int span = 1; span <= MAX_SPAN; span++) {
+							// corners of the neighborhood in the padded integral image
+							final int low = MAX_SPAN - span;
+							final int high = MAX_SPAN + span + 1;
+							final long x0 = integral.min(0) + x + low;
+							final long x1 = integral.min(0) + x + high;
+							final long y0 = integral.min(1) + y + low;
+							final long y1 = integral.min(1) + y + high;
+							double sum = 0;
+							sum += get(sums, x0, y0);
+							sum -= get(sums, x1, y0);
+							sum -= get(sums, x0, y1);
+							sum += get(sums, x1, y1);
+							sum -= center;
+
+							final long count = (2 * span + 1) * (2 * span + 1) - 1;
+							means[span - 1][y * width + x] = (byte) Util.round(sum /
+								count);
+						}
+					}
+				}
+			}
+		}, height, ROWS_PER_CHUNK);
+		return means;
+	}
 
-		return meanImg;
+	private static double get(final RandomAccess<? extends RealType<?>> ra,
+		final long x, final long y)
+	{
+		ra.setPosition(x, 0);
+		ra.setPosition(y, 1);
+		return ra.get().getRealDouble();
 	}
 
 }
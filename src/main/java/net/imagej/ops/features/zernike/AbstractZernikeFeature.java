@@ -31,6 +31,8 @@ package net.imagej.ops.features.zernike;
 import net.imagej.ops.Contingent;
 import net.imagej.ops.features.zernike.helper.ZernikeComputer;
 import net.imagej.ops.features.zernike.helper.ZernikeMoment;
+import net.imagej.ops.special.function.Functions;
+import net.imagej.ops.special.function.UnaryFunctionOp;
 import net.imagej.ops.special.hybrid.AbstractUnaryHybridCF;
 import net.imglib2.IterableInterval;
 import net.imglib2.type.numeric.RealType;
@@ -58,6 +60,14 @@ public abstract class AbstractZernikeFeature<I extends RealType<I>, O extends Re
 	@Parameter
 	protected int repitition;
 
+	private UnaryFunctionOp<IterableInterval<I>, ZernikeMoment> zernikeFunc;
+
+	@Override
+	public void initialize() {
+		zernikeFunc = Functions.unary(ops(), ZernikeComputer.class,
+			ZernikeMoment.class, in(), order, repitition);
+	}
+
 	/**
 	 * 
 	 * Computes a specific zernike moment or order n and repitition m
@@ -67,8 +77,7 @@ public abstract class AbstractZernikeFeature<I extends RealType<I>, O extends Re
 	 * @return Computed zernike moment
 	 */
 	protected ZernikeMoment getZernikeMoment(final IterableInterval<I> input) {
-	
-		return (ZernikeMoment) ops().run(ZernikeComputer.class, input, order, repitition);
+		return zernikeFunc.calculate(input);
 	}
 
 	@SuppressWarnings("unchecked")
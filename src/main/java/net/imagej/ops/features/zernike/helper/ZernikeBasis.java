@@ -0,0 +1,348 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.features.zernike.helper;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.imagej.types.BigComplex;
+import net.imglib2.Cursor;
+import net.imglib2.IterableInterval;
+import net.imglib2.type.numeric.RealType;
+
+/**
+ * Zernike basis functions of several orders and repetitions, sampled on the
+ * pixel grid of a bounding box.
+ * <p>
+ * The radial polynomials are computed once. The values of all basis functions
+ * are tabulated per bounding box size, which determines the mapping onto the
+ * unit disk. The tables are shared by all bases with the same orders and
+ * repetitions, so that e.g. the magnitude and phase features of a moment use
+ * the same ones, and the most recently used tables of all bases are kept up
+ * to a common limit. The moments of all orders and repetitions are then
+ * accumulated in a single pass over an object, using compensated summation of
+ * primitive doubles.
+ * </p>
+ * <p>
+ * Instances are thread-safe, so ops may share them between threads, e.g. when
+ * {@code getIndependentInstance()} returns the op itself. The tables are
+ * looked up and evicted under a lock, but computed outside of it.
+ * </p>
+ */
+public final class ZernikeBasis {
+
+	/** Maximum number of basis values kept in the tables of all bases. */
+	private static final int MAX_CACHED_VALUES = 1 << 23;
+
+	/** The tables of all bases, least recently used first. */
+	private static final Map<TableKey, Table> TABLES = new LinkedHashMap<>(16,
+		0.75f, true);
+
+	/** Number of basis values kept in {@link #TABLES}. */
+	private static long cachedValues;
+
+	private final int[] orders;
+	private final int[] repetitions;
+	private final Polynom[] polynoms;
+
+	/**
+	 * @param orders order n of each moment
+	 * @param repetitions repetition m of each moment
+	 */
+	public ZernikeBasis(final int[] orders, final int[] repetitions) {
+		if (orders.length != repetitions.length) {
+			throw new IllegalArgumentException(
+				"Number of orders and repetitions differ");
+		}
+		this.orders = orders.clone();
+		this.repetitions = repetitions.clone();
+
+		int maxOrder = 0;
+		for (final int n : orders) {
+			maxOrder = Math.max(maxOrder, n);
+		}
+		final double[][] d = computePascalsTriangle(maxOrder);
+		polynoms = new Polynom[orders.length];
+		for (int i = 0; i < orders.length; i++) {
+			polynoms[i] = ZernikeComputer.createRadialPolynom(orders[i],
+				repetitions[i], d);
+		}
+	}
+
+	/**
+	 * Computes the zernike moments of all orders and repetitions, with the
+	 * bounding box of the input mapped onto the unit disk.
+	 * 
+	 * @param ii the input
+	 * @return one moment per order and repetition
+	 */
+	public ZernikeMoment[] compute(
+		final IterableInterval<? extends RealType<?>> ii)
+	{
+		final Table table = getTable((int) ii.dimension(0), (int) ii
+			.dimension(1));
+		final int numValues = 2 * orders.length;
+
+		// sum and compensation of each real and imaginary part
+		final double[] sums = new double[2 * numValues];
+		final double[] values = table.values == null ? new double[numValues]
+			: table.values;
+
+		final long minX = ii.min(0);
+		final long minY = ii.min(1);
+		final Cursor<? extends RealType<?>> cur = ii.localizingCursor();
+		while (cur.hasNext()) {
+			cur.fwd();
+			if (cur.get().getRealDouble() == 0.0) continue;
+
+			final int x = (int) (cur.getLongPosition(0) - minX);
+			final int y = (int) (cur.getLongPosition(1) - minY);
+			final int offset;
+			if (table.values == null) {
+				if (!table.evaluate(x, y, values, 0)) continue;
+				offset = 0;
+			}
+			else {
+				final int i = y * table.width + x;
+				if (!table.inDisk[i]) continue;
+				offset = i * numValues;
+			}
+			for (int j = 0; j < numValues; j++) {
+				add(sums, 2 * j, values[offset + j]);
+			}
+		}
+
+		final ZernikeMoment[] moments = new ZernikeMoment[orders.length];
+		for (int i = 0; i < moments.length; i++) {
+			final int n = orders[i];
+			final BigComplex zm = new BigComplex();
+			zm.setReal((sums[4 * i] + sums[4 * i + 1]) * (n + 1) / table.count);
+			zm.setImag((sums[4 * i + 2] + sums[4 * i + 3]) * (n + 1) /
+				table.count);
+
+			final ZernikeMoment moment = new ZernikeMoment();
+			moment.setN(n);
+			moment.setM(repetitions[i]);
+			moment.setP(polynoms[i]);
+			moment.setZm(zm);
+			moments[i] = moment;
+		}
+		return moments;
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Gets the table of a bounding box size, evicting the least recently used
+	 * tables of all bases if too many values are kept.
+	 */
+	private Table getTable(final int width, final int height) {
+		final TableKey key = new TableKey(orders, repetitions, width, height);
+		synchronized (TABLES) {
+			final Table table = TABLES.get(key);
+			if (table != null) return table;
+		}
+		// NB: Another thread may compute the same table meanwhile; the first one
+		// to be stored is kept.
+		final Table created = new Table(width, height);
+		synchronized (TABLES) {
+			final Table table = TABLES.get(key);
+			if (table != null) return table;
+			TABLES.put(key, created);
+			if (created.values != null) cachedValues += created.values.length;
+			final Iterator<Table> it = TABLES.values().iterator();
+			while (cachedValues > MAX_CACHED_VALUES && TABLES.size() > 1) {
+				final Table eldest = it.next();
+				if (eldest.values != null) cachedValues -= eldest.values.length;
+				it.remove();
+			}
+		}
+		return created;
+	}
+
+	/**
+	 * Adds a value to a compensated sum, stored at index i and its compensation
+	 * at index i + 1 (Neumaier's variant of Kahan summation).
+	 */
+	private static void add(final double[] sums, final int i,
+		final double value)
+	{
+		final double sum = sums[i];
+		final double t = sum + value;
+		if (Math.abs(sum) >= Math.abs(value)) sums[i + 1] += (sum - t) + value;
+		else sums[i + 1] += (value - t) + sum;
+		sums[i] = t;
+	}
+
+	/**
+	 * Efficient calculation of pascal's triangle up to order max
+	 * 
+	 * @param max maximal order of pascal's triangle
+	 * @return pascal's triangle
+	 */
+	private static double[][] computePascalsTriangle(final int max) {
+		final double[][] d = new double[max + 1][max + 1];
+		for (int n = 0; n <= max; n++) {
+			for (int k = 0; k <= n; k++) {
+				if ((n == 0 && k == 0) || (n == k) || (k == 0)) {
+					d[n][k] = 1.0;
+					continue;
+				}
+				d[n][k] = (((double) n / (n - k))) * d[n - 1][k];
+			}
+		}
+		return d;
+	}
+
+	/**
+	 * Computes the number of whole pixels within a disk with radius r. This is
+	 * based on Gauss's Circle Problem.
+	 * 
+	 * http://mathworld.wolfram.com/GausssCircleProblem.html
+	 * 
+	 * @param r the radius
+	 * @return number of pixels within the disk
+	 */
+	private static long getNumberOfPixelsInUnitDisk(final double r) {
+		long tmp = 0;
+		for (int i = 1; i <= Math.floor(r); i++) {
+			tmp += Math.floor(Math.sqrt(r * r - i * i));
+		}
+
+		return (long) (1 + 4 * Math.floor(r)) + 4 * tmp;
+	}
+
+	// -- Helper classes --
+
+	/** The orders, repetitions and bounding box size of a table. */
+	private static final class TableKey {
+
+		private final int[] orders;
+		private final int[] repetitions;
+		private final int width;
+		private final int height;
+
+		private TableKey(final int[] orders, final int[] repetitions,
+			final int width, final int height)
+		{
+			this.orders = orders;
+			this.repetitions = repetitions;
+			this.width = width;
+			this.height = height;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof TableKey)) return false;
+			final TableKey other = (TableKey) o;
+			return width == other.width && height == other.height && Arrays.equals(
+				orders, other.orders) && Arrays.equals(repetitions,
+					other.repetitions);
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = 31 * width + height;
+			hash = 31 * hash + Arrays.hashCode(orders);
+			return 31 * hash + Arrays.hashCode(repetitions);
+		}
+	}
+
+	/** The basis values of all moments on a bounding box of one size. */
+	private final class Table {
+
+		private final int width;
+		private final double width2;
+		private final double height2;
+		private final double radius;
+
+		/** Number of whole pixels within the disk. */
+		private final long count;
+
+		/** Whether each pixel lies within the unit disk. */
+		private final boolean[] inDisk;
+
+		/**
+		 * Real and imaginary part of each basis function, per pixel; or null if
+		 * the table is too large to be kept.
+		 */
+		private final double[] values;
+
+		private Table(final int width, final int height) {
+			this.width = width;
+			width2 = (width - 1) / 2.0;
+			height2 = (height - 1) / 2.0;
+			radius = Math.sqrt(width2 * width2 + height2 * height2);
+			count = getNumberOfPixelsInUnitDisk(radius);
+
+			final int numValues = 2 * orders.length;
+			if ((long) width * height * numValues > MAX_CACHED_VALUES) {
+				inDisk = null;
+				values = null;
+				return;
+			}
+			inDisk = new boolean[width * height];
+			values = new double[width * height * numValues];
+			for (int y = 0, i = 0; y < height; y++) {
+				for (int x = 0; x < width; x++, i++) {
+					inDisk[i] = evaluate(x, y, values, i * numValues);
+				}
+			}
+		}
+
+		/**
+		 * Evaluates the conjugated basis functions at a pixel of the bounding
+		 * box.
+		 * 
+		 * @return false if the pixel lies outside of the unit disk
+		 */
+		private boolean evaluate(final int x, final int y, final double[] out,
+			final int offset)
+		{
+			final double xm = (x - width2) / radius;
+			final double ym = (y - height2) / radius;
+			final double r = Math.sqrt(xm * xm + ym * ym);
+			if (!(r <= 1)) return false;
+
+			final double theta = Math.atan2(xm, ym);
+			for (int i = 0; i < orders.length; i++) {
+				final double rad = polynoms[i].evaluate(r);
+				final int m = repetitions[i];
+				out[offset + 2 * i] = rad * Math.cos(m * theta);
+				out[offset + 2 * i + 1] = -(rad * Math.sin(m * theta));
+			}
+			return true;
+		}
+	}
+
+}
@@ -0,0 +1,350 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.filter.fft.CreateOutputFFTMethods;
+import net.imagej.ops.filter.pad.PadShiftKernelFFTMethods;
+import net.imagej.ops.special.computer.AbstractBinaryComputerOp;
+import net.imagej.ops.special.computer.BinaryComputerOp;
+import net.imagej.ops.special.function.BinaryFunctionOp;
+import net.imagej.ops.special.function.Functions;
+import net.imagej.ops.special.function.UnaryFunctionOp;
+import net.imglib2.Dimensions;
+import net.imglib2.FinalDimensions;
+import net.imglib2.FinalInterval;
+import net.imglib2.Interval;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.fft2.FFTMethods;
+import net.imglib2.outofbounds.OutOfBoundsFactory;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.ComplexType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.complex.ComplexFloatType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
+
+import org.scijava.plugin.Parameter;
+import org.scijava.thread.ThreadService;
+
+/**
+ * Abstract class for FFT based filter computers that process the image in
+ * blocks (overlap-save), so that the complex scratch memory stays within a
+ * given budget regardless of the image size.
+ * <p>
+ * Each block of the output is computed from the corresponding block of the
+ * input, extended by the kernel size and read through the out of bounds
+ * strategy, so the result equals that of filtering the whole image at once.
+ * The kernel spectrum is computed once and shared by all blocks; each worker
+ * reuses its FFT buffer for all of its blocks.
+ * </p>
+ * 
+ * @param <I>
+ * @param <O>
+ * @param <K>
+ * @param <C>
+ */
+public abstract class AbstractBlockwiseFFTFilterC<I extends RealType<I>, O extends RealType<O>, K extends RealType<K>, C extends ComplexType<C> & NativeType<C>>
+	extends
+	AbstractBinaryComputerOp<RandomAccessibleInterval<I>, RandomAccessibleInterval<K>, RandomAccessibleInterval<O>>
+	implements Contingent
+{
+
+	/**
+	 * Approximate number of bytes the complex FFT buffers of all workers (and
+	 * the shared kernel spectrum) may occupy.
+	 */
+	@Parameter
+	private long memoryBudget;
+
+	/**
+	 * Defines the out of bounds strategy for the extended area of the input. If
+	 * null, the filter's default strategy is used.
+	 */
+	@Parameter(required = false)
+	private OutOfBoundsFactory<I, RandomAccessibleInterval<I>> obfInput;
+
+	/**
+	 * Number of blocks processed concurrently. Each concurrent block needs its
+	 * own FFT buffers, which is accounted for in the block size.
+	 */
+	@Parameter(required = false)
+	private int numThreads = 1;
+
+	@Parameter
+	private ThreadService ts;
+
+	/** Bytes per element of the complex FFT buffers. */
+	private static final long COMPLEX_BYTES = 8;
+
+	/**
+	 * Complex buffers needed per concurrent block: the input FFT and the copy
+	 * made by the inverse FFT.
+	 */
+	private static final int BUFFERS_PER_BLOCK = 2;
+
+	private ComplexType<C> fftType;
+
+	private UnaryFunctionOp<Dimensions, RandomAccessibleInterval<C>> createOp;
+
+	private BinaryFunctionOp<RandomAccessibleInterval<K>, Dimensions, RandomAccessibleInterval<K>> padKernelOp;
+
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void initialize() {
+		super.initialize();
+
+		if (obfInput == null) {
+			obfInput = getDefaultOBFInput();
+		}
+
+		fftType = (ComplexType<C>) ops().create().nativeType(
+			ComplexFloatType.class);
+
+		createOp = (UnaryFunctionOp) Functions.unary(ops(),
+			CreateOutputFFTMethods.class, RandomAccessibleInterval.class,
+			Dimensions.class, fftType, true);
+
+		padKernelOp = (BinaryFunctionOp) Functions.binary(ops(),
+			PadShiftKernelFFTMethods.class, RandomAccessibleInterval.class,
+			RandomAccessibleInterval.class, Dimensions.class, true);
+	}
+
+	@Override
+	public boolean conforms() {
+		if (memoryBudget <= 0 || numThreads <= 0) return false;
+		if (in1() == null || in2() == null) return true;
+		return in1().numDimensions() == in2().numDimensions() && (out() == null ||
+			Intervals.equalDimensions(in1(), out()));
+	}
+
+	@Override
+	public void compute(final RandomAccessibleInterval<I> input,
+		final RandomAccessibleInterval<K> kernel,
+		final RandomAccessibleInterval<O> output)
+	{
+		final int numDimensions = input.numDimensions();
+
+		final long[] blockSize = blockSize(input, kernel, memoryBudget,
+			numThreads);
+
+		// the padded size of a (full) block; all blocks share the FFT size
+		final long[] paddedSize = new long[numDimensions];
+		final long[] numBlocksPerDim = new long[numDimensions];
+		long count = 1;
+		for (int d = 0; d < numDimensions; d++) {
+			paddedSize[d] = blockSize[d] + kernel.dimension(d) - 1;
+			numBlocksPerDim[d] = (input.dimension(d) + blockSize[d] - 1) /
+				blockSize[d];
+			count *= numBlocksPerDim[d];
+		}
+		final long numBlocks = count;
+
+		final long[] fftPaddedSize = new long[numDimensions];
+		FFTMethods.dimensionsRealToComplexFast(new FinalDimensions(paddedSize),
+			fftPaddedSize, new long[numDimensions]);
+		final FinalDimensions fftPaddedDimensions = new FinalDimensions(
+			fftPaddedSize);
+
+		final RandomAccessibleInterval<K> paddedKernel = padKernelOp.calculate(
+			kernel, new FinalDimensions(paddedSize));
+		final RandomAccessibleInterval<C> spectrum = PreparedKernelCache.prepare(
+			ops(), createOp, fftType, kernel, paddedKernel, paddedSize)
+			.getSpectrum();
+
+		final Blocks blocks = new Blocks(input, output, blockSize,
+			numBlocksPerDim, fftPaddedDimensions);
+
+		// NB: match one filter (with its own FFT buffer) per worker up front, so
+		// that workers reuse their buffers for all of their blocks
+		final int workers = (int) Math.min(numThreads, numBlocks);
+		final List<Runnable> tasks = new ArrayList<>(workers);
+		for (int w = 0; w < workers; w++) {
+			final long first = w;
+			final BinaryComputerOp<RandomAccessibleInterval<I>, RandomAccessibleInterval<K>, RandomAccessibleInterval<O>> filter =
+				createFilterComputer(blocks.input(first), paddedKernel, blocks.output(
+					first), createOp.calculate(new FinalDimensions(paddedSize)),
+					spectrum);
+
+			tasks.add(new Runnable() {
+
+				@Override
+				public void run() {
+					for (long b = first; b < numBlocks; b += workers) {
+						filter.compute(blocks.input(b), paddedKernel, blocks.output(b));
+					}
+				}
+			});
+		}
+
+		if (workers == 1) {
+			tasks.get(0).run();
+			return;
+		}
+
+		final List<Future<?>> futures = new ArrayList<>(workers);
+		for (final Runnable task : tasks) {
+			futures.add(ts.run(task));
+		}
+		try {
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+		}
+		catch (final InterruptedException | ExecutionException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Creates the FFT filter computer used for the blocks. The computer must
+	 * write into {@code fftInput} and only read {@code fftKernel}, which holds
+	 * the precomputed kernel spectrum.
+	 */
+	abstract protected
+		BinaryComputerOp<RandomAccessibleInterval<I>, RandomAccessibleInterval<K>, RandomAccessibleInterval<O>>
+		createFilterComputer(RandomAccessibleInterval<I> paddedBlock,
+			RandomAccessibleInterval<K> paddedKernel,
+			RandomAccessibleInterval<O> outputBlock,
+			RandomAccessibleInterval<C> fftInput,
+			RandomAccessibleInterval<C> fftKernel);
+
+	/**
+	 * Gets the out of bounds strategy used when none was passed in.
+	 */
+	abstract protected OutOfBoundsFactory<I, RandomAccessibleInterval<I>>
+		getDefaultOBFInput();
+
+	// -- Utility methods --
+
+	/**
+	 * Computes the largest block size whose complex FFT buffers, for the given
+	 * number of concurrent blocks plus the shared kernel spectrum, fit into the
+	 * memory budget. Blocks are shrunk by halving their largest dimension.
+	 * 
+	 * @throws IllegalArgumentException if not even single-pixel blocks fit
+	 */
+	public static long[] blockSize(final Dimensions input,
+		final Dimensions kernel, final long memoryBudget, final int numThreads)
+	{
+		final int numDimensions = input.numDimensions();
+		final long[] blockSize = new long[numDimensions];
+		input.dimensions(blockSize);
+
+		while (scratchBytes(blockSize, kernel, numThreads) > memoryBudget) {
+			int largest = 0;
+			for (int d = 1; d < numDimensions; d++) {
+				if (blockSize[d] > blockSize[largest]) largest = d;
+			}
+			if (blockSize[largest] == 1) {
+				throw new IllegalArgumentException("Memory budget of " +
+					memoryBudget + " bytes is too small for the kernel");
+			}
+			blockSize[largest] = (blockSize[largest] + 1) / 2;
+		}
+
+		return blockSize;
+	}
+
+	private static long scratchBytes(final long[] blockSize,
+		final Dimensions kernel, final int numThreads)
+	{
+		final int numDimensions = blockSize.length;
+		final long[] paddedSize = new long[numDimensions];
+		for (int d = 0; d < numDimensions; d++) {
+			paddedSize[d] = blockSize[d] + kernel.dimension(d) - 1;
+		}
+		final long[] fftSize = new long[numDimensions];
+		FFTMethods.dimensionsRealToComplexFast(new FinalDimensions(paddedSize),
+			new long[numDimensions], fftSize);
+
+		final long elements = Intervals.numElements(fftSize);
+		return (1 + (long) BUFFERS_PER_BLOCK * numThreads) * elements *
+			COMPLEX_BYTES;
+	}
+
+	// -- Helper classes --
+
+	/** The grid of blocks covering the input and output. */
+	private class Blocks {
+
+		private final RandomAccessible<I> extendedInput;
+		private final RandomAccessibleInterval<I> input;
+		private final RandomAccessibleInterval<O> output;
+		private final long[] blockSize;
+		private final long[] numBlocksPerDim;
+		private final Dimensions fftPaddedDimensions;
+
+		public Blocks(final RandomAccessibleInterval<I> input,
+			final RandomAccessibleInterval<O> output, final long[] blockSize,
+			final long[] numBlocksPerDim, final Dimensions fftPaddedDimensions)
+		{
+			this.extendedInput = Views.extend(input, obfInput);
+			this.input = input;
+			this.output = output;
+			this.blockSize = blockSize;
+			this.numBlocksPerDim = numBlocksPerDim;
+			this.fftPaddedDimensions = fftPaddedDimensions;
+		}
+
+		/** Gets the block of the input, padded to the FFT size. */
+		public RandomAccessibleInterval<I> input(final long b) {
+			return Views.interval(extendedInput, FFTMethods.paddingIntervalCentered(
+				interval(b, input), fftPaddedDimensions));
+		}
+
+		/** Gets the block of the output, with its min at the origin. */
+		public RandomAccessibleInterval<O> output(final long b) {
+			return Views.zeroMin(Views.interval(output, interval(b, output)));
+		}
+
+		private FinalInterval interval(final long b, final Interval image) {
+			final int numDimensions = image.numDimensions();
+			final long[] min = new long[numDimensions];
+			final long[] max = new long[numDimensions];
+			long index = b;
+			for (int d = 0; d < numDimensions; d++) {
+				final long g = index % numBlocksPerDim[d];
+				index /= numBlocksPerDim[d];
+				min[d] = image.min(d) + g * blockSize[d];
+				max[d] = Math.min(min[d] + blockSize[d], image.max(d) + 1) - 1;
+			}
+			return new FinalInterval(min, max);
+		}
+	}
+
+}
@@ -108,6 +108,24 @@ public abstract class AbstractFFTFilterF<I extends RealType<I>, O extends RealTy
 			Dimensions.class, fftType, true);
 	}
 
+	/**
+	 * get the kernel spectrum from the {@link PreparedKernelCache} (computing it
+	 * if needed), create FFT memory for the input, create FFT filter and run it
+	 */
+	@Override
+	protected void computeFilter(final RandomAccessibleInterval<I> input,
+		final RandomAccessibleInterval<K> kernel,
+		final RandomAccessibleInterval<I> paddedInput,
+		final RandomAccessibleInterval<K> paddedKernel,
+		RandomAccessibleInterval<O> output, long[] paddedSize)
+	{
+		final PreparedKernel<C> prepared = prepareKernel(kernel, paddedKernel,
+			paddedSize);
+
+		computeFilter(paddedInput, paddedKernel, prepared.getSpectrum(), false,
+			output, paddedSize);
+	}
+
 	/**
 	 * create FFT memory, create FFT filter and run it
 	 */
@@ -116,30 +134,58 @@ public abstract class AbstractFFTFilterF<I extends RealType<I>, O extends RealTy
 		final RandomAccessibleInterval<K> kernel,
 		RandomAccessibleInterval<O> output, long[] paddedSize)
 	{
-
-		RandomAccessibleInterval<C> fftInput = createOp.calculate(
+		RandomAccessibleInterval<C> fftKernel = createOp.calculate(
 			new FinalDimensions(paddedSize));
 
-		RandomAccessibleInterval<C> fftKernel = createOp.calculate(
+		computeFilter(input, kernel, fftKernel, true, output, paddedSize);
+	}
+
+	private void computeFilter(final RandomAccessibleInterval<I> input,
+		final RandomAccessibleInterval<K> kernel,
+		final RandomAccessibleInterval<C> fftKernel, final boolean performKernelFFT,
+		RandomAccessibleInterval<O> output, long[] paddedSize)
+	{
+		RandomAccessibleInterval<C> fftInput = createOp.calculate(
 			new FinalDimensions(paddedSize));
 
 		// TODO: in this case it is difficult to match the filter op in the
 		// 'initialize' as we don't know the size yet, thus we can't create
 		// memory
 		// for the FFTs
-		filter = createFilterComputer(input, kernel, fftInput, fftKernel, output);
+		filter = createFilterComputer(input, kernel, fftInput, fftKernel,
+			performKernelFFT, output);
 
 		filter.compute(input, kernel, output);
 	}
 
+	/**
+	 * Gets the spectrum of the kernel for the given padded size. Spectra are
+	 * shared through the {@link PreparedKernelCache}, so filtering many images
+	 * with the same kernel only transforms the kernel once per padded size.
+	 * 
+	 * @param kernel the original (unpadded) kernel, used as cache key
+	 * @param paddedKernel the padded and shifted kernel
+	 * @param paddedSize the padded size
+	 */
+	protected PreparedKernel<C> prepareKernel(
+		final RandomAccessibleInterval<K> kernel,
+		final RandomAccessibleInterval<K> paddedKernel, final long[] paddedSize)
+	{
+		return PreparedKernelCache.prepare(ops(), createOp, fftType, kernel,
+			paddedKernel, paddedSize);
+	}
+
 	/**
 	 * This function is called after the RAIs and FFTs are set up and create the
-	 * frequency filter computer.
+	 * frequency filter computer. If {@code performKernelFFT} is false,
+	 * {@code fftKernel} already holds the kernel spectrum, which may be shared
+	 * and must not be modified.
 	 * 
 	 * @param raiExtendedInput
 	 * @param raiExtendedKernel
 	 * @param fftImg
 	 * @param fftKernel
+	 * @param performKernelFFT
 	 * @param output
 	 */
 	abstract public
@@ -147,6 +193,6 @@ public abstract class AbstractFFTFilterF<I extends RealType<I>, O extends RealTy
 		createFilterComputer(RandomAccessibleInterval<I> raiExtendedInput,
 			RandomAccessibleInterval<K> raiExtendedKernel,
 			RandomAccessibleInterval<C> fftImg, RandomAccessibleInterval<C> fftKernel,
-			RandomAccessibleInterval<O> output);
+			boolean performKernelFFT, RandomAccessibleInterval<O> output);
 
 }
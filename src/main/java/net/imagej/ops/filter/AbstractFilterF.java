@@ -183,12 +183,26 @@ public abstract class AbstractFilterF<I extends RealType<I>, O extends RealType<
 
 		RandomAccessibleInterval<K> paddedKernel = padKernelOp.calculate(kernel, new FinalDimensions(paddedSize));
 
-		computeFilter(paddedInput, paddedKernel, output, paddedSize);
+		computeFilter(input, kernel, paddedInput, paddedKernel, output,
+			paddedSize);
 
 		return output;
 
 	}
 
+	/**
+	 * Computes the filter on the padded input and kernel. The original (unpadded)
+	 * kernel is passed in as well, so that subclasses can reuse work that only
+	 * depends on the kernel. By default this calls
+	 * {@link #computeFilter(RandomAccessibleInterval, RandomAccessibleInterval, RandomAccessibleInterval, long[])}.
+	 */
+	protected void computeFilter(final RandomAccessibleInterval<I> input,
+			final RandomAccessibleInterval<K> kernel, final RandomAccessibleInterval<I> paddedInput,
+			final RandomAccessibleInterval<K> paddedKernel, RandomAccessibleInterval<O> output,
+			long[] paddedSize) {
+		computeFilter(paddedInput, paddedKernel, output, paddedSize);
+	}
+
 	abstract protected void computeFilter(final RandomAccessibleInterval<I> input,
 			final RandomAccessibleInterval<K> kernel, RandomAccessibleInterval<O> output, long[] paddedSize);
 
@@ -0,0 +1,285 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.ops.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.special.computer.AbstractUnaryComputerOp;
+import net.imglib2.Cursor;
+import net.imglib2.IterableInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.neighborhood.Neighborhood;
+import net.imglib2.algorithm.neighborhood.Shape;
+import net.imglib2.outofbounds.OutOfBoundsBorderFactory;
+import net.imglib2.outofbounds.OutOfBoundsFactory;
+import net.imglib2.type.numeric.IntegerType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+import org.scijava.plugin.Parameter;
+
+/**
+ * Abstract rank filter for non-negative integer images with at most
+ * {@value #MAX_BINS} distinct values, such as {@code UnsignedByteType} and
+ * {@code UnsignedShortType}.
+ * <p>
+ * Rather than sorting each neighborhood, a histogram of the current
+ * neighborhood is updated incrementally while moving along the first
+ * dimension: only the elements entering and leaving the neighborhood are
+ * touched (Huang's algorithm, generalized to arbitrary {@link Shape}s and
+ * dimensions). The requested rank is tracked by a running pointer into the
+ * histogram, which only moves by the amount the neighborhood changed.
+ * </p>
+ * 
+ * @param <I> input type
+ * @param <O> output type
+ */
+public abstract class AbstractHistogramRankFilter<I extends IntegerType<I>, O extends RealType<O>>
+	extends
+	AbstractUnaryComputerOp<RandomAccessibleInterval<I>, IterableInterval<O>>
+	implements Contingent
+{
+
+	/** Maximum number of histogram bins, i.e. distinct input values. */
+	public static final int MAX_BINS = 1 << 16;
+
+	@Parameter
+	private Shape shape;
+
+	@Parameter(required = false)
+	private OutOfBoundsFactory<I, RandomAccessibleInterval<I>> outOfBoundsFactory =
+		new OutOfBoundsBorderFactory<>();
+
+	@Override
+	public void compute(final RandomAccessibleInterval<I> input,
+		final IterableInterval<O> output)
+	{
+		final RandomAccessible<I> extended = Views.extend(input,
+			outOfBoundsFactory);
+		final int nd = input.numDimensions();
+
+		// offsets of the neighborhood, and of the elements entering and leaving
+		// it when moving by one along the first dimension
+		final long[][] offsets = offsets(extended, nd);
+		final long[][] entering = shifted(offsets, 1, 0);
+		final long[][] leaving = shifted(offsets, -1, -1);
+		final int k = rank(offsets.length);
+
+		final Histogram histogram = new Histogram(bins(Util.getTypeFromInterval(
+			input)));
+		final RandomAccess<I> ra = extended.randomAccess();
+		final long[] position = new long[nd];
+		long[] center = new long[nd];
+		long[] previous = null;
+
+		final Cursor<O> cursor = output.localizingCursor();
+		while (cursor.hasNext()) {
+			cursor.fwd();
+			cursor.localize(center);
+
+			if (previous != null && isNext(previous, center)) {
+				// slide the neighborhood
+				for (final long[] offset : leaving) {
+					histogram.remove(value(ra, center, offset, position));
+				}
+				for (final long[] offset : entering) {
+					histogram.add(value(ra, center, offset, position));
+				}
+			}
+			else {
+				// jump to a new neighborhood
+				if (previous != null) {
+					for (final long[] offset : offsets) {
+						histogram.remove(value(ra, previous, offset, position));
+					}
+				}
+				for (final long[] offset : offsets) {
+					histogram.add(value(ra, center, offset, position));
+				}
+			}
+
+			cursor.get().setReal(histogram.select(k));
+
+			final long[] tmp = previous == null ? new long[nd] : previous;
+			previous = center;
+			center = tmp;
+		}
+	}
+
+	@Override
+	public boolean conforms() {
+		if (in() == null || out() == null) return false;
+		if (!(out().firstElement() instanceof RealType)) return false;
+		final Object type = Util.getTypeFromInterval(in());
+		if (!(type instanceof IntegerType)) return false;
+		final IntegerType<?> integerType = (IntegerType<?>) type;
+		return integerType.getMinValue() >= 0 && //
+			integerType.getMaxValue() < MAX_BINS;
+	}
+
+	/**
+	 * Get the shape (structuring element) used by this filter.
+	 * 
+	 * @return the shape
+	 */
+	public Shape getShape() {
+		return shape;
+	}
+
+	/**
+	 * Gets the zero-based rank of the value to select from a neighborhood with
+	 * the given number of elements, e.g. {@code 0} for the minimum.
+	 */
+	protected abstract int rank(final int numElements);
+
+	// -- Helper methods --
+
+	/** Gets the offsets of all neighborhood elements from its center. */
+	private long[][] offsets(final RandomAccessible<I> extended, final int nd) {
+		final RandomAccess<Neighborhood<I>> na = shape
+			.neighborhoodsRandomAccessible(extended).randomAccess();
+		na.setPosition(new long[nd]);
+		final Cursor<I> c = na.get().localizingCursor();
+		final List<long[]> offsets = new ArrayList<>();
+		while (c.hasNext()) {
+			c.fwd();
+			final long[] offset = new long[nd];
+			c.localize(offset);
+			offsets.add(offset);
+		}
+		return offsets.toArray(new long[offsets.size()][]);
+	}
+
+	/**
+	 * Gets the offsets {@code o} of the neighborhood for which
+	 * {@code o + direction * e0} is not part of the neighborhood, shifted by
+	 * {@code shift * e0}. With {@code direction = 1, shift = 0} these are the
+	 * elements entering the neighborhood when its center moves forward by one
+	 * along the first dimension; with {@code direction = -1, shift = -1} those
+	 * that left it, relative to the new center.
+	 */
+	private static long[][] shifted(final long[][] offsets, final int direction,
+		final int shift)
+	{
+		final Set<List<Long>> set = new HashSet<>();
+		for (final long[] offset : offsets) {
+			set.add(key(offset, 0));
+		}
+		final List<long[]> result = new ArrayList<>();
+		for (final long[] offset : offsets) {
+			if (set.contains(key(offset, direction))) continue;
+			final long[] shifted = offset.clone();
+			shifted[0] += shift;
+			result.add(shifted);
+		}
+		return result.toArray(new long[result.size()][]);
+	}
+
+	private static List<Long> key(final long[] offset, final long shift) {
+		final Long[] key = new Long[offset.length];
+		for (int d = 0; d < offset.length; d++) {
+			key[d] = offset[d];
+		}
+		key[0] += shift;
+		return Arrays.asList(key);
+	}
+
+	/** Checks whether {@code center} directly follows {@code previous}. */
+	private static boolean isNext(final long[] previous, final long[] center) {
+		if (center[0] != previous[0] + 1) return false;
+		for (int d = 1; d < center.length; d++) {
+			if (center[d] != previous[d]) return false;
+		}
+		return true;
+	}
+
+	private int value(final RandomAccess<I> ra, final long[] center,
+		final long[] offset, final long[] position)
+	{
+		for (int d = 0; d < position.length; d++) {
+			position[d] = center[d] + offset[d];
+		}
+		ra.setPosition(position);
+		return ra.get().getInteger();
+	}
+
+	private static int bins(final IntegerType<?> type) {
+		return (int) type.getMaxValue() + 1;
+	}
+
+	// -- Helper classes --
+
+	/**
+	 * Histogram of the current neighborhood, with a pointer to the bin of the
+	 * last selected value and the number of elements below that bin.
+	 */
+	private static class Histogram {
+
+		private final int[] counts;
+		private int value;
+		private int below;
+
+		public Histogram(final int bins) {
+			counts = new int[bins];
+		}
+
+		public void add(final int v) {
+			counts[v]++;
+			if (v < value) below++;
+		}
+
+		public void remove(final int v) {
+			counts[v]--;
+			if (v < value) below--;
+		}
+
+		/** Gets the value of the given zero-based rank. */
+		public int select(final int k) {
+			while (below > k) {
+				value--;
+				below -= counts[value];
+			}
+			while (below + counts[value] <= k) {
+				below += counts[value];
+				value++;
+			}
+			return value;
+		}
+	}
+
+}
@@ -0,0 +1,240 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.ops.filter;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.Ops;
+import net.imagej.ops.special.computer.AbstractUnaryComputerOp;
+import net.imagej.ops.special.function.Functions;
+import net.imagej.ops.special.function.UnaryFunctionOp;
+import net.imglib2.Cursor;
+import net.imglib2.Dimensions;
+import net.imglib2.FinalInterval;
+import net.imglib2.IterableInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.neighborhood.RectangleShape;
+import net.imglib2.algorithm.neighborhood.Shape;
+import net.imglib2.outofbounds.OutOfBoundsBorderFactory;
+import net.imglib2.outofbounds.OutOfBoundsFactory;
+import net.imglib2.type.numeric.IntegerType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+import org.scijava.plugin.Parameter;
+
+/**
+ * Abstract filter for statistics over {@link RectangleShape}s which can be
+ * derived from the sum and the sum of squares of a neighborhood.
+ * <p>
+ * The integral image (and, if needed, the square integral image) of the
+ * padded input is computed once, after which the sums over each neighborhood
+ * are read from its 2<sup>n</sup> corners, independent of the span of the
+ * shape.
+ * </p>
+ * <p>
+ * The integral filters only conform to integer inputs whose integral images
+ * stay below 2<sup>53</sup> in magnitude, so that all sums are exact doubles.
+ * Otherwise, rounding of the large sums and cancellation when taking their
+ * differences could distort the results, and the default filters are used.
+ * </p>
+ * 
+ * @param <I> input type
+ * @param <O> output type
+ * @see Ops.Image.Integral
+ * @see Ops.Image.SquareIntegral
+ */
+public abstract class AbstractIntegralFilter<I extends RealType<I>, O extends RealType<O>>
+	extends
+	AbstractUnaryComputerOp<RandomAccessibleInterval<I>, IterableInterval<O>>
+	implements Contingent
+{
+
+	/** Magnitude up to which all integers are exactly represented by doubles. */
+	private static final double MAX_EXACT = 1L << 53;
+
+	@Parameter
+	private Shape shape;
+
+	@Parameter(required = false)
+	private OutOfBoundsFactory<I, RandomAccessibleInterval<I>> outOfBoundsFactory =
+		new OutOfBoundsBorderFactory<>();
+
+	private UnaryFunctionOp<RandomAccessibleInterval<I>, RandomAccessibleInterval<? extends RealType<?>>> integralOp;
+	private UnaryFunctionOp<RandomAccessibleInterval<I>, RandomAccessibleInterval<? extends RealType<?>>> squareIntegralOp;
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@Override
+	public void initialize() {
+		integralOp = (UnaryFunctionOp) Functions.unary(ops(),
+			Ops.Image.Integral.class, RandomAccessibleInterval.class, in());
+		if (requiresSquares()) {
+			squareIntegralOp = (UnaryFunctionOp) Functions.unary(ops(),
+				Ops.Image.SquareIntegral.class, RandomAccessibleInterval.class, in());
+		}
+	}
+
+	@Override
+	public void compute(final RandomAccessibleInterval<I> input,
+		final IterableInterval<O> output)
+	{
+		final RectangleShape rectangle = (RectangleShape) shape;
+		final int span = rectangle.getSpan();
+		final int numDims = output.numDimensions();
+
+		// Pad by one more element on the lower side, such that the sum over each
+		// neighborhood is given by the integral image at its corners.
+		final long[] min = Intervals.minAsLongArray(output);
+		final long[] max = Intervals.maxAsLongArray(output);
+		for (int d = 0; d < numDims; d++) {
+			min[d] -= span + 1;
+			max[d] += span;
+		}
+		final RandomAccessible<I> extended = Views.extend(input,
+			outOfBoundsFactory);
+		final RandomAccessibleInterval<I> padded = Views.offsetInterval(extended,
+			new FinalInterval(min, max));
+
+		final RandomAccess<? extends RealType<?>> sums = integralOp.calculate(
+			padded).randomAccess();
+		final RandomAccess<? extends RealType<?>> squares = requiresSquares()
+			? squareIntegralOp.calculate(padded).randomAccess() : null;
+		final RandomAccess<I> centers = rectangle.isSkippingCenter() ? extended
+			.randomAccess() : null;
+
+		// corners of the neighborhood, relative to the integral image
+		final int numCorners = 1 << numDims;
+		final long[][] corners = new long[numCorners][numDims];
+		final double[] signs = new double[numCorners];
+		for (int c = 0; c < numCorners; c++) {
+			for (int d = 0; d < numDims; d++) {
+				corners[c][d] = (c & (1 << d)) == 0 ? 0 : 2 * span + 1;
+			}
+			signs[c] = (numDims - Integer.bitCount(c)) % 2 == 0 ? 1 : -1;
+		}
+
+		long count = 1;
+		for (int d = 0; d < numDims; d++) {
+			count *= 2 * span + 1;
+		}
+		if (centers != null) count--;
+
+		final long[] position = new long[numDims];
+		final long[] corner = new long[numDims];
+		final Cursor<O> cursor = output.localizingCursor();
+		while (cursor.hasNext()) {
+			cursor.fwd();
+			cursor.localize(position);
+			for (int d = 0; d < numDims; d++) {
+				position[d] -= output.min(d);
+			}
+
+			double sum = 0;
+			double sumOfSquares = 0;
+			for (int c = 0; c < numCorners; c++) {
+				for (int d = 0; d < numDims; d++) {
+					corner[d] = position[d] + corners[c][d];
+				}
+				sums.setPosition(corner);
+				sum += signs[c] * sums.get().getRealDouble();
+				if (squares != null) {
+					squares.setPosition(corner);
+					sumOfSquares += signs[c] * squares.get().getRealDouble();
+				}
+			}
+
+			if (centers != null) {
+				centers.setPosition(cursor);
+				final double center = centers.get().getRealDouble();
+				sum -= center;
+				if (squares != null) sumOfSquares -= center * center;
+			}
+
+			cursor.get().setReal(compute(sum, sumOfSquares, count));
+		}
+	}
+
+	@Override
+	public boolean conforms() {
+		if (!(shape instanceof RectangleShape)) return false;
+		return in() == null || isExact();
+	}
+
+	/**
+	 * Get the shape (structuring element) used by this filter.
+	 * 
+	 * @return the shape
+	 */
+	public Shape getShape() {
+		return shape;
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Checks whether all values of the integral images are exactly represented
+	 * by doubles.
+	 */
+	private boolean isExact() {
+		final I type = Util.getTypeFromInterval(in());
+		if (!(type instanceof IntegerType)) return false;
+
+		final Dimensions dims = out() == null ? in() : out();
+		final int span = ((RectangleShape) shape).getSpan();
+		double numElements = 1;
+		for (int d = 0; d < dims.numDimensions(); d++) {
+			numElements *= dims.dimension(d) + 2 * span + 1;
+		}
+		double maxValue = Math.max(Math.abs(type.getMinValue()), Math.abs(type
+			.getMaxValue()));
+		if (requiresSquares()) maxValue *= maxValue;
+		return maxValue * numElements < MAX_EXACT;
+	}
+
+	/**
+	 * Whether {@link #compute(double, double, long)} needs the sum of squares.
+	 */
+	protected abstract boolean requiresSquares();
+
+	/**
+	 * Computes the result for a neighborhood.
+	 * 
+	 * @param sum the sum of the neighborhood
+	 * @param sumOfSquares the sum of squares of the neighborhood, or {@code 0}
+	 *          if not {@link #requiresSquares() required}
+	 * @param count the number of elements in the neighborhood
+	 */
+	protected abstract double compute(double sum, double sumOfSquares,
+		long count);
+
+}
@@ -372,6 +372,51 @@ public class FilterNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	/** Executes the "convolve" operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.convolve.ConvolveFFTBlockwiseC.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		RandomAccessibleInterval<O> convolve(final RandomAccessibleInterval<O> out,
+			final RandomAccessibleInterval<I> in,
+			final RandomAccessibleInterval<K> kernel, final long memoryBudget)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result =
+			(RandomAccessibleInterval<O>) ops().run(Ops.Filter.Convolve.class,
+				out, in, kernel, memoryBudget);
+		return result;
+	}
+
+	/** Executes the "convolve" operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.convolve.ConvolveFFTBlockwiseC.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		RandomAccessibleInterval<O> convolve(final RandomAccessibleInterval<O> out,
+			final RandomAccessibleInterval<I> in,
+			final RandomAccessibleInterval<K> kernel, final long memoryBudget,
+			final OutOfBoundsFactory<I, RandomAccessibleInterval<I>> obfInput)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result =
+			(RandomAccessibleInterval<O>) ops().run(Ops.Filter.Convolve.class,
+				out, in, kernel, memoryBudget, obfInput);
+		return result;
+	}
+
+	/** Executes the "convolve" operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.convolve.ConvolveFFTBlockwiseC.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		RandomAccessibleInterval<O> convolve(final RandomAccessibleInterval<O> out,
+			final RandomAccessibleInterval<I> in,
+			final RandomAccessibleInterval<K> kernel, final long memoryBudget,
+			final OutOfBoundsFactory<I, RandomAccessibleInterval<I>> obfInput,
+			final int numThreads)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result =
+			(RandomAccessibleInterval<O>) ops().run(Ops.Filter.Convolve.class,
+				out, in, kernel, memoryBudget, obfInput, numThreads);
+		return result;
+	}
+
 	// -- correlate --
 
 	/** Executes the "correlate" operation on the given arguments. */
@@ -557,6 +602,51 @@ public class FilterNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	/** Executes the "correlate" operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.correlate.CorrelateFFTBlockwiseC.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		RandomAccessibleInterval<O> correlate(final RandomAccessibleInterval<O> out,
+			final RandomAccessibleInterval<I> in,
+			final RandomAccessibleInterval<K> kernel, final long memoryBudget)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result =
+			(RandomAccessibleInterval<O>) ops().run(Ops.Filter.Correlate.class,
+				out, in, kernel, memoryBudget);
+		return result;
+	}
+
+	/** Executes the "correlate" operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.correlate.CorrelateFFTBlockwiseC.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		RandomAccessibleInterval<O> correlate(final RandomAccessibleInterval<O> out,
+			final RandomAccessibleInterval<I> in,
+			final RandomAccessibleInterval<K> kernel, final long memoryBudget,
+			final OutOfBoundsFactory<I, RandomAccessibleInterval<I>> obfInput)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result =
+			(RandomAccessibleInterval<O>) ops().run(Ops.Filter.Correlate.class,
+				out, in, kernel, memoryBudget, obfInput);
+		return result;
+	}
+
+	/** Executes the "correlate" operation on the given arguments. */
+	@OpMethod(op = net.imagej.ops.filter.correlate.CorrelateFFTBlockwiseC.class)
+	public <I extends RealType<I>, O extends RealType<O>, K extends RealType<K>>
+		RandomAccessibleInterval<O> correlate(final RandomAccessibleInterval<O> out,
+			final RandomAccessibleInterval<I> in,
+			final RandomAccessibleInterval<K> kernel, final long memoryBudget,
+			final OutOfBoundsFactory<I, RandomAccessibleInterval<I>> obfInput,
+			final int numThreads)
+	{
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> result =
+			(RandomAccessibleInterval<O>) ops().run(Ops.Filter.Correlate.class,
+				out, in, kernel, memoryBudget, obfInput, numThreads);
+		return result;
+	}
+
 	// -- create fft output
 
 	@OpMethod(op = net.imagej.ops.filter.fft.CreateOutputFFTMethods.class)
@@ -1066,7 +1156,8 @@ public class FilterNamespace extends AbstractNamespace {
 	// -- mean filter --
 
 	/** Executes the "mean" filter operation on the given arguments. */
-	@OpMethod(op = net.imagej.ops.filter.mean.DefaultMeanFilter.class)
+	@OpMethod(ops = { net.imagej.ops.filter.mean.DefaultMeanFilter.class,
+		net.imagej.ops.filter.mean.IntegralMeanFilter.class })
 	public <I extends ComplexType<I>, O extends ComplexType<O>>
 		IterableInterval<O> mean(final IterableInterval<O> out,
 			final RandomAccessibleInterval<I> in, final Shape shape)
@@ -1078,7 +1169,8 @@ public class FilterNamespace extends AbstractNamespace {
 	}
 
 	/** Executes the "mean" filter operation on the given arguments. */
-	@OpMethod(op = net.imagej.ops.filter.mean.DefaultMeanFilter.class)
+	@OpMethod(ops = { net.imagej.ops.filter.mean.DefaultMeanFilter.class,
+		net.imagej.ops.filter.mean.IntegralMeanFilter.class })
 	public <I extends ComplexType<I>, O extends ComplexType<O>>
 		IterableInterval<O> mean(final IterableInterval<O> out,
 			final RandomAccessibleInterval<I> in, final Shape shape,
@@ -1093,7 +1185,9 @@ public class FilterNamespace extends AbstractNamespace {
 	// -- non-linear filters --
 
 	/** Executes the "max" filter operation on the given arguments. */
-	@OpMethod(op = net.imagej.ops.filter.max.DefaultMaxFilter.class)
+	@OpMethod(ops = { net.imagej.ops.filter.max.DefaultMaxFilter.class,
+		net.imagej.ops.filter.max.HistogramMaxFilter.class,
+		net.imagej.ops.filter.max.RectangleMaxFilter.class })
 	public <T extends RealType<T>, V extends RealType<V>> IterableInterval<T> max(
 		final IterableInterval<T> out, final RandomAccessibleInterval<T> in,
 		final Shape shape)
@@ -1105,7 +1199,9 @@ public class FilterNamespace extends AbstractNamespace {
 	}
 
 	/** Executes the "max" filter operation on the given arguments. */
-	@OpMethod(op = net.imagej.ops.filter.max.DefaultMaxFilter.class)
+	@OpMethod(ops = { net.imagej.ops.filter.max.DefaultMaxFilter.class,
+		net.imagej.ops.filter.max.HistogramMaxFilter.class,
+		net.imagej.ops.filter.max.RectangleMaxFilter.class })
 	public <T extends RealType<T>> IterableInterval<T> max(
 		final IterableInterval<T> out, final RandomAccessibleInterval<T> in,
 		final Shape shape, final OutOfBoundsFactory<T, T> outOfBoundsFactory)
@@ -1117,7 +1213,8 @@ public class FilterNamespace extends AbstractNamespace {
 	}
 
 	/** Executes the "median" filter operation on the given arguments. */
-	@OpMethod(op = net.imagej.ops.filter.median.DefaultMedianFilter.class)
+	@OpMethod(ops = { net.imagej.ops.filter.median.DefaultMedianFilter.class,
+		net.imagej.ops.filter.median.HistogramMedianFilter.class })
 	public <T extends RealType<T>> IterableInterval<T> median(
 		final IterableInterval<T> out, final RandomAccessibleInterval<T> in,
 		final Shape shape)
@@ -1129,7 +1226,8 @@ public class FilterNamespace extends AbstractNamespace {
 	}
 
 	/** Executes the "median" filter operation on the given arguments. */
-	@OpMethod(op = net.imagej.ops.filter.median.DefaultMedianFilter.class)
+	@OpMethod(ops = { net.imagej.ops.filter.median.DefaultMedianFilter.class,
+		net.imagej.ops.filter.median.HistogramMedianFilter.class })
 	public <T extends RealType<T>> IterableInterval<T> median(
 		final IterableInterval<T> out, final RandomAccessibleInterval<T> in,
 		final Shape shape, final OutOfBoundsFactory<T, T> outOfBoundsFactory)
@@ -1141,7 +1239,9 @@ public class FilterNamespace extends AbstractNamespace {
 	}
 
 	/** Executes the "min" filter operation on the given arguments. */
-	@OpMethod(op = net.imagej.ops.filter.min.DefaultMinFilter.class)
+	@OpMethod(ops = { net.imagej.ops.filter.min.DefaultMinFilter.class,
+		net.imagej.ops.filter.min.HistogramMinFilter.class,
+		net.imagej.ops.filter.min.RectangleMinFilter.class })
 	public <T extends RealType<T>> IterableInterval<T> min(
 		final IterableInterval<T> out, final RandomAccessibleInterval<T> in,
 		final Shape shape)
@@ -1153,7 +1253,9 @@ public class FilterNamespace extends AbstractNamespace {
 	}
 
 	/** Executes the "min" filter operation on the given arguments. */
-	@OpMethod(op = net.imagej.ops.filter.min.DefaultMinFilter.class)
+	@OpMethod(ops = { net.imagej.ops.filter.min.DefaultMinFilter.class,
+		net.imagej.ops.filter.min.HistogramMinFilter.class,
+		net.imagej.ops.filter.min.RectangleMinFilter.class })
 	public <T extends RealType<T>> IterableInterval<T> min(
 		final IterableInterval<T> out, final RandomAccessibleInterval<T> in,
 		final Shape shape, final OutOfBoundsFactory<T, T> outOfBoundsFactory)
@@ -1416,8 +1518,35 @@ public class FilterNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	/** Executes the "sum" filter operation on the given arguments. */
+	@OpMethod(ops = { net.imagej.ops.filter.sum.DefaultSumFilter.class,
+		net.imagej.ops.filter.sum.IntegralSumFilter.class })
+	public <T extends RealType<T>> IterableInterval<T> sum(
+		final IterableInterval<T> out, final RandomAccessibleInterval<T> in,
+		final Shape shape)
+	{
+		@SuppressWarnings("unchecked")
+		final IterableInterval<T> result = (IterableInterval<T>) ops().run(
+			Ops.Filter.Sum.class, out, in, shape);
+		return result;
+	}
+
+	/** Executes the "sum" filter operation on the given arguments. */
+	@OpMethod(ops = { net.imagej.ops.filter.sum.DefaultSumFilter.class,
+		net.imagej.ops.filter.sum.IntegralSumFilter.class })
+	public <T extends RealType<T>> IterableInterval<T> sum(
+		final IterableInterval<T> out, final RandomAccessibleInterval<T> in,
+		final Shape shape, final OutOfBoundsFactory<T, T> outOfBoundsFactory)
+	{
+		@SuppressWarnings("unchecked")
+		final IterableInterval<T> result = (IterableInterval<T>) ops().run(
+			Ops.Filter.Sum.class, out, in, shape, outOfBoundsFactory);
+		return result;
+	}
+
 	/** Executes the "variance" filter operation on the given arguments. */
-	@OpMethod(op = net.imagej.ops.filter.variance.DefaultVarianceFilter.class)
+	@OpMethod(ops = { net.imagej.ops.filter.variance.DefaultVarianceFilter.class,
+		net.imagej.ops.filter.variance.IntegralVarianceFilter.class })
 	public <T extends RealType<T>> IterableInterval<T> variance(
 		final IterableInterval<T> out, final RandomAccessibleInterval<T> in,
 		final Shape shape)
@@ -1429,7 +1558,8 @@ public class FilterNamespace extends AbstractNamespace {
 	}
 
 	/** Executes the "variance" filter operation on the given arguments. */
-	@OpMethod(op = net.imagej.ops.filter.variance.DefaultVarianceFilter.class)
+	@OpMethod(ops = { net.imagej.ops.filter.variance.DefaultVarianceFilter.class,
+		net.imagej.ops.filter.variance.IntegralVarianceFilter.class })
 	public <T extends RealType<T>> IterableInterval<T> variance(
 		final IterableInterval<T> out, final RandomAccessibleInterval<T> in,
 		final Shape shape, final OutOfBoundsFactory<T, T> outOfBoundsFactory)
@@ -0,0 +1,104 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter;
+
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.view.Views;
+
+/**
+ * The frequency-domain representation of a kernel, computed once for a given
+ * padded size so that repeated filtering with the same kernel only has to
+ * transform the image.
+ * <p>
+ * A prepared kernel records the padded (spatial) size the kernel was shifted
+ * and padded to and a fingerprint of the kernel values. The spectrum is shared
+ * and must be treated as read-only, i.e. it should be passed to the frequency
+ * filters with {@code performKernelFFT} set to {@code false}.
+ * </p>
+ *
+ * @param <C> type of the kernel spectrum
+ * @see PreparedKernelCache
+ */
+public class PreparedKernel<C> {
+
+	private final long[] paddedSize;
+
+	private final long fingerprint;
+
+	private final RandomAccessibleInterval<C> spectrum;
+
+	public PreparedKernel(final long[] paddedSize, final long fingerprint,
+		final RandomAccessibleInterval<C> spectrum)
+	{
+		this.paddedSize = paddedSize.clone();
+		this.fingerprint = fingerprint;
+		this.spectrum = spectrum;
+	}
+
+	/** Gets the padded spatial size the kernel spectrum was computed for. */
+	public long[] getPaddedSize() {
+		return paddedSize.clone();
+	}
+
+	/** Gets the fingerprint of the kernel values the spectrum was made from. */
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	/** Gets the (read-only) kernel spectrum. */
+	public RandomAccessibleInterval<C> getSpectrum() {
+		return spectrum;
+	}
+
+	// -- Utility methods --
+
+	/**
+	 * Computes a fingerprint of the kernel's extent and values. This is used to
+	 * detect kernels that were modified in place after their spectrum was
+	 * cached; it is linear in the size of the (unpadded) kernel and thus cheap
+	 * compared to the transform it guards.
+	 */
+	public static <K extends RealType<K>> long fingerprint(
+		final RandomAccessibleInterval<K> kernel)
+	{
+		long hash = 1125899906842597L;
+		for (int d = 0; d < kernel.numDimensions(); d++) {
+			hash = 31 * hash + kernel.min(d);
+			hash = 31 * hash + kernel.dimension(d);
+		}
+		for (final K k : Views.flatIterable(kernel)) {
+			hash = 31 * hash + Double.doubleToLongBits(k.getRealDouble());
+		}
+		return hash;
+	}
+
+}
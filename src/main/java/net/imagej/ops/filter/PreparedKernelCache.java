@@ -0,0 +1,171 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.ops.filter;
+
+import net.imagej.ops.OpEnvironment;
+import net.imagej.ops.cached.OpCacheService;
+import net.imagej.ops.cached.OpResultCache;
+import net.imagej.ops.filter.fft.FFTMethodsOpC;
+import net.imagej.ops.special.computer.Computers;
+import net.imagej.ops.special.computer.UnaryComputerOp;
+import net.imagej.ops.special.function.UnaryFunctionOp;
+import net.imglib2.Dimensions;
+import net.imglib2.FinalDimensions;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.type.numeric.ComplexType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Util;
+
+/**
+ * Cache of {@link PreparedKernel}s, keyed on the kernel, the padded size the
+ * kernel spectrum was computed for, the kernel fingerprint and the spectrum
+ * type.
+ * <p>
+ * The spectra are stored in the {@link OpResultCache} of the context's
+ * {@link OpCacheService}, so they share its memory budget and are evicted
+ * least recently used first. Kernels are held weakly, so spectra are also
+ * released together with the kernels they were made from. Kernels modified in
+ * place get a new {@link PreparedKernel#fingerprint}, so their outdated spectra
+ * are never returned.
+ * </p>
+ */
+public final class PreparedKernelCache {
+
+	private final OpResultCache cache;
+
+	public PreparedKernelCache(final OpResultCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Gets the cache of prepared kernels of the given environment's context, or
+	 * null if the context has no {@link OpCacheService}.
+	 */
+	public static PreparedKernelCache getCache(final OpEnvironment ops) {
+		final OpCacheService cacheService = ops.getContext().getService(
+			OpCacheService.class);
+		return cacheService == null ? null : new PreparedKernelCache(cacheService
+			.getResultCache());
+	}
+
+	/**
+	 * Gets the prepared kernel for the given kernel and padded size from the
+	 * cache of the environment's context, transforming the padded kernel into a
+	 * new spectrum if there is none.
+	 * 
+	 * @param ops the op environment
+	 * @param createOp op creating the spectrum for the padded size
+	 * @param fftType type of the spectrum
+	 * @param kernel the original (unpadded) kernel, used as cache key
+	 * @param paddedKernel the padded and shifted kernel
+	 * @param paddedSize the padded size
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public static <K extends RealType<K>, C extends ComplexType<C>>
+		PreparedKernel<C> prepare(final OpEnvironment ops,
+			final UnaryFunctionOp<Dimensions, RandomAccessibleInterval<C>> createOp,
+			final ComplexType<C> fftType, final RandomAccessibleInterval<K> kernel,
+			final RandomAccessibleInterval<K> paddedKernel, final long[] paddedSize)
+	{
+		final PreparedKernelCache cache = getCache(ops);
+		final long fingerprint = PreparedKernel.fingerprint(kernel);
+
+		PreparedKernel<C> prepared = cache == null ? null : cache.get(kernel,
+			paddedSize, fingerprint, fftType.getClass());
+
+		if (prepared == null) {
+			final RandomAccessibleInterval<C> spectrum = createOp.calculate(
+				new FinalDimensions(paddedSize));
+			final UnaryComputerOp<RandomAccessibleInterval<K>, RandomAccessibleInterval<C>> fftKernelOp =
+				(UnaryComputerOp) Computers.unary(ops, FFTMethodsOpC.class, spectrum,
+					paddedKernel);
+			fftKernelOp.compute(paddedKernel, spectrum);
+
+			prepared = new PreparedKernel<>(paddedSize, fingerprint, spectrum);
+			if (cache != null) cache.put(kernel, prepared);
+		}
+
+		return prepared;
+	}
+
+	/**
+	 * Gets the prepared kernel for the given kernel, padded size, kernel
+	 * fingerprint and spectrum type, or null if there is none.
+	 */
+	@SuppressWarnings("unchecked")
+	public <C> PreparedKernel<C> get(final Object kernel,
+		final long[] paddedSize, final long fingerprint,
+		final Class<?> spectrumType)
+	{
+		final RandomAccessibleInterval<C> spectrum =
+			(RandomAccessibleInterval<C>) cache.get(key(kernel, paddedSize,
+				fingerprint, spectrumType), PreparedKernel.class);
+		return spectrum == null ? null : new PreparedKernel<>(paddedSize,
+			fingerprint, spectrum);
+	}
+
+	/** Adds a prepared kernel for the given kernel. */
+	public void put(final Object kernel, final PreparedKernel<?> prepared) {
+		final RandomAccessibleInterval<?> spectrum = prepared.getSpectrum();
+		final Class<?> spectrumType = Util.getTypeFromInterval(spectrum)
+			.getClass();
+		cache.put(key(kernel, prepared.getPaddedSize(), prepared.getFingerprint(),
+			spectrumType), spectrum, PreparedKernel.class);
+	}
+
+	/** Gets the number of lookups that found a prepared kernel. */
+	public long getHits() {
+		return cache.getStatistics(PreparedKernel.class).getHits();
+	}
+
+	/** Gets the number of lookups that did not find a prepared kernel. */
+	public long getMisses() {
+		return cache.getStatistics(PreparedKernel.class).getMisses();
+	}
+
+	// -- Helper methods --
+
+	private OpResultCache.Key key(final Object kernel, final long[] paddedSize,
+		final long fingerprint, final Class<?> spectrumType)
+	{
+		// NB: The padded size is split into value components, which are compared
+		// for equality, whereas the kernel is held weakly.
+		final Object[] components = new Object[paddedSize.length + 4];
+		components[0] = PreparedKernel.class;
+		components[1] = kernel;
+		components[2] = fingerprint;
+		components[3] = spectrumType;
+		for (int d = 0; d < paddedSize.length; d++) {
+			components[d + 4] = paddedSize[d];
+		}
+		return cache.key(components);
+	}
+
+}
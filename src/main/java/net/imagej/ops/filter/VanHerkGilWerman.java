@@ -0,0 +1,309 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.ops.filter;
+
+import net.imglib2.Cursor;
+import net.imglib2.FinalInterval;
+import net.imglib2.IterableInterval;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.neighborhood.HorizontalLineShape;
+import net.imglib2.algorithm.neighborhood.RectangleShape;
+import net.imglib2.algorithm.neighborhood.Shape;
+import net.imglib2.type.numeric.IntegerType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.view.Views;
+
+/**
+ * Separable min and max filters over (hyper-)rectangular neighborhoods, using
+ * the van Herk/Gil-Werman algorithm.
+ * <p>
+ * The rectangle is decomposed into one line per dimension. Each line is split
+ * into blocks of the window size, for which running maxima are computed from
+ * the left and from the right; the maximum of a window is then the maximum of
+ * one left and one right running value. This takes three comparisons per
+ * element and dimension, regardless of the window size.
+ * </p>
+ * <p>
+ * The values are processed as doubles, in blocks of at most
+ * {@link #MAX_BLOCK_SIZE} elements including the padding, so the memory
+ * needed does not grow with the size of the image.
+ * </p>
+ * 
+ * @see RectangleShape
+ * @see HorizontalLineShape
+ */
+public final class VanHerkGilWerman {
+
+	/**
+	 * Maximum number of elements of a padded block, unless a single output
+	 * element already needs more.
+	 */
+	public static final long MAX_BLOCK_SIZE = 1 << 24;
+
+	/** Maximum number of elements of a Java array. */
+	private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	private VanHerkGilWerman() {
+		// NB: Prevent instantiation of utility class.
+	}
+
+	/**
+	 * Checks whether the given {@link Shape} can be decomposed into lines, i.e.
+	 * whether it is a {@link RectangleShape} or a {@link HorizontalLineShape}
+	 * including its center.
+	 */
+	public static boolean isSupported(final Shape shape) {
+		if (shape instanceof RectangleShape) {
+			return !((RectangleShape) shape).isSkippingCenter();
+		}
+		if (shape instanceof HorizontalLineShape) {
+			return !((HorizontalLineShape) shape).isSkippingCenter();
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether the filter with the given radii can be computed on values
+	 * of the given type, i.e. whether the type is exactly represented by a
+	 * double and the padding of a single element fits into an array.
+	 */
+	public static boolean isSupported(final long[] radii,
+		final RealType<?> type)
+	{
+		if (radii == null) return false;
+		if (type instanceof IntegerType && type.getBitsPerPixel() > 53) {
+			return false;
+		}
+		long size = 1;
+		for (final long radius : radii) {
+			size *= 2 * radius + 1;
+			if (size > MAX_ARRAY_SIZE) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the radius of the given {@link Shape} in each dimension.
+	 * 
+	 * @return the radii, or {@code null} if the shape is not
+	 *         {@link #isSupported(Shape) supported}
+	 */
+	public static long[] radii(final Shape shape, final int numDimensions) {
+		if (!isSupported(shape)) return null;
+		final long[] radii = new long[numDimensions];
+		if (shape instanceof RectangleShape) {
+			final int span = ((RectangleShape) shape).getSpan();
+			for (int d = 0; d < numDimensions; d++) {
+				radii[d] = span;
+			}
+		}
+		else {
+			final HorizontalLineShape line = (HorizontalLineShape) shape;
+			if (line.getLineDimension() < numDimensions) {
+				radii[line.getLineDimension()] = line.getSpan();
+			}
+		}
+		return radii;
+	}
+
+	/**
+	 * Computes the minimum or maximum of {@code source} over the rectangle with
+	 * the given radii around each position of {@code output}. Outputs which are
+	 * {@link RandomAccessibleInterval}s are computed block by block; other
+	 * outputs in one piece.
+	 * 
+	 * @param source the input, which must be defined on {@code output} padded
+	 *          by the radii
+	 * @param output the output
+	 * @param radii the radius of the rectangle in each dimension
+	 * @param max whether to compute the maximum ({@code true}) or the minimum
+	 * @see #isSupported(long[], RealType)
+	 */
+	public static <I extends RealType<I>, O extends RealType<O>> void compute(
+		final RandomAccessible<I> source, final IterableInterval<O> output,
+		final long[] radii, final boolean max)
+	{
+		if (output.size() == 0) return;
+		if (!(output instanceof RandomAccessibleInterval)) {
+			computeBlock(source, output, radii, max);
+			return;
+		}
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<O> rai =
+			(RandomAccessibleInterval<O>) output;
+
+		final int numDims = output.numDimensions();
+		final long[] blockSize = blockSize(output, radii);
+		final long[] blockMin = new long[numDims];
+		final long[] blockMax = new long[numDims];
+		output.min(blockMin);
+		while (true) {
+			for (int d = 0; d < numDims; d++) {
+				blockMax[d] = Math.min(blockMin[d] + blockSize[d] - 1, output.max(d));
+			}
+			computeBlock(source, Views.flatIterable(Views.interval(rai, blockMin,
+				blockMax)), radii, max);
+
+			// move to the next block
+			int d = 0;
+			while (d < numDims && blockMax[d] == output.max(d)) {
+				blockMin[d] = output.min(d);
+				d++;
+			}
+			if (d == numDims) break;
+			blockMin[d] += blockSize[d];
+		}
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Gets the size of the blocks an output is computed in. The largest
+	 * dimension of the block is halved until the padded block has at most
+	 * {@link #MAX_BLOCK_SIZE} elements.
+	 */
+	private static long[] blockSize(final IterableInterval<?> output,
+		final long[] radii)
+	{
+		final int numDims = output.numDimensions();
+		final long[] blockSize = new long[numDims];
+		output.dimensions(blockSize);
+		while (true) {
+			double size = 1;
+			int largest = 0;
+			for (int d = 0; d < numDims; d++) {
+				size *= blockSize[d] + 2 * radii[d];
+				if (blockSize[d] > blockSize[largest]) largest = d;
+			}
+			if (size <= MAX_BLOCK_SIZE || blockSize[largest] == 1) {
+				return blockSize;
+			}
+			blockSize[largest] = (blockSize[largest] + 1) / 2;
+		}
+	}
+
+	/**
+	 * Computes the minimum or maximum around each position of {@code output}
+	 * in one piece.
+	 */
+	private static <I extends RealType<I>, O extends RealType<O>> void
+		computeBlock(final RandomAccessible<I> source,
+			final IterableInterval<O> output, final long[] radii, final boolean max)
+	{
+		final int numDims = output.numDimensions();
+		final long[] min = new long[numDims];
+		final long[] maxPos = new long[numDims];
+		final int[] dims = new int[numDims];
+		final int[] strides = new int[numDims];
+		long size = 1;
+		for (int d = 0; d < numDims; d++) {
+			min[d] = output.min(d) - radii[d];
+			maxPos[d] = output.max(d) + radii[d];
+			strides[d] = (int) size;
+			size *= maxPos[d] - min[d] + 1;
+			if (size > MAX_ARRAY_SIZE) {
+				throw new IllegalArgumentException(
+					"Padded output is too large: " + size + " elements");
+			}
+			dims[d] = (int) (maxPos[d] - min[d] + 1);
+		}
+
+		// NB: The minimum is computed as the negated maximum of negated values.
+		final double sign = max ? 1 : -1;
+		final double[] data = new double[(int) size];
+		int i = 0;
+		for (final I t : Views.flatIterable(Views.interval(source,
+			new FinalInterval(min, maxPos))))
+		{
+			data[i++] = sign * t.getRealDouble();
+		}
+
+		int maxDim = 0;
+		for (final int dim : dims) {
+			maxDim = Math.max(maxDim, dim);
+		}
+		final double[] left = new double[maxDim];
+		final double[] right = new double[maxDim];
+		for (int d = 0; d < numDims; d++) {
+			if (radii[d] == 0) continue;
+			final int stride = strides[d];
+			final int lineStep = stride * dims[d];
+			for (int outer = 0; outer < data.length; outer += lineStep) {
+				for (int inner = 0; inner < stride; inner++) {
+					maxLine(data, outer + inner, stride, dims[d], (int) radii[d], left,
+						right);
+				}
+			}
+		}
+
+		final long[] pos = new long[numDims];
+		final Cursor<O> c = output.localizingCursor();
+		while (c.hasNext()) {
+			c.fwd();
+			c.localize(pos);
+			int index = 0;
+			for (int d = 0; d < numDims; d++) {
+				index += (pos[d] - min[d]) * strides[d];
+			}
+			c.get().setReal(sign * data[index]);
+		}
+	}
+
+	/**
+	 * Replaces each element of a line, except for {@code radius} elements at
+	 * either end, with the maximum of the window of the given radius around it.
+	 */
+	private static void maxLine(final double[] data, final int start,
+		final int stride, final int length, final int radius, final double[] left,
+		final double[] right)
+	{
+		final int window = 2 * radius + 1;
+
+		// running maxima from the start of each block
+		for (int i = 0, j = start; i < length; i++, j += stride) {
+			left[i] = i % window == 0 ? data[j] : Math.max(left[i - 1], data[j]);
+		}
+
+		// running maxima from the end of each block
+		right[length - 1] = data[start + (length - 1) * stride];
+		for (int i = length - 2, j = start + i * stride; i >= 0; i--, j -= stride) {
+			right[i] = (i + 1) % window == 0 ? data[j] : Math.max(right[i + 1],
+				data[j]);
+		}
+
+		for (int i = radius, j = start + radius * stride; i < length -
+			radius; i++, j += stride)
+		{
+			data[j] = Math.max(right[i - radius], left[i + radius]);
+		}
+	}
+
+}
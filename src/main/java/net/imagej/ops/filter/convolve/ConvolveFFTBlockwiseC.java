@@ -0,0 +1,88 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter.convolve;
+
+import net.imagej.ops.Ops;
+import net.imagej.ops.filter.AbstractBlockwiseFFTFilterC;
+import net.imagej.ops.special.computer.BinaryComputerOp;
+import net.imagej.ops.special.computer.Computers;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.outofbounds.OutOfBoundsConstantValueFactory;
+import net.imglib2.outofbounds.OutOfBoundsFactory;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.ComplexType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.Util;
+
+import org.scijava.plugin.Plugin;
+
+/**
+ * Convolve op for (@link RandomAccessibleInterval) that processes the image in
+ * blocks sized to a memory budget (overlap-save).
+ * 
+ * @param <I>
+ * @param <O>
+ * @param <K>
+ * @param <C>
+ */
+@Plugin(type = Ops.Filter.Convolve.class)
+public class ConvolveFFTBlockwiseC<I extends RealType<I>, O extends RealType<O>, K extends RealType<K>, C extends ComplexType<C> & NativeType<C>>
+	extends AbstractBlockwiseFFTFilterC<I, O, K, C> implements
+	Ops.Filter.Convolve
+{
+
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected
+		BinaryComputerOp<RandomAccessibleInterval<I>, RandomAccessibleInterval<K>, RandomAccessibleInterval<O>>
+		createFilterComputer(RandomAccessibleInterval<I> paddedBlock,
+			RandomAccessibleInterval<K> paddedKernel,
+			RandomAccessibleInterval<O> outputBlock,
+			RandomAccessibleInterval<C> fftInput,
+			RandomAccessibleInterval<C> fftKernel)
+	{
+		return (BinaryComputerOp) Computers.binary(ops(), ConvolveFFTC.class,
+			outputBlock, paddedBlock, paddedKernel, fftInput, fftKernel, true,
+			false);
+	}
+
+	/**
+	 * zero-pad the input, like {@link ConvolveFFTF}
+	 */
+	@Override
+	protected OutOfBoundsFactory<I, RandomAccessibleInterval<I>>
+		getDefaultOBFInput()
+	{
+		return new OutOfBoundsConstantValueFactory<>(Util.getTypeFromInterval(in1())
+			.createVariable());
+	}
+
+}
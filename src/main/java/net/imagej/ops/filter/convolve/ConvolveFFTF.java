@@ -80,10 +80,10 @@ public class ConvolveFFTF<I extends RealType<I> & NativeType<I>, O extends RealT
 		createFilterComputer(RandomAccessibleInterval<I> raiExtendedInput,
 			RandomAccessibleInterval<K> raiExtendedKernel,
 			RandomAccessibleInterval<C> fftImg, RandomAccessibleInterval<C> fftKernel,
-			RandomAccessibleInterval<O> output)
+			boolean performKernelFFT, RandomAccessibleInterval<O> output)
 	{
 		return Computers.binary(ops(), ConvolveFFTC.class, output, raiExtendedInput,
-			raiExtendedKernel, fftImg, fftKernel);
+			raiExtendedKernel, fftImg, fftKernel, true, performKernelFFT);
 	}
 
 }
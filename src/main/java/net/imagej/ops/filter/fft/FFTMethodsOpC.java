@@ -70,6 +70,12 @@ public class FFTMethodsOpC<T extends RealType<T>, C extends ComplexType<C>>
 		final RandomAccessibleInterval<C> output)
 	{
 
+		// use the float array path if possible
+		if (FloatArrayFFT.isSupported(input, output)) {
+			FloatArrayFFT.realToComplex(input, output, ops());
+			return;
+		}
+
 		// perform a real to complex FFT in the first dimension
 		FFTMethods.realToComplex(input, output, 0, false, ts.getExecutorService());
 
@@ -0,0 +1,318 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.filter.fft;
+
+import net.imagej.ops.OpEnvironment;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.FloatArray;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.type.numeric.complex.ComplexFloatType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+
+import edu.mines.jtk.dsp.FftComplex;
+import edu.mines.jtk.dsp.FftReal;
+
+/**
+ * Real to complex FFT working directly on the {@code float[]} storage of
+ * {@link ComplexFloatType} {@link ArrayImg}s and {@link PlanarImg}s.
+ * <p>
+ * Produces the same result as the transform of {@link FFTMethodsOpC} (a real
+ * to complex transform along the first dimension followed by complex to
+ * complex transforms along the others, unscaled), but copies whole lines
+ * between the storage and per-thread scratch arrays instead of going through
+ * cursors, and splits the lines of each dimension into chunks which the
+ * {@link net.imagej.ops.Ops.Thread.Chunker} processes in parallel. The input is
+ * read from its {@code float[]} storage too if it is a {@link FloatType}
+ * {@link ArrayImg} or {@link PlanarImg}, and through a {@link RandomAccess}
+ * otherwise.
+ * </p>
+ */
+public final class FloatArrayFFT {
+
+	/** Minimum number of lines each chunk transforms. */
+	private static final int MIN_LINES_PER_CHUNK = 16;
+
+	private FloatArrayFFT() {
+		// NB: prevent instantiation of utility class.
+	}
+
+	/**
+	 * Checks whether {@link #realToComplex} can transform the given input into
+	 * the given output.
+	 */
+	public static boolean isSupported(final RandomAccessibleInterval<?> input,
+		final RandomAccessibleInterval<?> output)
+	{
+		if (Storage.of(output, ComplexFloatType.class, 2) == null) return false;
+
+		final int numDimensions = output.numDimensions();
+		if (input.numDimensions() != numDimensions) return false;
+
+		final long realSize = input.dimension(0);
+		if (realSize > Integer.MAX_VALUE || realSize != 2 * (output.dimension(0) -
+			1) || !FftReal.nfftValid((int) realSize))
+		{
+			return false;
+		}
+		for (int d = 1; d < numDimensions; d++) {
+			final long size = output.dimension(d);
+			if (input.dimension(d) != size) return false;
+			if (size > 1 && (size > Integer.MAX_VALUE || !FftComplex.nfftValid(
+				(int) size)))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the unscaled forward FFT of a real input into a complex output
+	 * whose first dimension is {@code input.dimension(0) / 2 + 1}.
+	 * 
+	 * @param ops environment whose chunker transforms lines in parallel, or
+	 *          null to use the calling thread only
+	 * @throws IllegalArgumentException if the input and output are not
+	 *           {@link #isSupported supported}
+	 */
+	public static <T extends RealType<T>> void realToComplex(
+		final RandomAccessibleInterval<T> input,
+		final RandomAccessibleInterval<?> output, final OpEnvironment ops)
+	{
+		if (!isSupported(input, output)) {
+			throw new IllegalArgumentException(
+				"Input and output are not supported by the float array FFT");
+		}
+
+		final int numDimensions = output.numDimensions();
+		final long[] dims = Intervals.dimensionsAsLongArray(output);
+		final long numPixels = Intervals.numElements(dims);
+		final Storage out = Storage.of(output, ComplexFloatType.class, 2);
+		final Storage in = Storage.of(input, FloatType.class, 1);
+		final int realSize = (int) input.dimension(0);
+		final int complexSize = (int) dims[0];
+
+		// real to complex along the first dimension
+		run(numPixels / complexSize, ops, new Lines() {
+
+			@Override
+			public void transform(final long first, final long last) {
+				final FftReal fft = new FftReal(realSize);
+				final float[] rx = new float[realSize];
+				final float[] cy = new float[2 * complexSize];
+				final RandomAccess<T> ra = in == null ? input.randomAccess() : null;
+				final long[] position = new long[numDimensions];
+
+				for (long line = first; line < last; line++) {
+					if (in != null) {
+						final long p = line * realSize;
+						System.arraycopy(in.planes[in.plane(p)], in.offset(p), rx, 0,
+							realSize);
+					}
+					else {
+						long rest = line;
+						position[0] = input.min(0);
+						for (int d = 1; d < numDimensions; d++) {
+							position[d] = input.min(d) + rest % dims[d];
+							rest /= dims[d];
+						}
+						ra.setPosition(position);
+						for (int k = 0; k < realSize; k++) {
+							rx[k] = ra.get().getRealFloat();
+							ra.fwd(0);
+						}
+					}
+
+					fft.realToComplex(-1, rx, cy);
+
+					final long p = line * complexSize;
+					System.arraycopy(cy, 0, out.planes[out.plane(p)], out.offset(p), 2 *
+						complexSize);
+				}
+			}
+		});
+
+		// complex to complex along the other dimensions
+		long stride = complexSize;
+		for (int d = 1; d < numDimensions; d++) {
+			final int size = (int) dims[d];
+			if (size > 1) {
+				complexToComplex(out, numPixels, stride, size, ops);
+			}
+			stride *= size;
+		}
+	}
+
+	// -- Helper methods --
+
+	private static void complexToComplex(final Storage out,
+		final long numPixels, final long stride, final int size,
+		final OpEnvironment ops)
+	{
+		// NB: a line either stays within one plane or visits one pixel per plane
+		final boolean acrossPlanes = stride % out.planeSize == 0;
+		final int planeStep = (int) (stride / out.planeSize);
+		final int offsetStep = (int) (stride * 2);
+
+		run(numPixels / size, ops, new Lines() {
+
+			@Override
+			public void transform(final long first, final long last) {
+				final FftComplex fft = new FftComplex(size);
+				final float[] cx = new float[2 * size];
+				final float[] cy = new float[2 * size];
+
+				for (long line = first; line < last; line++) {
+					final long p = line / stride * stride * size + line % stride;
+					final int firstPlane = out.plane(p);
+					final int firstOffset = out.offset(p);
+
+					int plane = firstPlane;
+					int offset = firstOffset;
+					for (int k = 0; k < 2 * size; k += 2) {
+						final float[] a = out.planes[plane];
+						cx[k] = a[offset];
+						cx[k + 1] = a[offset + 1];
+						if (acrossPlanes) plane += planeStep;
+						else offset += offsetStep;
+					}
+
+					fft.complexToComplex(-1, cx, cy);
+
+					plane = firstPlane;
+					offset = firstOffset;
+					for (int k = 0; k < 2 * size; k += 2) {
+						final float[] a = out.planes[plane];
+						a[offset] = cy[k];
+						a[offset + 1] = cy[k + 1];
+						if (acrossPlanes) plane += planeStep;
+						else offset += offsetStep;
+					}
+				}
+			}
+		});
+	}
+
+	/** Splits the lines into contiguous ranges and transforms them. */
+	private static void run(final long numLines, final OpEnvironment ops,
+		final Lines lines)
+	{
+		// NB: the chunker enumerates elements with ints
+		if (ops == null || numLines < 2 * MIN_LINES_PER_CHUNK ||
+			numLines > Integer.MAX_VALUE)
+		{
+			lines.transform(0, numLines);
+			return;
+		}
+
+		ops.thread().chunker(new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				lines.transform(startIndex, startIndex + (long) numSteps);
+			}
+		}, numLines, MIN_LINES_PER_CHUNK);
+	}
+
+	// -- Helper classes --
+
+	/** Transforms a range of lines, using its own FFT and scratch arrays. */
+	private interface Lines {
+
+		void transform(long first, long last);
+	}
+
+	/** The {@code float[]} storage of an image. */
+	private static final class Storage {
+
+		private final float[][] planes;
+		private final long planeSize;
+		private final int entities;
+
+		private Storage(final float[][] planes, final long planeSize,
+			final int entities)
+		{
+			this.planes = planes;
+			this.planeSize = planeSize;
+			this.entities = entities;
+		}
+
+		/** Gets the plane holding the pixel with the given flat index. */
+		private int plane(final long p) {
+			return (int) (p / planeSize);
+		}
+
+		/** Gets the array offset of the pixel with the given flat index. */
+		private int offset(final long p) {
+			return (int) (p % planeSize) * entities;
+		}
+
+		/**
+		 * Gets the storage of the image if it is an {@link ArrayImg} or
+		 * {@link PlanarImg} of the given type backed by {@link FloatArray}s, or
+		 * null otherwise.
+		 */
+		private static Storage of(final Object image, final Class<?> type,
+			final int entities)
+		{
+			if (image instanceof ArrayImg) {
+				final ArrayImg<?, ?> img = (ArrayImg<?, ?>) image;
+				final Object access = img.update(null);
+				if (!type.isInstance(img.firstElement()) ||
+					!(access instanceof FloatArray)) return null;
+				return new Storage(new float[][] { ((FloatArray) access)
+					.getCurrentStorageArray() }, img.size(), entities);
+			}
+			if (image instanceof PlanarImg) {
+				final PlanarImg<?, ?> img = (PlanarImg<?, ?>) image;
+				if (!type.isInstance(img.firstElement())) return null;
+				final float[][] planes = new float[img.numSlices()][];
+				for (int i = 0; i < planes.length; i++) {
+					final Object plane = img.getPlane(i);
+					if (!(plane instanceof FloatArray)) return null;
+					planes[i] = ((FloatArray) plane).getCurrentStorageArray();
+				}
+				final long planeSize = img.numDimensions() > 1 ? img.dimension(0) *
+					img.dimension(1) : img.dimension(0);
+				return new Storage(planes, planeSize, entities);
+			}
+			return null;
+		}
+	}
+
+}
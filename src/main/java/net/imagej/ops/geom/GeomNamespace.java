@@ -36,6 +36,7 @@ import net.imagej.ops.AbstractNamespace;
 import net.imagej.ops.Namespace;
 import net.imagej.ops.OpMethod;
 import net.imagej.ops.Ops.Geometric.Voxelization;
+import net.imagej.ops.geom.geom2d.RotatingCalipers;
 import net.imagej.ops.geom.geom3d.mesh.VertexInterpolator;
 import net.imglib2.IterableInterval;
 import net.imglib2.RandomAccessibleInterval;
@@ -527,6 +528,13 @@ public class GeomNamespace extends AbstractNamespace {
 		return result;
 	}
 
+	@OpMethod(op = net.imagej.ops.geom.geom2d.DefaultRotatingCalipers.class)
+	public RotatingCalipers rotatingCalipers(final Polygon2D in) {
+		final RotatingCalipers result =
+			(RotatingCalipers) ops().run(net.imagej.ops.Ops.Geometric.RotatingCalipers.class, in);
+		return result;
+	}
+
 	@OpMethod(op = net.imagej.ops.geom.geom2d.DefaultRoundness.class)
 	public DoubleType roundness(final Polygon2D in) {
 		final DoubleType result =
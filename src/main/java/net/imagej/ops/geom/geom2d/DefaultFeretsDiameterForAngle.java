@@ -71,13 +71,15 @@ public class DefaultFeretsDiameterForAngle extends
 			.calculate(input));
 
 		final double angleRad = -angle * Math.PI / 180.0;
+		final double cos = Math.cos(angleRad);
+		final double sin = Math.sin(angleRad);
 
 		double minX = Double.POSITIVE_INFINITY;
 		double maxX = Double.NEGATIVE_INFINITY;
 
 		for (RealLocalizable p : points) {
-			final double tmpX = p.getDoublePosition(0) * Math.cos(angleRad) - p
-				.getDoublePosition(1) * Math.sin(angleRad);
+			final double tmpX = p.getDoublePosition(0) * cos - p.getDoublePosition(
+				1) * sin;
 			minX = tmpX < minX ? tmpX : minX;
 			maxX = tmpX > maxX ? tmpX : maxX;
 		}
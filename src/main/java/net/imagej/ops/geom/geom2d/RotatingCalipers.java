@@ -0,0 +1,319 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.geom.geom2d;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.imglib2.RealLocalizable;
+import net.imglib2.RealPoint;
+import net.imglib2.roi.geom.real.DefaultWritablePolygon2D;
+import net.imglib2.roi.geom.real.Polygon2D;
+import net.imglib2.util.Pair;
+import net.imglib2.util.ValuePair;
+
+/**
+ * Feret diameters and the smallest enclosing rectangle of a convex polygon,
+ * computed with rotating calipers in time linear in the number of vertices.
+ * <p>
+ * For each edge of the convex hull, the vertex farthest from the edge and the
+ * vertices extremal along the edge are tracked with pointers which only move
+ * forward, so all edges are processed in a single sweep around the hull. The
+ * minimum Feret diameter and the smallest enclosing rectangle both have one
+ * side flush with a hull edge; the maximum Feret diameter is attained by a
+ * pair of antipodal vertices.
+ * </p>
+ * <p>
+ * Points and angles follow the conventions of {@link DefaultMaximumFeret},
+ * {@link DefaultMinimumFeret}, {@link DefaultFeretsAngle} and
+ * {@link DefaultSmallestEnclosingRectangle}.
+ * </p>
+ */
+public class RotatingCalipers {
+
+	private final double[] x;
+	private final double[] y;
+	private final int n;
+
+	private int maxFeret0;
+	private int maxFeret1;
+
+	private RealLocalizable minFeret0;
+	private RealLocalizable minFeret1;
+
+	private Polygon2D rectangle;
+
+	/**
+	 * Computes the Feret diameters and the smallest enclosing rectangle of the
+	 * given convex polygon.
+	 *
+	 * @param convexHull a convex polygon without collinear vertices, e.g. the
+	 *          output of {@link DefaultConvexHull2D}
+	 */
+	public RotatingCalipers(final Polygon2D convexHull) {
+		n = convexHull.numVertices();
+		x = new double[n];
+		y = new double[n];
+		for (int i = 0; i < n; i++) {
+			final RealLocalizable p = convexHull.vertex(i);
+			x[i] = p.getDoublePosition(0);
+			y[i] = p.getDoublePosition(1);
+		}
+		if (n < 3 || signedArea() == 0) computeDegenerate();
+		else compute();
+	}
+
+	// -- RotatingCalipers methods --
+
+	/**
+	 * Gets the two hull vertices with the largest distance, the one with the
+	 * lower index first.
+	 */
+	public Pair<RealLocalizable, RealLocalizable> getMaximumFeret() {
+		return new ValuePair<>(point(maxFeret0), point(maxFeret1));
+	}
+
+	public double getMaximumFeretDiameter() {
+		return diameter(point(maxFeret0), point(maxFeret1));
+	}
+
+	public double getMaximumFeretAngle() {
+		return angle(point(maxFeret0), point(maxFeret1));
+	}
+
+	/**
+	 * Gets the end points of the minimum Feret diameter: the projection of the
+	 * hull vertex onto the opposite hull edge, followed by the vertex.
+	 */
+	public Pair<RealLocalizable, RealLocalizable> getMinimumFeret() {
+		return new ValuePair<>(minFeret0, minFeret1);
+	}
+
+	public double getMinimumFeretDiameter() {
+		return diameter(minFeret0, minFeret1);
+	}
+
+	public double getMinimumFeretAngle() {
+		return angle(minFeret0, minFeret1);
+	}
+
+	/** Gets the enclosing rectangle with the smallest area. */
+	public Polygon2D getSmallestEnclosingRectangle() {
+		return rectangle;
+	}
+
+	// -- Helper methods --
+
+	private void compute() {
+		double maxDist = Double.NEGATIVE_INFINITY;
+		double minWidth = Double.POSITIVE_INFINITY;
+		double minArea = Double.POSITIVE_INFINITY;
+
+		// NB: Pointers are not reduced modulo n, so that they only increase.
+		int far = 1;
+		int front = 1;
+		int back = 1;
+		for (int i = 0; i < n; i++) {
+			final int i1 = (i + 1) % n;
+			final double ex = x[i1] - x[i];
+			final double ey = y[i1] - y[i];
+			final double length = Math.hypot(ex, ey);
+			final double ux = ex / length;
+			final double uy = ey / length;
+
+			// the vertex extremal in edge direction
+			front = Math.max(front, i + 1);
+			while (dot(ux, uy, front + 1) > dot(ux, uy, front))
+				front++;
+
+			// the vertex farthest from the edge
+			far = Math.max(far, front);
+			while (height(i, ex, ey, far + 1) > height(i, ex, ey, far))
+				far++;
+
+			// the vertex extremal against edge direction
+			back = Math.max(back, far);
+			while (dot(ux, uy, back + 1) < dot(ux, uy, back))
+				back++;
+
+			// maximum Feret: vertices antipodal to the edge
+			final double h = height(i, ex, ey, far);
+			maxDist = antipodal(i, far, maxDist);
+			maxDist = antipodal(i1, far, maxDist);
+			if (height(i, ex, ey, far + 1) == h) {
+				// NB: Edge parallel to the edge at the far vertex.
+				maxDist = antipodal(i, far + 1, maxDist);
+				maxDist = antipodal(i1, far + 1, maxDist);
+			}
+
+			// minimum Feret: distance of the far vertex to the edge
+			final double width = h / length;
+			if (width < minWidth) {
+				minWidth = width;
+				final int j = far % n;
+				final double t = (x[j] - x[i]) * ux + (y[j] - y[i]) * uy;
+				minFeret0 = new RealPoint(x[i] + t * ux, y[i] + t * uy);
+				minFeret1 = point(j);
+			}
+
+			// smallest enclosing rectangle: bounds in the frame of the edge
+			final double minU = dot(ux, uy, back);
+			final double maxU = dot(ux, uy, front);
+			final double v0 = dot(-uy, ux, i);
+			final double v1 = dot(-uy, ux, far);
+			final double minV = Math.min(v0, v1);
+			final double maxV = Math.max(v0, v1);
+			final double area = (maxU - minU) * (maxV - minV);
+			if (area < minArea) {
+				minArea = area;
+				rectangle = rectangle(ux, uy, minU, maxU, minV, maxV);
+			}
+		}
+	}
+
+	/**
+	 * Computes all results by exhaustive search, for hulls with less than three
+	 * vertices or without area.
+	 */
+	private void computeDegenerate() {
+		double maxDist = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < n; i++) {
+			for (int j = i + 1; j < n; j++) {
+				maxDist = antipodal(i, j, maxDist);
+			}
+		}
+		minFeret0 = point(0);
+		minFeret1 = point(0);
+
+		final double ex = x[maxFeret1] - x[maxFeret0];
+		final double ey = y[maxFeret1] - y[maxFeret0];
+		final double length = Math.hypot(ex, ey);
+		final double ux = length == 0 ? 1 : ex / length;
+		final double uy = length == 0 ? 0 : ey / length;
+		double minU = Double.POSITIVE_INFINITY;
+		double maxU = Double.NEGATIVE_INFINITY;
+		double minV = Double.POSITIVE_INFINITY;
+		double maxV = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < n; i++) {
+			minU = Math.min(minU, dot(ux, uy, i));
+			maxU = Math.max(maxU, dot(ux, uy, i));
+			minV = Math.min(minV, dot(-uy, ux, i));
+			maxV = Math.max(maxV, dot(-uy, ux, i));
+		}
+		rectangle = rectangle(ux, uy, minU, maxU, minV, maxV);
+	}
+
+	/**
+	 * Updates the maximum Feret with the given vertex pair, if it is longer.
+	 * Ties are resolved in favor of the lexicographically smaller pair.
+	 */
+	private double antipodal(final int a, final int b, final double maxDist) {
+		final int i = Math.min(a % n, b % n);
+		final int j = Math.max(a % n, b % n);
+		final double dx = x[i] - x[j];
+		final double dy = y[i] - y[j];
+		final double dist = dx * dx + dy * dy;
+		if (dist > maxDist || dist == maxDist && (i < maxFeret0 ||
+			i == maxFeret0 && j < maxFeret1))
+		{
+			maxFeret0 = i;
+			maxFeret1 = j;
+			return dist;
+		}
+		return maxDist;
+	}
+
+	/**
+	 * Creates the rectangle with the given bounds in the frame spanned by the
+	 * edge direction and its normal, corners ordered as in
+	 * {@link DefaultBoundingBox}.
+	 */
+	private static Polygon2D rectangle(final double ux, final double uy,
+		final double minU, final double maxU, final double minV,
+		final double maxV)
+	{
+		final List<RealLocalizable> corners = new ArrayList<>(4);
+		corners.add(corner(ux, uy, minU, minV));
+		corners.add(corner(ux, uy, minU, maxV));
+		corners.add(corner(ux, uy, maxU, maxV));
+		corners.add(corner(ux, uy, maxU, minV));
+		return new DefaultWritablePolygon2D(corners);
+	}
+
+	private static RealPoint corner(final double ux, final double uy,
+		final double u, final double v)
+	{
+		return new RealPoint(u * ux - v * uy, u * uy + v * ux);
+	}
+
+	private double dot(final double ux, final double uy, final int i) {
+		return x[i % n] * ux + y[i % n] * uy;
+	}
+
+	/** Twice the area of the triangle spanned by edge i and vertex j. */
+	private double height(final int i, final double ex, final double ey,
+		final int j)
+	{
+		return Math.abs(ex * (y[j % n] - y[i]) - ey * (x[j % n] - x[i]));
+	}
+
+	private double signedArea() {
+		double area = 0;
+		for (int i = 0; i < n; i++) {
+			final int i1 = (i + 1) % n;
+			area += x[i] * y[i1] - x[i1] * y[i];
+		}
+		return area / 2;
+	}
+
+	private RealPoint point(final int i) {
+		return new RealPoint(x[i], y[i]);
+	}
+
+	/** Same as {@link DefaultFeretsDiameter}. */
+	private static double diameter(final RealLocalizable p1,
+		final RealLocalizable p2)
+	{
+		return Math.hypot(p1.getDoublePosition(0) - p2.getDoublePosition(0), p1
+			.getDoublePosition(1) - p2.getDoublePosition(1));
+	}
+
+	/** Same as {@link DefaultFeretsAngle}. */
+	private static double angle(final RealLocalizable p1,
+		final RealLocalizable p2)
+	{
+		final double degree = Math.atan2(p2.getDoublePosition(1) - p1
+			.getDoublePosition(1), p2.getDoublePosition(0) - p1.getDoublePosition(
+				0)) * (180.0 / Math.PI);
+		return degree % 180;
+	}
+
+}
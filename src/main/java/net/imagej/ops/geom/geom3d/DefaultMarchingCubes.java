@@ -26,9 +26,13 @@
  * POSSIBILITY OF SUCH DAMAGE.
  * #L%
  */
-
 package net.imagej.ops.geom.geom3d;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
 import net.imagej.mesh.Mesh;
 import net.imagej.mesh.naive.NaiveDoubleMesh;
 import net.imagej.ops.Contingent;
@@ -36,23 +40,33 @@ import net.imagej.ops.Ops;
 import net.imagej.ops.geom.geom3d.mesh.DefaultVertexInterpolator;
 import net.imagej.ops.geom.geom3d.mesh.VertexInterpolator;
 import net.imagej.ops.special.function.AbstractUnaryFunctionOp;
-import net.imglib2.Cursor;
-import net.imglib2.FinalInterval;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imglib2.RandomAccess;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.type.BooleanType;
-import net.imglib2.type.logic.BoolType;
-import net.imglib2.view.ExtendedRandomAccessibleInterval;
-import net.imglib2.view.Views;
 
 import org.apache.commons.math3.util.MathArrays;
 import org.scijava.ItemIO;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
+import org.scijava.util.DoubleArray;
+import org.scijava.util.IntArray;
 
 /**
  * This is a marching cubes implementation. It is inspired by Paul Bourke's
  * (http://paulbourke.net/geometry/polygonise/) implementation. Especially the
  * lookup tables are from his implementation.
+ * <p>
+ * The volume is split into slabs along the z-axis, which are processed in
+ * parallel, each with its own copy of the {@link VertexInterpolator} (see
+ * {@link VertexInterpolator#getIndependentInstance()}); an interpolator which
+ * cannot be copied marches the whole volume on the calling thread. Each slab
+ * samples the input one plane at a time into reusable buffers and caches the
+ * vertex of every intersected edge, so that adjacent cubes share their
+ * vertices. Only the vertices on the first and last plane of each slab are
+ * kept after it is marched; the slabs are merged, in order, into a single
+ * indexed mesh.
+ * </p>
  * 
  * @author Tim-Oliver Buchholz (University of Konstanz)
  * @param <T> BooleanType
@@ -63,6 +77,9 @@ public class DefaultMarchingCubes<T extends BooleanType<T>> extends
 	Ops.Geometric.MarchingCubes, Contingent
 {
 
+	/** Minimum number of cube layers per slab. */
+	private static final int SLAB_SIZE = 16;
+
 	@Parameter(type = ItemIO.INPUT, required = false)
 	private double isolevel = 1;
 
@@ -70,126 +87,255 @@ public class DefaultMarchingCubes<T extends BooleanType<T>> extends
 	private VertexInterpolator interpolatorClass =
 		new DefaultVertexInterpolator();
 
-	@SuppressWarnings({ "unchecked" })
 	@Override
 	public Mesh calculate(final RandomAccessibleInterval<T> input) {
-		Mesh output = new NaiveDoubleMesh();
-		ExtendedRandomAccessibleInterval<T, RandomAccessibleInterval<T>> extended =
-			Views.extendValue(input, (T) new BoolType(false));
-		Cursor<T> c = Views.interval(extended, new FinalInterval(new long[] { input
-			.min(0) - 1, input.min(1) - 1, input.min(2) - 1 }, new long[] { input.max(
-				0) + 1, input.max(1) + 1, input.max(2) + 1 })).localizingCursor();
-
-		while (c.hasNext()) {
-			c.next();
-
-			int cursorX = c.getIntPosition(0);
-			int cursorY = c.getIntPosition(1);
-			int cursorZ = c.getIntPosition(2);
-			Cursor<T> cu = getCube(extended, cursorX, cursorY, cursorZ);
-			int i = 0;
-			double[] vertex_values = new double[8];
-			while (cu.hasNext()) {
-				vertex_values[i++] = (cu.next().get()) ? 1 : 0;
-			}
-			// 6------7
-			// /| /|
-			// 2-----3 |
-			// | 4---|-5
-			// |/ |/
-			// 0-----1
-			vertex_values = mapFlatIterableToLookUpCube(vertex_values);
-			// 4------5
-			// /| /|
-			// 7-----6 |
-			// | 0---|-1
-			// |/ |/
-			// 3-----2
-			int cubeindex = getCubeIndex(vertex_values);
-
-			if (EDGE_TABLE[cubeindex] != 0) {
-				int[] p0 = new int[] { 0 + cursorX, 0 + cursorY, 1 + cursorZ };
-				int[] p1 = new int[] { 1 + cursorX, 0 + cursorY, 1 + cursorZ };
-				int[] p2 = new int[] { 1 + cursorX, 0 + cursorY, 0 + cursorZ };
-				int[] p3 = new int[] { 0 + cursorX, 0 + cursorY, 0 + cursorZ };
-				int[] p4 = new int[] { 0 + cursorX, 1 + cursorY, 1 + cursorZ };
-				int[] p5 = new int[] { 1 + cursorX, 1 + cursorY, 1 + cursorZ };
-				int[] p6 = new int[] { 1 + cursorX, 1 + cursorY, 0 + cursorZ };
-				int[] p7 = new int[] { 0 + cursorX, 1 + cursorY, 0 + cursorZ };
-
-				double[][] vertlist = new double[12][];
-
-				/* Find the vertices where the surface intersects the cube */
-				if (0 != (EDGE_TABLE[cubeindex] & 1)) {
-					vertlist[0] = interpolatePoint(p0, p1, vertex_values[0],
-						vertex_values[1]);
-				}
-				if (0 != (EDGE_TABLE[cubeindex] & 2)) {
-					vertlist[1] = interpolatePoint(p1, p2, vertex_values[1],
-						vertex_values[2]);
-				}
-				if (0 != (EDGE_TABLE[cubeindex] & 4)) {
-					vertlist[2] = interpolatePoint(p2, p3, vertex_values[2],
-						vertex_values[3]);
-				}
-				if (0 != (EDGE_TABLE[cubeindex] & 8)) {
-					vertlist[3] = interpolatePoint(p3, p0, vertex_values[3],
-						vertex_values[0]);
-				}
-				if (0 != (EDGE_TABLE[cubeindex] & 16)) {
-					vertlist[4] = interpolatePoint(p4, p5, vertex_values[4],
-						vertex_values[5]);
-				}
-				if (0 != (EDGE_TABLE[cubeindex] & 32)) {
-					vertlist[5] = interpolatePoint(p5, p6, vertex_values[5],
-						vertex_values[6]);
-				}
-				if (0 != (EDGE_TABLE[cubeindex] & 64)) {
-					vertlist[6] = interpolatePoint(p6, p7, vertex_values[6],
-						vertex_values[7]);
-				}
-				if (0 != (EDGE_TABLE[cubeindex] & 128)) {
-					vertlist[7] = interpolatePoint(p7, p4, vertex_values[7],
-						vertex_values[4]);
-				}
-				if (0 != (EDGE_TABLE[cubeindex] & 256)) {
-					vertlist[8] = interpolatePoint(p0, p4, vertex_values[0],
-						vertex_values[4]);
-				}
-				if (0 != (EDGE_TABLE[cubeindex] & 512)) {
-					vertlist[9] = interpolatePoint(p1, p5, vertex_values[1],
-						vertex_values[5]);
-				}
-				if (0 != (EDGE_TABLE[cubeindex] & 1024)) {
-					vertlist[10] = interpolatePoint(p2, p6, vertex_values[2],
-						vertex_values[6]);
+		// NB: The cubes extend one voxel beyond the input on each side.
+		final int numLayers = (int) input.dimension(2) + 2;
+		if (interpolatorClass.getIndependentInstance() == null) {
+			// NB: The interpolator cannot be copied, so march the whole volume
+			// with it on this thread.
+			return merge(Collections.singletonList(march(input, interpolatorClass, 0,
+				numLayers)));
+		}
+		final Map<Integer, Slab> slabs = new ConcurrentSkipListMap<>();
+		ops().thread().chunker(new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final VertexInterpolator interpolator = interpolatorClass
+					.getIndependentInstance();
+				if (stepSize == 1) {
+					slabs.put(startIndex, march(input, interpolator, startIndex,
+						numSteps));
+					return;
 				}
-				if (0 != (EDGE_TABLE[cubeindex] & 2048)) {
-					vertlist[11] = interpolatePoint(p3, p7, vertex_values[3],
-						vertex_values[7]);
+				for (int i = 0; i < numSteps; i++) {
+					final int layer = startIndex + i * stepSize;
+					slabs.put(layer, march(input, interpolator, layer, 1));
 				}
+			}
+		}, numLayers, SLAB_SIZE);
+		return merge(slabs.values());
+	}
 
-				/* Create the triangle */
-				for (i = 0; TRIANGLE_TABLE[cubeindex][i] != -1; i += 3) {
-					final double v0x = vertlist[TRIANGLE_TABLE[cubeindex][i + 2]][0];
-					final double v0y = vertlist[TRIANGLE_TABLE[cubeindex][i + 2]][1];
-					final double v0z = vertlist[TRIANGLE_TABLE[cubeindex][i + 2]][2];
-					final double v1x = vertlist[TRIANGLE_TABLE[cubeindex][i + 1]][0];
-					final double v1y = vertlist[TRIANGLE_TABLE[cubeindex][i + 1]][1];
-					final double v1z = vertlist[TRIANGLE_TABLE[cubeindex][i + 1]][2];
-					final double v2x = vertlist[TRIANGLE_TABLE[cubeindex][i]][0];
-					final double v2y = vertlist[TRIANGLE_TABLE[cubeindex][i]][1];
-					final double v2z = vertlist[TRIANGLE_TABLE[cubeindex][i]][2];
-					if (positiveArea(v0x, v0y, v0z, v1x, v1y, v1z, v2x, v2y, v2z)) {
-						output.triangles().add(v0x, v0y, v0z, v1x, v1y, v1z, v2x, v2y, v2z);
+	// -- Helper methods --
+
+	/**
+	 * Computes the vertices and triangles of the given range of cube layers.
+	 */
+	private Slab march(final RandomAccessibleInterval<T> input,
+		final VertexInterpolator interpolator, final int firstLayer,
+		final int numLayers)
+	{
+		final int nx = (int) input.dimension(0) + 3;
+		final int ny = (int) input.dimension(1) + 3;
+		final int planeSize = nx * ny;
+		final int minX = (int) input.min(0) - 1;
+		final int minY = (int) input.min(1) - 1;
+		final int minZ = (int) input.min(2) - 1;
+
+		final Slab slab = new Slab();
+		final RandomAccess<T> ra = input.randomAccess();
+		boolean[] bottom = new boolean[planeSize];
+		boolean[] top = new boolean[planeSize];
+		final int[][] caches = new int[5][planeSize];
+
+		final int[] cornerOffsets = new int[8];
+		for (int k = 0; k < 8; k++) {
+			cornerOffsets[k] = CORNERS[k][1] * nx + CORNERS[k][0];
+		}
+		final int[] edgeOffsets = new int[12];
+		for (int e = 0; e < 12; e++) {
+			edgeOffsets[e] = EDGE_CACHES[e][2] * nx + EDGE_CACHES[e][1];
+		}
+		final double[] values = new double[8];
+		final int[] vertices = new int[12];
+		final int[] p0 = new int[3];
+		final int[] p1 = new int[3];
+
+		sample(input, ra, minZ + firstLayer, bottom);
+		for (int layer = firstLayer; layer < firstLayer + numLayers; layer++) {
+			if (layer > firstLayer) {
+				final boolean[] swap = bottom;
+				bottom = top;
+				top = swap;
+				advance(caches, X_CACHE);
+				advance(caches, Y_CACHE);
+				Arrays.fill(caches[Z_CACHE], 0);
+			}
+			final int z = minZ + layer;
+			sample(input, ra, z + 1, top);
+
+			for (int gy = 0; gy < ny - 1; gy++) {
+				for (int gx = 0; gx < nx - 1; gx++) {
+					final int i = gy * nx + gx;
+					int cubeindex = 0;
+					for (int k = 0; k < 8; k++) {
+						final boolean[] plane = CORNERS[k][2] == 0 ? bottom : top;
+						values[k] = plane[i + cornerOffsets[k]] ? 1 : 0;
+						if (values[k] < isolevel) cubeindex |= 1 << k;
+					}
+					final int edges = EDGE_TABLE[cubeindex];
+					if (edges == 0) continue;
+
+					/* Find the vertices where the surface intersects the cube */
+					for (int e = 0; e < 12; e++) {
+						if (0 == (edges & (1 << e))) continue;
+						final int[] cache = caches[EDGE_CACHES[e][0]];
+						final int c = i + edgeOffsets[e];
+						if (cache[c] == 0) {
+							final int c0 = EDGE_CORNERS[e][0];
+							final int c1 = EDGE_CORNERS[e][1];
+							setCorner(p0, c0, minX + gx, minY + gy, z);
+							setCorner(p1, c1, minX + gx, minY + gy, z);
+							addPoint(interpolator, slab.vertices, p0, p1, values[c0],
+								values[c1]);
+							// NB: Cached indices are 1-based, 0 denotes no vertex.
+							cache[c] = slab.vertices.size() / 3;
+						}
+						vertices[e] = cache[c] - 1;
+					}
+
+					/* Create the triangle */
+					final int[] triangles = TRIANGLE_TABLE[cubeindex];
+					for (int t = 0; triangles[t] != -1; t += 3) {
+						final int v0 = vertices[triangles[t + 2]];
+						final int v1 = vertices[triangles[t + 1]];
+						final int v2 = vertices[triangles[t]];
+						if (positiveArea(slab.vertices, v0, v1, v2)) {
+							slab.triangles.addValue(v0);
+							slab.triangles.addValue(v1);
+							slab.triangles.addValue(v2);
+						}
 					}
 				}
 			}
+
+			// NB: The edges on the first plane belong to the first layer only.
+			if (layer == firstLayer) {
+				slab.firstX = new Boundary(caches[X_CACHE]);
+				slab.firstY = new Boundary(caches[Y_CACHE]);
+			}
+		}
+		slab.lastX = new Boundary(caches[X_CACHE + 1]);
+		slab.lastY = new Boundary(caches[Y_CACHE + 1]);
+		return slab;
+	}
+
+	/**
+	 * Moves the edge cache of the top plane to the bottom and clears the cache
+	 * of the new top plane.
+	 */
+	private static void advance(final int[][] caches, final int bottom) {
+		final int[] old = caches[bottom];
+		caches[bottom] = caches[bottom + 1];
+		caches[bottom + 1] = old;
+		Arrays.fill(old, 0);
+	}
+
+	/**
+	 * Reads the given plane of the input, padded with one voxel of background
+	 * before and two voxels after the input in x and y.
+	 */
+	private static <T extends BooleanType<T>> void sample(
+		final RandomAccessibleInterval<T> input, final RandomAccess<T> ra,
+		final long z, final boolean[] values)
+	{
+		Arrays.fill(values, false);
+		if (z < input.min(2) || z > input.max(2)) return;
+		final int nx = (int) input.dimension(0) + 3;
+		final int width = (int) input.dimension(0);
+		final int height = (int) input.dimension(1);
+		for (int y = 0; y < height; y++) {
+			ra.setPosition(input.min(0), 0);
+			ra.setPosition(input.min(1) + y, 1);
+			ra.setPosition(z, 2);
+			int i = (y + 1) * nx + 1;
+			for (int x = 0; x < width; x++) {
+				values[i++] = ra.get().get();
+				ra.fwd(0);
+			}
+		}
+	}
+
+	private static void setCorner(final int[] p, final int corner, final int x,
+		final int y, final int z)
+	{
+		p[0] = x + CORNERS[corner][0];
+		p[1] = y + CORNERS[corner][1];
+		p[2] = z + CORNERS[corner][2];
+	}
+
+	/**
+	 * Concatenates the slabs into one mesh. Vertices on the plane between two
+	 * slabs are computed by both of them and added only once, vertices which
+	 * are not part of any triangle are skipped.
+	 */
+	private static Mesh merge(final Iterable<Slab> slabs) {
+		final Mesh output = new NaiveDoubleMesh();
+		Slab previous = null;
+		long[] previousIndices = null;
+		for (final Slab slab : slabs) {
+			final long[] indices = new long[slab.vertices.size() / 3];
+			Arrays.fill(indices, -1);
+			if (previous != null) {
+				share(previous.lastX, previousIndices, slab.firstX, indices);
+				share(previous.lastY, previousIndices, slab.firstY, indices);
+			}
+			final IntArray triangles = slab.triangles;
+			for (int t = 0; t < triangles.size(); t += 3) {
+				final long v0 = index(output, slab, indices, triangles.getValue(t));
+				final long v1 = index(output, slab, indices, triangles.getValue(t + 1));
+				final long v2 = index(output, slab, indices, triangles.getValue(t + 2));
+				output.triangles().add(v0, v1, v2);
+			}
+			previous = slab;
+			previousIndices = indices;
 		}
 		return output;
 	}
 
-	private boolean positiveArea(double v0x, double v0y, double v0z, //
+	private static void share(final Boundary previous,
+		final long[] previousIndices, final Boundary boundary,
+		final long[] indices)
+	{
+		int i = 0;
+		int j = 0;
+		while (i < previous.positions.length && j < boundary.positions.length) {
+			final int a = previous.positions[i];
+			final int b = boundary.positions[j];
+			if (a == b) {
+				indices[boundary.vertices[j]] = previousIndices[previous.vertices[i]];
+			}
+			if (a <= b) i++;
+			if (b <= a) j++;
+		}
+	}
+
+	private static long index(final Mesh output, final Slab slab,
+		final long[] indices, final int v)
+	{
+		if (indices[v] < 0) {
+			final DoubleArray vertices = slab.vertices;
+			indices[v] = output.vertices().add(vertices.getValue(3 * v), vertices
+				.getValue(3 * v + 1), vertices.getValue(3 * v + 2));
+		}
+		return indices[v];
+	}
+
+	private static boolean positiveArea(final DoubleArray vertices,
+		final int v0, final int v1, final int v2)
+	{
+		return positiveArea(vertices.getValue(3 * v0), vertices.getValue(3 * v0 +
+			1), vertices.getValue(3 * v0 + 2), vertices.getValue(3 * v1), vertices
+				.getValue(3 * v1 + 1), vertices.getValue(3 * v1 + 2), vertices
+					.getValue(3 * v2), vertices.getValue(3 * v2 + 1), vertices.getValue(
+						3 * v2 + 2));
+	}
+
+	private static boolean positiveArea(double v0x, double v0y, double v0z, //
 		double v1x, double v1y, double v1z, //
 		double v2x, double v2y, double v2z)
 	{
@@ -208,49 +354,93 @@ public class DefaultMarchingCubes<T extends BooleanType<T>> extends
 		return cpx != 0 || cpy != 0 || cpz != 0;
 	}
 
-	private double[] interpolatePoint(int[] p0, int[] p1, double v0, double v1) {
-		interpolatorClass.setPoint1(p0);
-		interpolatorClass.setPoint2(p1);
-		interpolatorClass.setValue1(v0);
-		interpolatorClass.setValue2(v1);
-		interpolatorClass.setIsoLevel(isolevel);
-		interpolatorClass.run();
+	private void addPoint(final VertexInterpolator interpolator,
+		final DoubleArray vertices, final int[] p0, final int[] p1,
+		final double v0, final double v1)
+	{
+		interpolator.setPoint1(p0);
+		interpolator.setPoint2(p1);
+		interpolator.setValue1(v0);
+		interpolator.setValue2(v1);
+		interpolator.setIsoLevel(isolevel);
+		interpolator.run();
+
+		final double[] point = interpolator.getOutput();
+		vertices.addValue(point[0]);
+		vertices.addValue(point[1]);
+		vertices.addValue(point[2]);
+	}
+
+	// -- Helper classes --
+
+	/** The vertices and triangles of a range of cube layers. */
+	private static class Slab {
+
+		private final DoubleArray vertices = new DoubleArray();
+
+		private final IntArray triangles = new IntArray();
+
+		/** Vertices of the edges on the first plane of the slab. */
+		private Boundary firstX;
+		private Boundary firstY;
 
-		return interpolatorClass.getOutput();
+		/** Vertices of the edges on the last plane of the slab. */
+		private Boundary lastX;
+		private Boundary lastY;
 	}
 
-	private int getCubeIndex(final double[] vertex_values) {
-		int cubeindex = 0;
-		for (int i = 0; i < 8; i++) {
-			if (vertex_values[i] < isolevel) {
-				cubeindex |= (int) Math.pow(2, i);
+	/** The vertices of the edges in one cache of a plane bounding a slab. */
+	private static class Boundary {
+
+		/** Ascending cache positions of the edges which have a vertex. */
+		private final int[] positions;
+
+		/** Slab vertex indices of these edges. */
+		private final int[] vertices;
+
+		public Boundary(final int[] cache) {
+			int n = 0;
+			for (final int v : cache) {
+				if (v != 0) n++;
+			}
+			positions = new int[n];
+			vertices = new int[n];
+			n = 0;
+			for (int c = 0; c < cache.length; c++) {
+				if (cache[c] == 0) continue;
+				positions[n] = c;
+				vertices[n++] = cache[c] - 1;
 			}
 		}
-		return cubeindex;
 	}
 
-	private double[] mapFlatIterableToLookUpCube(final double[] vertex_values) {
-		double[] vv = new double[8];
-		vv[0] = vertex_values[4];
-		vv[1] = vertex_values[5];
-		vv[2] = vertex_values[1];
-		vv[3] = vertex_values[0];
-		vv[4] = vertex_values[6];
-		vv[5] = vertex_values[7];
-		vv[6] = vertex_values[3];
-		vv[7] = vertex_values[2];
-		
-		return vv;
-	}
+	// Cube corners, as offsets from the cube origin:
+	// 4------5
+	// /| /|
+	// 7-----6 |
+	// | 0---|-1
+	// |/ |/
+	// 3-----2
+	private static final int[][] CORNERS = { { 0, 0, 1 }, { 1, 0, 1 }, { 1, 0,
+		0 }, { 0, 0, 0 }, { 0, 1, 1 }, { 1, 1, 1 }, { 1, 1, 0 }, { 0, 1, 0 } };
 
-	private Cursor<T> getCube(
-		final ExtendedRandomAccessibleInterval<T, RandomAccessibleInterval<T>> extended,
-		final int cursorX, final int cursorY, final int cursorZ)
-	{
-		return Views.flatIterable(Views.interval(extended, new FinalInterval(
-			new long[] { cursorX, cursorY, cursorZ }, new long[] { cursorX + 1,
-				cursorY + 1, cursorZ + 1 }))).cursor();
-	}
+	// The two corners of each cube edge.
+	private static final int[][] EDGE_CORNERS = { { 0, 1 }, { 1, 2 }, { 2, 3 },
+		{ 3, 0 }, { 4, 5 }, { 5, 6 }, { 6, 7 }, { 7, 4 }, { 0, 4 }, { 1, 5 }, { 2,
+			6 }, { 3, 7 } };
+
+	// Edge caches: x-edges of the bottom and top plane, y-edges of the bottom
+	// and top plane and the z-edges between them.
+	private static final int X_CACHE = 0;
+	private static final int Y_CACHE = 2;
+	private static final int Z_CACHE = 4;
+
+	// The cache of each cube edge and the x and y offset of its entry.
+	private static final int[][] EDGE_CACHES = { { X_CACHE + 1, 0, 0 }, {
+		Z_CACHE, 1, 0 }, { X_CACHE, 0, 0 }, { Z_CACHE, 0, 0 }, { X_CACHE + 1, 0,
+			1 }, { Z_CACHE, 1, 1 }, { X_CACHE, 0, 1 }, { Z_CACHE, 0, 1 }, { Y_CACHE +
+				1, 0, 0 }, { Y_CACHE + 1, 1, 0 }, { Y_CACHE, 1, 0 }, { Y_CACHE, 0,
+					0 } };
 
 	// For any edge, if one vertex is inside of the surface and the other is
 	// outside of the surface
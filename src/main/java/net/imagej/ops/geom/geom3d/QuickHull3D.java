@@ -0,0 +1,657 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.geom.geom3d;
+
+import java.util.Arrays;
+
+import net.imagej.mesh.Mesh;
+import net.imagej.mesh.naive.NaiveDoubleMesh;
+import net.imagej.ops.OpEnvironment;
+import net.imagej.ops.thread.chunker.Chunk;
+
+import org.apache.commons.math3.util.MathArrays;
+import org.scijava.util.IntArray;
+
+/**
+ * Quickhull on primitive arrays, used by {@link DefaultConvexHull3D}.
+ * <p>
+ * Points are stored as packed x, y, z triples and referenced by index. The
+ * vertices and neighbors of facet {@code f} are stored at {@code 3 * f + k},
+ * where neighbor {@code k} is adjacent at the edge from vertex {@code k - 1}
+ * to vertex {@code k}. The points in front of a facet are linked through
+ * {@link #nextInFront}, starting with the point farthest away.
+ * </p>
+ */
+final class QuickHull3D {
+
+	/** Precision of a double. */
+	private static final double DOUBLE_PREC = 2.2204460492503131e-16;
+
+	/** Minimum number of points per chunk of the initial partitioning. */
+	private static final int PARTITION_GRAIN = 4096;
+
+	private final double[] coords;
+	private final int numPoints;
+	private double eps;
+
+	private int numFacets;
+	private int[] facetVertices = new int[3 * 64];
+	private int[] facetNeighbors = new int[3 * 64];
+	private double[] normals = new double[3 * 64];
+	private double[] planes = new double[4 * 64];
+	private boolean[] alive = new boolean[64];
+	private boolean[] queued = new boolean[64];
+	private int[] firstInFront = new int[64];
+	private int[] lastInFront = new int[64];
+
+	private final int[] nextInFront;
+	private final double[] distanceInFront;
+
+	/** Facets with points in front, in the order they are processed. */
+	private final IntArray pending = new IntArray();
+	private int pendingIndex;
+
+	/** Points which have to be assigned to the facets of the next cone. */
+	private final IntArray unassigned = new IntArray();
+
+	/** Vertices and neighbors of the polygon seen from the current apex. */
+	private final IntArray horizonVertices = new IntArray();
+	private final IntArray horizonNeighbors = new IntArray();
+
+	/**
+	 * @param coords packed x, y, z coordinates of distinct points
+	 */
+	QuickHull3D(final double[] coords) {
+		this.coords = coords;
+		numPoints = coords.length / 3;
+		nextInFront = new int[numPoints];
+		distanceInFront = new double[numPoints];
+	}
+
+	/**
+	 * Computes the convex hull. The initial partitioning of the points is
+	 * distributed with the chunker of the given {@link OpEnvironment}.
+	 */
+	void compute(final OpEnvironment ops) {
+		if (numPoints < 4) {
+			throw new IllegalArgumentException(
+				"At least four points are required: " + numPoints);
+		}
+		createSimplex(ops);
+		while (pendingIndex < pending.size()) {
+			final int facet = pending.getValue(pendingIndex++);
+			// NB: Facets merged into a horizon stay in the queue.
+			if (!queued[facet]) continue;
+			queued[facet] = false;
+			replaceFacet(facet);
+		}
+	}
+
+	/** Gets the epsilon value used for the visibility tests. */
+	double getEpsilon() {
+		return eps;
+	}
+
+	/** Creates a mesh of the hull facets in order of their creation. */
+	Mesh toMesh() {
+		final Mesh output = new NaiveDoubleMesh();
+		final long[] indices = new long[numPoints];
+		Arrays.fill(indices, -1);
+		final long[] v = new long[3];
+		for (int f = 0; f < numFacets; f++) {
+			if (!alive[f]) continue;
+			for (int k = 0; k < 3; k++) {
+				final int p = facetVertices[3 * f + k];
+				if (indices[p] < 0) {
+					indices[p] = output.vertices().add(coords[3 * p], coords[3 * p + 1],
+						coords[3 * p + 2]);
+				}
+				v[k] = indices[p];
+			}
+			output.triangles().add(v[0], v[1], v[2], normals[3 * f],
+				normals[3 * f + 1], normals[3 * f + 2]);
+		}
+		return output;
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Computes an initial simplex of four facets. The simplex consists of the
+	 * four points v0-v3. v0 and v1 have the largest possible distance in one
+	 * dimension. v2 is the point with the largest distance to v0----v1. v3 is
+	 * the point with the largest distance to the plane described by v0, v1, v2.
+	 * All other points are then assigned to the facets of the simplex.
+	 */
+	private void createSimplex(final OpEnvironment ops) {
+		final int[] minMax = computeMinMax();
+		final int i = getMaxDistPointIndex(minMax);
+		final int v0 = minMax[i];
+		int v1 = minMax[i + 3];
+		int v2 = getV2(v0, v1);
+		final int v3 = v2 < 0 ? -1 : getV3(v0, v1, v2);
+		if (v3 < 0) {
+			throw new IllegalArgumentException("The points are coplanar");
+		}
+
+		final int f0 = newFacet(v0, v1, v2);
+		if (distanceToPlane(f0, v3) > eps) {
+			// change triangle orientation to counter clockwise
+			final int tmp = v1;
+			v1 = v2;
+			v2 = tmp;
+			setFacet(f0, v0, v1, v2);
+		}
+		final int f1 = newFacet(v1, v0, v3);
+		final int f2 = newFacet(v2, v1, v3);
+		final int f3 = newFacet(v0, v2, v3);
+		setNeighbors(f0, f3, f1, f2);
+		setNeighbors(f1, f2, f0, f3);
+		setNeighbors(f2, f3, f0, f1);
+		setNeighbors(f3, f1, f0, f2);
+
+		// find the facet of each point in parallel, then link them in order
+		final int[] facetOf = new int[numPoints];
+		ops.thread().chunker(new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				for (int s = 0, p = startIndex; s < numSteps; s++, p += stepSize) {
+					int maxFacet = -1;
+					double maxdis = eps;
+					for (int f = f0; f <= f3; f++) {
+						final double distance = distanceToPlane(f, p);
+						if (distance > maxdis) {
+							maxdis = distance;
+							maxFacet = f;
+						}
+					}
+					facetOf[p] = maxFacet;
+					distanceInFront[p] = maxdis;
+				}
+			}
+		}, numPoints, PARTITION_GRAIN);
+		for (int p = 0; p < numPoints; p++) {
+			if (p == v0 || p == v1 || p == v2 || p == v3) continue;
+			if (facetOf[p] >= 0) addInFront(facetOf[p], p, distanceInFront[p]);
+		}
+	}
+
+	/**
+	 * Replaces a facet with at least three new facets.
+	 * 
+	 * @param facet the facet to replace. At least one point must be in front of
+	 *          it.
+	 */
+	private void replaceFacet(final int facet) {
+		final int vTop = firstInFront[facet];
+		firstInFront[facet] = nextInFront[vTop];
+		unassigned.clear();
+		computeHorizon(facet, vTop);
+		final int firstNewFacet = numFacets;
+		createFacets(vTop);
+		assignPointsToFacets(firstNewFacet);
+	}
+
+	/**
+	 * Computes the horizon of vTop. The horizon is the merged polygon of all
+	 * facets which are in front of the point vTop.
+	 * 
+	 * @param frontFacet a facet which is in front of vTop
+	 * @param vTop a point outside of the convex hull
+	 */
+	private void computeHorizon(final int frontFacet, final int vTop) {
+		removeFacet(frontFacet);
+		horizonVertices.clear();
+		horizonNeighbors.clear();
+		for (int k = 0; k < 3; k++) {
+			horizonVertices.addValue(facetVertices[3 * frontFacet + k]);
+			horizonNeighbors.addValue(facetNeighbors[3 * frontFacet + k]);
+		}
+		int merge = nextFacetToMerge(vTop);
+		while (merge >= 0) {
+			removeFacet(merge);
+			updateNeighbors(frontFacet, merge);
+			if (horizonContainsAll(merge)) complexMerge(merge);
+			else simpleMerge(merge);
+			merge = nextFacetToMerge(vTop);
+		}
+	}
+
+	/**
+	 * Removes a facet from the hull. Its points in front have to be reassigned
+	 * after all new facets are constructed.
+	 */
+	private void removeFacet(final int facet) {
+		for (int p = firstInFront[facet]; p >= 0; p = nextInFront[p]) {
+			unassigned.addValue(p);
+		}
+		alive[facet] = false;
+		queued[facet] = false;
+	}
+
+	/**
+	 * After the merge step the facet merge is part of frontFacet. Therefore the
+	 * neighbors of merge must point to frontFacet and not to merge.
+	 */
+	private void updateNeighbors(final int frontFacet, final int merge) {
+		for (int k = 0; k < 3; k++) {
+			final int f = facetNeighbors[3 * merge + k];
+			if (f == frontFacet) continue;
+			for (int j = 3 * f; j < 3 * f + 3; j++) {
+				if (facetNeighbors[j] == merge) {
+					facetNeighbors[j] = frontFacet;
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a neighbor of the horizon which is in front of vTop, or -1 if no
+	 * such facet exists.
+	 */
+	private int nextFacetToMerge(final int vTop) {
+		for (int i = 0; i < horizonNeighbors.size(); i++) {
+			final int f = horizonNeighbors.getValue(i);
+			if (distanceToPlane(f, vTop) <= eps) continue;
+			// if the horizon contains all vertices of f it either is connected
+			// with two edges or one edge
+			if (horizonContainsAll(f)) {
+				final int v0 = facetVertices[3 * f];
+				final int v1 = facetVertices[3 * f + 1];
+				final int v2 = facetVertices[3 * f + 2];
+				int numEdges = 0;
+				if (horizonHasEdge(v0, v2)) numEdges++;
+				if (horizonHasEdge(v2, v1)) numEdges++;
+				if (horizonHasEdge(v1, v0)) numEdges++;
+				// NB: Such a facet is connected with two edges after all
+				// facets with two connected edges are merged.
+				if (numEdges == 1) continue;
+			}
+			// f is connected with one edge and the third vertex of f is not part
+			// of the horizon.
+			return f;
+		}
+		return -1;
+	}
+
+	/**
+	 * Merges a facet which is connected to the horizon by one edge, and whose
+	 * third vertex is not part of the horizon.
+	 */
+	private void simpleMerge(final int f) {
+		int neighborIndex = horizonNeighbors.indexOf(f);
+		int newVertex = -1;
+		for (int k = 0; k < 3; k++) {
+			if (horizonVertices.indexOf(facetVertices[3 * f + k]) < 0) {
+				newVertex = k;
+				break;
+			}
+		}
+		horizonVertices.addValue(neighborIndex, facetVertices[3 * f + newVertex]);
+		horizonNeighbors.setValue(neighborIndex, facetNeighbors[3 * f +
+			newVertex]);
+		neighborIndex = (neighborIndex + 1) % (horizonNeighbors.size() + 1);
+		newVertex = (newVertex + 1) % 3;
+		horizonNeighbors.addValue(neighborIndex, facetNeighbors[3 * f +
+			newVertex]);
+	}
+
+	/**
+	 * Merges a facet which is connected to the horizon by two consecutive
+	 * edges.
+	 */
+	private void complexMerge(final int f) {
+		final int v0 = facetVertices[3 * f];
+		final int v1 = facetVertices[3 * f + 1];
+		final int v2 = facetVertices[3 * f + 2];
+		if (horizonHasEdge(v0, v2)) {
+			if (horizonHasEdge(v1, v0)) mergeTwoAdjacentEdges(f, v0, 2);
+			else if (horizonHasEdge(v2, v1)) mergeTwoAdjacentEdges(f, v2, 1);
+		}
+		else if (horizonHasEdge(v2, v1)) {
+			if (horizonHasEdge(v0, v2)) mergeTwoAdjacentEdges(f, v2, 1);
+			else if (horizonHasEdge(v1, v0)) mergeTwoAdjacentEdges(f, v1, 0);
+		}
+		else if (horizonHasEdge(v1, v0)) {
+			if (horizonHasEdge(v2, v1)) mergeTwoAdjacentEdges(f, v1, 0);
+			else if (horizonHasEdge(v0, v2)) mergeTwoAdjacentEdges(f, v0, 2);
+		}
+	}
+
+	/**
+	 * Merges a facet with two adjacent edges into the horizon.
+	 * 
+	 * @param f the facet to merge
+	 * @param v0 the vertex of the facet which lies between the two edges
+	 * @param neighborIndex of the new outer neighbor
+	 */
+	private void mergeTwoAdjacentEdges(final int f, final int v0,
+		final int neighborIndex)
+	{
+		int i = horizonVertices.indexOf(v0);
+		horizonVertices.delete(i, 1);
+		horizonNeighbors.delete(i, 1);
+		i = i % horizonNeighbors.size();
+		horizonNeighbors.setValue(i, facetNeighbors[3 * f + neighborIndex]);
+	}
+
+	private boolean horizonContainsAll(final int f) {
+		return horizonVertices.indexOf(facetVertices[3 * f]) >= 0 &&
+			horizonVertices.indexOf(facetVertices[3 * f + 1]) >= 0 &&
+			horizonVertices.indexOf(facetVertices[3 * f + 2]) >= 0;
+	}
+
+	private boolean horizonHasEdge(final int tail, final int head) {
+		final int start = horizonVertices.indexOf(tail);
+		final int end = horizonVertices.indexOf(head);
+		if (start < 0 || end < 0) return false;
+		return (start + 1) % horizonVertices.size() == end;
+	}
+
+	/**
+	 * Adds for each edge of the horizon a new facet with apex vTop. The new
+	 * facets form a cone; triangle 0 connects the last triangle with triangle
+	 * number 1.
+	 */
+	private void createFacets(final int vTop) {
+		final int n = horizonVertices.size();
+		final int first = numFacets;
+		for (int i = 1; i <= n; i++) {
+			final int vLeft = horizonVertices.getValue(i - 1);
+			final int vRight = horizonVertices.getValue(i % n);
+			final int f = newFacet(vRight, vTop, vLeft);
+			// the neighbor at the horizon edge points back to the new facet
+			final int neighbor = horizonNeighbors.getValue(i % n);
+			for (int j = 3 * neighbor; j < 3 * neighbor + 3; j++) {
+				if (facetVertices[j] == vLeft) {
+					facetNeighbors[j] = f;
+					break;
+				}
+			}
+			facetNeighbors[3 * f] = neighbor;
+			facetNeighbors[3 * f + 1] = first + i % n;
+			facetNeighbors[3 * f + 2] = first + (i + n - 2) % n;
+		}
+	}
+
+	/**
+	 * Assigns all unassigned points to the facet, created since firstFacet, with
+	 * the maximum distance. Points which are behind all facets are on the
+	 * inside of the convex hull and are dropped.
+	 */
+	private void assignPointsToFacets(final int firstFacet) {
+		for (int i = 0; i < unassigned.size(); i++) {
+			final int p = unassigned.getValue(i);
+			int maxFacet = -1;
+			double maxdis = eps;
+			for (int f = firstFacet; f < numFacets; f++) {
+				final double distance = distanceToPlane(f, p);
+				if (distance > maxdis) {
+					maxdis = distance;
+					maxFacet = f;
+				}
+			}
+			if (maxFacet >= 0) addInFront(maxFacet, p, maxdis);
+		}
+	}
+
+	/**
+	 * Adds a point in front of a facet. The point with the maximum distance is
+	 * kept at the head of the list.
+	 */
+	private void addInFront(final int facet, final int p,
+		final double distance)
+	{
+		distanceInFront[p] = distance;
+		final int first = firstInFront[facet];
+		if (first < 0) {
+			nextInFront[p] = -1;
+			firstInFront[facet] = lastInFront[facet] = p;
+			queued[facet] = true;
+			pending.addValue(facet);
+		}
+		else if (distanceInFront[first] < distance) {
+			nextInFront[p] = first;
+			firstInFront[facet] = p;
+		}
+		else {
+			nextInFront[p] = -1;
+			nextInFront[lastInFront[facet]] = p;
+			lastInFront[facet] = p;
+		}
+	}
+
+	private int newFacet(final int v0, final int v1, final int v2) {
+		if (numFacets == alive.length) {
+			final int capacity = 2 * numFacets;
+			facetVertices = Arrays.copyOf(facetVertices, 3 * capacity);
+			facetNeighbors = Arrays.copyOf(facetNeighbors, 3 * capacity);
+			normals = Arrays.copyOf(normals, 3 * capacity);
+			planes = Arrays.copyOf(planes, 4 * capacity);
+			alive = Arrays.copyOf(alive, capacity);
+			queued = Arrays.copyOf(queued, capacity);
+			firstInFront = Arrays.copyOf(firstInFront, capacity);
+			lastInFront = Arrays.copyOf(lastInFront, capacity);
+		}
+		final int f = numFacets++;
+		setFacet(f, v0, v1, v2);
+		alive[f] = true;
+		firstInFront[f] = lastInFront[f] = -1;
+		return f;
+	}
+
+	/**
+	 * Sets the vertices of a facet and computes its normal as well as the unit
+	 * normal and offset of its plane.
+	 */
+	private void setFacet(final int f, final int v0, final int v1,
+		final int v2)
+	{
+		facetVertices[3 * f] = v0;
+		facetVertices[3 * f + 1] = v1;
+		facetVertices[3 * f + 2] = v2;
+		final double x0 = coords[3 * v0], y0 = coords[3 * v0 + 1],
+				z0 = coords[3 * v0 + 2];
+		final double x1 = coords[3 * v1], y1 = coords[3 * v1 + 1],
+				z1 = coords[3 * v1 + 2];
+		final double x2 = coords[3 * v2], y2 = coords[3 * v2 + 1],
+				z2 = coords[3 * v2 + 2];
+		final double dx1 = x1 - x0, dy1 = y1 - y0, dz1 = z1 - z0;
+		final double dx2 = x2 - x0, dy2 = y2 - y0, dz2 = z2 - z0;
+		final double nx = MathArrays.linearCombination(dy1, dz2, -dz1, dy2);
+		final double ny = MathArrays.linearCombination(dz1, dx2, -dx1, dz2);
+		final double nz = MathArrays.linearCombination(dx1, dy2, -dy1, dx2);
+		normals[3 * f] = nx;
+		normals[3 * f + 1] = ny;
+		normals[3 * f + 2] = nz;
+
+		final double s = 1 / Math.sqrt(nx * nx + ny * ny + nz * nz);
+		final double ux = s * nx, uy = s * ny, uz = s * nz;
+		final double third = 1 / 3d;
+		planes[4 * f] = ux;
+		planes[4 * f + 1] = uy;
+		planes[4 * f + 2] = uz;
+		planes[4 * f + 3] = MathArrays.linearCombination(ux, third * (x0 + x1 +
+			x2), uy, third * (y0 + y1 + y2), uz, third * (z0 + z1 + z2));
+	}
+
+	private void setNeighbors(final int f, final int n0, final int n1,
+		final int n2)
+	{
+		facetNeighbors[3 * f] = n0;
+		facetNeighbors[3 * f + 1] = n1;
+		facetNeighbors[3 * f + 2] = n2;
+	}
+
+	/** Computes the signed distance from point p to the plane of facet f. */
+	private double distanceToPlane(final int f, final int p) {
+		return MathArrays.linearCombination(planes[4 * f], coords[3 * p],
+			planes[4 * f + 1], coords[3 * p + 1], planes[4 * f + 2], coords[3 * p +
+				2]) - planes[4 * f + 3];
+	}
+
+	/**
+	 * Finds the point with the largest distance to the plane described by v0,
+	 * v1, v2, or -1 if all points lie within epsilon of the plane.
+	 */
+	private int getV3(final int v0, final int v1, final int v2) {
+		final double x0 = coords[3 * v0], y0 = coords[3 * v0 + 1],
+				z0 = coords[3 * v0 + 2];
+		final double dx1 = coords[3 * v1] - x0, dy1 = coords[3 * v1 + 1] - y0,
+				dz1 = coords[3 * v1 + 2] - z0;
+		final double dx2 = coords[3 * v2] - x0, dy2 = coords[3 * v2 + 1] - y0,
+				dz2 = coords[3 * v2 + 2] - z0;
+		final double nx = MathArrays.linearCombination(dy1, dz2, -dz1, dy2);
+		final double ny = MathArrays.linearCombination(dz1, dx2, -dx1, dz2);
+		final double nz = MathArrays.linearCombination(dx1, dy2, -dy1, dx2);
+		final double s = 1 / Math.sqrt(nx * nx + ny * ny + nz * nz);
+		final double ux = s * nx, uy = s * ny, uz = s * nz;
+
+		double distPlanePoint = eps;
+		int v3 = -1;
+		for (int p = 0; p < numPoints; p++) {
+			if (p == v0 || p == v1 || p == v2) continue;
+			final double d = Math.abs(MathArrays.linearCombination(ux, coords[3 *
+				p] - x0, uy, coords[3 * p + 1] - y0, uz, coords[3 * p + 2] - z0));
+			if (d > distPlanePoint) {
+				distPlanePoint = d;
+				v3 = p;
+			}
+		}
+		return v3;
+	}
+
+	/**
+	 * Finds the point with the largest distance to the line described by v0,
+	 * v1, or -1 if all points lie within epsilon of the line.
+	 */
+	private int getV2(final int v0, final int v1) {
+		// v0 -------------------------------------v1
+		// |
+		// | d
+		// |
+		// * v
+		//
+		// d = |(v - v0) x (v - v1)| / |(v1 - v0)|
+		// We can omit the common denominator because it does not change over
+		// all computations.
+		double distLinePoint = eps;
+		int v2 = -1;
+		for (int p = 0; p < numPoints; p++) {
+			if (p == v0 || p == v1) continue;
+			final double x = coords[3 * p], y = coords[3 * p + 1],
+					z = coords[3 * p + 2];
+			final double ax = x - coords[3 * v1], ay = y - coords[3 * v1 + 1],
+					az = z - coords[3 * v1 + 2];
+			final double bx = x - coords[3 * v0], by = y - coords[3 * v0 + 1],
+					bz = z - coords[3 * v0 + 2];
+			final double cx = MathArrays.linearCombination(ay, bz, -az, by);
+			final double cy = MathArrays.linearCombination(az, bx, -ax, bz);
+			final double cz = MathArrays.linearCombination(ax, by, -ay, bx);
+			final double lengthSq = cx * cx + cy * cy + cz * cz;
+			if (lengthSq > distLinePoint) {
+				distLinePoint = lengthSq;
+				v2 = p;
+			}
+		}
+		return v2;
+	}
+
+	/**
+	 * Computes the index of the dimension containing the points with the
+	 * largest distance.
+	 */
+	private int getMaxDistPointIndex(final int[] minMax) {
+		double max = 0;
+		int imax = 0;
+		for (int d = 0; d < 3; d++) {
+			final double diff = coords[3 * minMax[d + 3] + d] - coords[3 *
+				minMax[d] + d];
+			if (diff > max) {
+				max = diff;
+				imax = d;
+			}
+		}
+		return imax;
+	}
+
+	/**
+	 * Finds for each dimension the min and max point and computes epsilon.
+	 * 
+	 * @return indices of the min and max points of each dimension
+	 */
+	private int[] computeMinMax() {
+		final int[] minMax = new int[6];
+		double minX = coords[0], maxX = minX;
+		double minY = coords[1], maxY = minY;
+		double minZ = coords[2], maxZ = minZ;
+		for (int p = 1; p < numPoints; p++) {
+			final double x = coords[3 * p], y = coords[3 * p + 1],
+					z = coords[3 * p + 2];
+			if (x > maxX) {
+				maxX = x;
+				minMax[3] = p;
+			}
+			else if (x < minX) {
+				minX = x;
+				minMax[0] = p;
+			}
+			if (y > maxY) {
+				maxY = y;
+				minMax[4] = p;
+			}
+			else if (y < minY) {
+				minY = y;
+				minMax[2] = p;
+			}
+			if (z > maxZ) {
+				maxZ = z;
+				minMax[5] = p;
+			}
+			else if (z < minZ) {
+				minZ = z;
+				minMax[3] = p;
+			}
+		}
+
+		// This epsilon formula comes from John Lloyd's quickhull
+		// implementation http://www.cs.ubc.ca/~lloyd/java/quickhull3d.html
+		eps = 3 * DOUBLE_PREC * (Math.max(Math.abs(maxX), Math.abs(minX)) + Math
+			.max(Math.abs(maxY), Math.abs(minY)) + Math.max(Math.abs(maxZ), Math
+				.abs(minZ)));
+		return minMax;
+	}
+
+}
@@ -57,4 +57,13 @@ public class BitTypeVertexInterpolator extends AbstractVertexInterpolator
 		// nothing to do
 	}
 
+	@Override
+	public BitTypeVertexInterpolator getIndependentInstance() {
+		// NB: Subclasses may have configuration of their own.
+		if (getClass() != BitTypeVertexInterpolator.class) return null;
+		final BitTypeVertexInterpolator instance = new BitTypeVertexInterpolator();
+		instance.setEnvironment(ops());
+		return instance;
+	}
+
 }
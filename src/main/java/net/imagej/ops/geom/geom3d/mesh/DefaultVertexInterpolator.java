@@ -78,4 +78,14 @@ public class DefaultVertexInterpolator extends AbstractVertexInterpolator
 		isolevel = d;
 	}
 
+	@Override
+	public DefaultVertexInterpolator getIndependentInstance() {
+		// NB: Subclasses may have configuration of their own.
+		if (getClass() != DefaultVertexInterpolator.class) return null;
+		final DefaultVertexInterpolator instance = new DefaultVertexInterpolator();
+		instance.setEnvironment(ops());
+		instance.isolevel = isolevel;
+		return instance;
+	}
+
 }
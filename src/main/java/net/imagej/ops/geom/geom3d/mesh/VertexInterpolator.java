@@ -44,4 +44,14 @@ public interface VertexInterpolator extends Op {
 	
 	public double[]	getOutput();
 
+	/**
+	 * Gets a copy of this interpolator, with the same configuration, which can
+	 * be used concurrently with it.
+	 * 
+	 * @return the copy, or {@code null} if this interpolator cannot be copied
+	 */
+	default VertexInterpolator getIndependentInstance() {
+		return null;
+	}
+
 }
@@ -29,6 +29,8 @@
 
 package net.imagej.ops.image.equation;
 
+import java.util.function.ToDoubleFunction;
+
 import javax.script.Bindings;
 import javax.script.Compilable;
 import javax.script.CompiledScript;
@@ -38,6 +40,7 @@ import javax.script.ScriptException;
 
 import net.imagej.ops.Ops;
 import net.imagej.ops.special.hybrid.AbstractUnaryHybridCF;
+import net.imagej.ops.thread.chunker.CursorBasedChunk;
 import net.imglib2.Cursor;
 import net.imglib2.IterableInterval;
 import net.imglib2.img.array.ArrayImgs;
@@ -57,8 +60,11 @@ import org.scijava.script.ScriptService;
  * {@code Math.cos(0.1*p[0]) + Math.sin(0.1*p[1])}.
  * </p>
  * <p>
- * Note that this op is rather slow; it is intended mainly for demonstration
- * purposes, and to easily generate small images for testing Ops workflows.
+ * Equations using only arithmetic, comparisons and the functions of
+ * {@code Math} are compiled once (see {@link EquationCompiler}) and evaluated
+ * natively, in parallel. Other equations are evaluated by the script engine,
+ * which is rather slow; it is intended mainly for demonstration purposes, and
+ * to easily generate small images for testing Ops workflows.
  * </p>
  * 
  * @author Curtis Rueden
@@ -78,6 +84,69 @@ public class DefaultEquation<T extends RealType<T>> extends
 
 	@Override
 	public void compute(final String input, final IterableInterval<T> output) {
+		// use the compiled equation if possible
+		final ToDoubleFunction<long[]> compiled;
+		try {
+			compiled = EquationCompiler.compile(input, output.numDimensions());
+		}
+		catch (final IllegalArgumentException exc) {
+			log.debug("Evaluating equation as script: " + exc.getMessage());
+			computeScript(input, output);
+			return;
+		}
+		computeCompiled(compiled, output);
+	}
+
+	// -- UnaryOutputFactory methods --
+
+	@Override
+	public IterableInterval<T> createOutput(final String input) {
+		// produce a 256x256 float64 array-backed image by default
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		final IterableInterval<T> newImage = (IterableInterval) ArrayImgs.doubles(
+			256, 256);
+		return newImage;
+	}
+
+	// -- Helper methods --
+
+	private void computeCompiled(final ToDoubleFunction<long[]> equation,
+		final IterableInterval<T> output)
+	{
+		// NB: The chunks index the output with ints, so images with more
+		// elements are filled sequentially.
+		if (output.size() > Integer.MAX_VALUE) {
+			final Cursor<T> c = output.localizingCursor();
+			final long[] pos = new long[output.numDimensions()];
+			while (c.hasNext()) {
+				c.fwd();
+				c.localize(pos);
+				c.get().setReal(equation.applyAsDouble(pos));
+			}
+			return;
+		}
+
+		ops().thread().chunker(new CursorBasedChunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final Cursor<T> c = output.localizingCursor();
+				final long[] pos = new long[output.numDimensions()];
+				setToStart(c, startIndex);
+				for (int i = 0; i < numSteps; i++) {
+					c.localize(pos);
+					c.get().setReal(equation.applyAsDouble(pos));
+					c.jumpFwd(stepSize);
+				}
+			}
+		}, output.size());
+	}
+
+	private void computeScript(final String input,
+		final IterableInterval<T> output)
+	{
 		final String equation = input + ";";
 
 		// evaluate the equation using Javascript!
@@ -120,15 +189,4 @@ public class DefaultEquation<T extends RealType<T>> extends
 		}
 	}
 
-	// -- UnaryOutputFactory methods --
-
-	@Override
-	public IterableInterval<T> createOutput(final String input) {
-		// produce a 256x256 float64 array-backed image by default
-		@SuppressWarnings({ "rawtypes", "unchecked" })
-		final IterableInterval<T> newImage = (IterableInterval) ArrayImgs.doubles(
-			256, 256);
-		return newImage;
-	}
-
 }
@@ -0,0 +1,111 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.image.watershed;
+
+import java.util.Arrays;
+
+/**
+ * {@link VoxelQueue} for integer-valued images, with one FIFO ring buffer per
+ * grey level. Adding and polling a voxel take constant time.
+ */
+class HierarchicalQueue implements VoxelQueue {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final double min;
+
+	/** Ring buffers of linear indices, allocated on demand. */
+	private final long[][] buckets;
+
+	private final int[] heads;
+	private final int[] sizes;
+
+	/** Lowest level which might be non-empty. */
+	private int lowest;
+
+	private long size;
+
+	/**
+	 * @param min the lowest grey level
+	 * @param levels the number of grey levels
+	 */
+	public HierarchicalQueue(final double min, final int levels) {
+		this.min = min;
+		buckets = new long[levels][];
+		heads = new int[levels];
+		sizes = new int[levels];
+		lowest = levels;
+	}
+
+	@Override
+	public void add(final long index, final double value) {
+		final int level = (int) (value - min);
+		long[] bucket = buckets[level];
+		if (bucket == null) {
+			bucket = buckets[level] = new long[INITIAL_CAPACITY];
+		}
+		else if (sizes[level] == bucket.length) {
+			bucket = buckets[level] = grow(bucket, heads[level]);
+			heads[level] = 0;
+		}
+		bucket[(heads[level] + sizes[level]) % bucket.length] = index;
+		sizes[level]++;
+		size++;
+		if (level < lowest) lowest = level;
+	}
+
+	@Override
+	public long poll() {
+		while (sizes[lowest] == 0)
+			lowest++;
+		final long[] bucket = buckets[lowest];
+		final long index = bucket[heads[lowest]];
+		heads[lowest] = (heads[lowest] + 1) % bucket.length;
+		sizes[lowest]--;
+		size--;
+		return index;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	// -- Helper methods --
+
+	/** Doubles the capacity of a full ring buffer, unwrapping it. */
+	private static long[] grow(final long[] bucket, final int head) {
+		final long[] grown = Arrays.copyOfRange(bucket, head, head + 2 *
+			bucket.length);
+		System.arraycopy(bucket, 0, grown, bucket.length - head, head);
+		return grown;
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.image.watershed;
+
+import java.util.Arrays;
+
+/**
+ * {@link VoxelQueue} for arbitrary values, implemented as a binary heap on
+ * primitive arrays. Voxels with the same value are ordered by a sequence
+ * number.
+ */
+class VoxelHeap implements VoxelQueue {
+
+	private long[] indices = new long[64];
+	private double[] values = new double[64];
+	private long[] seqs = new long[64];
+
+	private int size;
+	private long seq;
+
+	@Override
+	public void add(final long index, final double value) {
+		if (size == indices.length) {
+			final int capacity = 2 * size;
+			indices = Arrays.copyOf(indices, capacity);
+			values = Arrays.copyOf(values, capacity);
+			seqs = Arrays.copyOf(seqs, capacity);
+		}
+		final long s = seq++;
+
+		// sift up
+		int i = size++;
+		while (i > 0) {
+			final int parent = (i - 1) >>> 1;
+			if (!less(value, s, values[parent], seqs[parent])) break;
+			set(i, parent);
+			i = parent;
+		}
+		indices[i] = index;
+		values[i] = value;
+		seqs[i] = s;
+	}
+
+	@Override
+	public long poll() {
+		final long head = indices[0];
+		size--;
+		final long index = indices[size];
+		final double value = values[size];
+		final long s = seqs[size];
+
+		// sift down
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) break;
+			if (child + 1 < size && less(values[child + 1], seqs[child + 1],
+				values[child], seqs[child])) child++;
+			if (!less(values[child], seqs[child], value, s)) break;
+			set(i, child);
+			i = child;
+		}
+		indices[i] = index;
+		values[i] = value;
+		seqs[i] = s;
+		return head;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	// -- Helper methods --
+
+	private void set(final int to, final int from) {
+		indices[to] = indices[from];
+		values[to] = values[from];
+		seqs[to] = seqs[from];
+	}
+
+	private static boolean less(final double value1, final long seq1,
+		final double value2, final long seq2)
+	{
+		final int res = Double.compare(value1, value2);
+		return res < 0 || res == 0 && seq1 < seq2;
+	}
+}
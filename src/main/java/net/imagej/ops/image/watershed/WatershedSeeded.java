@@ -29,14 +29,8 @@
 package net.imagej.ops.image.watershed;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Collectors;
 
 import net.imagej.ops.Contingent;
 import net.imagej.ops.Ops;
@@ -62,10 +56,12 @@ import net.imglib2.roi.labeling.ImgLabeling;
 import net.imglib2.roi.labeling.LabelingType;
 import net.imglib2.type.BooleanType;
 import net.imglib2.type.logic.BitType;
+import net.imglib2.type.numeric.IntegerType;
 import net.imglib2.type.numeric.RealType;
 import net.imglib2.type.numeric.integer.IntType;
 import net.imglib2.util.IntervalIndexer;
 import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
 import net.imglib2.view.ExtendedRandomAccessibleInterval;
 import net.imglib2.view.Views;
 
@@ -93,6 +89,11 @@ import org.scijava.plugin.Plugin;
  * <p>
  * Output is a labeling of the different catchment basins.
  * </p>
+ * <p>
+ * The flooding order is kept in a queue of linear indices on primitive arrays:
+ * a hierarchical queue with one FIFO per grey level for integer types of up to
+ * 16 bits, and a binary heap otherwise.
+ * </p>
  * 
  * @param <T> element type of input
  * @param <B> element type of mask
@@ -131,8 +132,8 @@ public class WatershedSeeded<T extends RealType<T>, B extends BooleanType<B>>
 	/** Default label for in out of bounds, must be lower than WSHED */
 	private static final int OUTSIDE = -4;
 
-	/** Used by {@link WatershedSeeded.WatershedVoxel} */
-	private static final AtomicLong seq = new AtomicLong();
+	/** Maximum number of grey levels for a hierarchical queue */
+	private static final int MAX_LEVELS = 1 << 16;
 
 	@SuppressWarnings("unchecked")
 	@Override
@@ -180,7 +181,7 @@ public class WatershedSeeded<T extends RealType<T>, B extends BooleanType<B>>
 		 * Carry over the seeding points to the new label and adds them to a
 		 * voxel priority queue
 		 */
-		final PriorityQueue<WatershedVoxel> pq = new PriorityQueue<>();
+		final VoxelQueue pq = createQueue(in);
 
 		// Only iterate seeds that are not excluded by the mask
 		final IterableRegion<B> maskRegions = Regions.iterable(mask);
@@ -213,7 +214,7 @@ public class WatershedSeeded<T extends RealType<T>, B extends BooleanType<B>>
 				if (labelNeigh != INQUEUE && labelNeigh != OUTSIDE && !raOut.isOutOfBounds() && raMask.get().get() 
 						&& raSeeds.get().isEmpty()) {
 					raOut.setPosition(neighborhood);
-					pq.add(new WatershedVoxel(IntervalIndexer.positionToIndex(neighborhood, in), neighborhood.get().getRealDouble()));
+					pq.add(IntervalIndexer.positionToIndex(neighborhood, in), neighborhood.get().getRealDouble());
 					raOut.get().clear();
 					raOut.get().add(INQUEUE);
 				}
@@ -230,21 +231,23 @@ public class WatershedSeeded<T extends RealType<T>, B extends BooleanType<B>>
 		 * neighbored pixels.
 		 */
 
-		// list to store neighbor labels
-		final ArrayList<Integer> neighborLabels = new ArrayList<>();
-		// list to store neighbor voxels
-		final ArrayList<WatershedVoxel> neighborVoxels = new ArrayList<>();
+		// labels of the neighbors
+		final int maxNeighbors = (int) raNeigh.get().size();
+		final int[] neighborLabels = new int[maxNeighbors];
+		int numLabels;
+		// indices of the unlabeled neighbors
+		final long[] neighborVoxels = new long[maxNeighbors];
+		final double[] neighborValues = new double[maxNeighbors];
+		int numVoxels;
 
 		// iterate the queue
 		final Point pos = new Point(in.numDimensions());
 		while (!pq.isEmpty()) {
-			IntervalIndexer.indexToPosition(pq.poll().getPos(), out, pos);
-
-			// reset list of neighbor labels
-			neighborLabels.clear();
+			IntervalIndexer.indexToPosition(pq.poll(), out, pos);
 
-			// reset list of neighbor voxels
-			neighborVoxels.clear();
+			// reset neighbor labels and voxels
+			numLabels = 0;
+			numVoxels = 0;
 
 			// iterate the neighborhood of the pixel
 			raNeigh.setPosition(pos);
@@ -256,14 +259,17 @@ public class WatershedSeeded<T extends RealType<T>, B extends BooleanType<B>>
 				raOut.setPosition(neighborhood);
 				raMask.setPosition(raOut);
 				if (!raOut.get().isEmpty()) {
-					final Integer label = raOut.get().iterator().next();
+					final int label = raOut.get().iterator().next();
 					if (label == INIT && raMask.get().get()) {
-						neighborVoxels.add(new WatershedVoxel(IntervalIndexer.positionToIndex(neighborhood, out),
-							neighborhood.get().getRealDouble()));
+						neighborVoxels[numVoxels] = IntervalIndexer.positionToIndex(
+							neighborhood, out);
+						neighborValues[numVoxels++] = neighborhood.get().getRealDouble();
 					} else {
-						if (label > WSHED && (!drawWatersheds || !neighborLabels.contains(label))) {
-							// store labels of neighbors in a list
-							neighborLabels.add(label);
+						if (label > WSHED && (!drawWatersheds || !contains(neighborLabels,
+							numLabels, label)))
+						{
+							// store labels of neighbors
+							neighborLabels[numLabels++] = label;
 						}
 					}
 				}
@@ -277,41 +283,27 @@ public class WatershedSeeded<T extends RealType<T>, B extends BooleanType<B>>
 				// label.
 				raOut.setPosition(pos);
 				raOut.get().clear();
-				if (neighborLabels.size() == 1) {
-					raOut.get().add(neighborLabels.get(0));
+				if (numLabels == 1) {
+					raOut.get().add(neighborLabels[0]);
 					// now that we know the voxel is labeled, add neighbors to
-					// list
-					for (final WatershedVoxel v : neighborVoxels) {
-						IntervalIndexer.indexToPosition(v.getPos(), out, raOut);
-						raOut.get().clear();
-						raOut.get().add(INQUEUE);
-						pq.add(v);
-					}
-				} else if (neighborLabels.size() > 1)
+					// queue
+					enqueue(pq, neighborVoxels, neighborValues, numVoxels, out, raOut);
+				} else if (numLabels > 1)
 					raOut.get().add(WSHED);
 			} else {
-				if (neighborLabels.size() > 0) {
+				if (numLabels > 0) {
 					raOut.setPosition(pos);
 					raOut.get().clear();
 
 					// take the label which most of the neighbors have
-					if (neighborLabels.size() > 2) {
-						final Map<Integer, Long> countLabels = neighborLabels.stream()
-								.collect(Collectors.groupingBy(e -> e, Collectors.counting()));
-						final Integer keyMax = Collections
-								.max(countLabels.entrySet(), Comparator.comparingLong(Map.Entry::getValue)).getKey();
-						raOut.get().add(keyMax);
+					if (numLabels > 2) {
+						raOut.get().add(mostFrequent(neighborLabels, numLabels));
 					} else {
-						raOut.get().add(neighborLabels.get(0));
+						raOut.get().add(neighborLabels[0]);
 					}
 					// now that we know the voxel is labeled, add neighbors to
-					// list
-					for (final WatershedVoxel v : neighborVoxels) {
-						IntervalIndexer.indexToPosition(v.getPos(), out, raOut);
-						raOut.get().clear();
-						raOut.get().add(INQUEUE);
-						pq.add(v);
-					}
+					// queue
+					enqueue(pq, neighborVoxels, neighborValues, numVoxels, out, raOut);
 				}
 			}
 		}
@@ -353,40 +345,59 @@ public class WatershedSeeded<T extends RealType<T>, B extends BooleanType<B>>
 		createOp = Functions.unary(ops(), CreateImgLabelingFromInterval.class, ImgLabeling.class, in());
 	}
 
-	/**
-	 * Used to store the voxels in the priority queue. "Lower" voxels will be
-	 * given out first. If two voxels have the same value, the one which joined
-	 * the queue earlier will be given out.
-	 */
-	class WatershedVoxel implements Comparable<WatershedVoxel> {
-
-		private final long pos;
-		private final double value;
-		private final long seqNum;
+	// -- Helper methods --
 
-		public WatershedVoxel(final long pos, final double value) {
-			this.pos = pos;
-			this.value = value;
-			seqNum = seq.getAndIncrement();
+	private VoxelQueue createQueue(final RandomAccessibleInterval<T> in) {
+		final T type = Util.getTypeFromInterval(in);
+		if (type instanceof IntegerType) {
+			final double levels = type.getMaxValue() - type.getMinValue() + 1;
+			if (levels <= MAX_LEVELS) {
+				return new HierarchicalQueue(type.getMinValue(), (int) levels);
+			}
 		}
+		return new VoxelHeap();
+	}
 
-		public long getPos() {
-			return pos;
+	/** Marks the given voxels as queued and adds them to the queue. */
+	private static void enqueue(final VoxelQueue pq, final long[] voxels,
+		final double[] values, final int numVoxels, final Interval interval,
+		final RandomAccess<LabelingType<Integer>> raOut)
+	{
+		for (int i = 0; i < numVoxels; i++) {
+			IntervalIndexer.indexToPosition(voxels[i], interval, raOut);
+			raOut.get().clear();
+			raOut.get().add(INQUEUE);
+			pq.add(voxels[i], values[i]);
 		}
+	}
 
-		public double getValue() {
-			return value;
+	private static boolean contains(final int[] labels, final int numLabels,
+		final int label)
+	{
+		for (int i = 0; i < numLabels; i++) {
+			if (labels[i] == label) return true;
 		}
+		return false;
+	}
 
-		@Override
-		public int compareTo(WatershedVoxel o) {
-			int res = Double.compare(value, o.value);
-			if (res == 0)
-				res = (seqNum < o.seqNum ? -1 : 1);
-
-			return res;
+	/**
+	 * Gets the most frequent of the given labels. Ties are broken in favor of
+	 * the smallest label.
+	 */
+	private static int mostFrequent(final int[] labels, final int numLabels) {
+		int best = labels[0];
+		int bestCount = 0;
+		for (int i = 0; i < numLabels; i++) {
+			int count = 0;
+			for (int j = 0; j < numLabels; j++) {
+				if (labels[j] == labels[i]) count++;
+			}
+			if (count > bestCount || count == bestCount && labels[i] < best) {
+				best = labels[i];
+				bestCount = count;
+			}
 		}
-
+		return best;
 	}
 
 }
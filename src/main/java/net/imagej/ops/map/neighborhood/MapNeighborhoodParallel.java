@@ -0,0 +1,102 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.ops.map.neighborhood;
+
+import net.imagej.ops.Contingent;
+import net.imagej.ops.Ops;
+import net.imagej.ops.Parallel;
+import net.imagej.ops.map.Maps;
+import net.imagej.ops.special.computer.UnaryComputerOp;
+import net.imagej.ops.thread.chunker.ChunkerOp;
+import net.imagej.ops.thread.chunker.CursorBasedChunk;
+import net.imglib2.Cursor;
+import net.imglib2.IterableInterval;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.neighborhood.Neighborhood;
+import net.imglib2.algorithm.neighborhood.Shape;
+
+import org.scijava.Priority;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Parallelized {@link DefaultMapNeighborhood}.
+ * <p>
+ * The output is split into chunks by the {@link ChunkerOp}. Each chunk
+ * iterates its part of the output with its own cursor, positions its own
+ * neighborhood {@link RandomAccess} accordingly, and evaluates its own
+ * {@link UnaryComputerOp#getIndependentInstance() independent instance} of the
+ * op. Since neighborhoods are looked up by position, the output may be
+ * iterated in any order.
+ * </p>
+ * 
+ * @param <I> input type
+ * @param <O> output type
+ */
+@Plugin(type = Ops.Map.class, priority = Priority.LOW + 10)
+public class MapNeighborhoodParallel<I, O> extends
+	AbstractMapNeighborhood<I, O, RandomAccessibleInterval<I>, IterableInterval<O>, UnaryComputerOp<Iterable<I>, O>>
+	implements Contingent, Parallel
+{
+
+	@Override
+	public boolean conforms() {
+		return in1() == null || out() == null || Maps.compatible(in1(), out());
+	}
+
+	@Override
+	public void compute(final RandomAccessibleInterval<I> in1, final Shape in2,
+		final IterableInterval<O> out)
+	{
+		final RandomAccessible<Neighborhood<I>> neighborhoods = in2
+			.neighborhoodsRandomAccessibleSafe(in1);
+
+		ops().run(ChunkerOp.class, new CursorBasedChunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final UnaryComputerOp<Iterable<I>, O> op = getOp()
+					.getIndependentInstance();
+				final RandomAccess<Neighborhood<I>> ra = neighborhoods.randomAccess();
+				final Cursor<O> cursor = out.localizingCursor();
+				setToStart(cursor, startIndex);
+				for (int i = 0; i < numSteps; i++) {
+					if (i > 0) cursor.jumpFwd(stepSize);
+					ra.setPosition(cursor);
+					op.compute(ra.get(), cursor.get());
+				}
+			}
+		}, out.size());
+	}
+
+}
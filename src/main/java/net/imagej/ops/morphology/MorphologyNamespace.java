@@ -154,7 +154,8 @@ public class MorphologyNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(op = net.imagej.ops.morphology.dilate.DefaultDilate.class)
+	@OpMethod(ops = { net.imagej.ops.morphology.dilate.DefaultDilate.class,
+		net.imagej.ops.morphology.dilate.RectangleDilate.class })
 	public <T extends RealType<T>> IterableInterval<T> dilate(
 		final RandomAccessibleInterval<T> in1, final Shape in2)
 	{
@@ -164,7 +165,8 @@ public class MorphologyNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(op = net.imagej.ops.morphology.dilate.DefaultDilate.class)
+	@OpMethod(ops = { net.imagej.ops.morphology.dilate.DefaultDilate.class,
+		net.imagej.ops.morphology.dilate.RectangleDilate.class })
 	public <T extends RealType<T>> IterableInterval<T> dilate(
 		final IterableInterval<T> out, final RandomAccessibleInterval<T> in1,
 		final Shape in2)
@@ -175,7 +177,8 @@ public class MorphologyNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(op = net.imagej.ops.morphology.dilate.DefaultDilate.class)
+	@OpMethod(ops = { net.imagej.ops.morphology.dilate.DefaultDilate.class,
+		net.imagej.ops.morphology.dilate.RectangleDilate.class })
 	public <T extends RealType<T>> IterableInterval<T> dilate(
 		final IterableInterval<T> out, final RandomAccessibleInterval<T> in1,
 		final Shape in2, final boolean isFull)
@@ -186,7 +189,8 @@ public class MorphologyNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(op = net.imagej.ops.morphology.dilate.DefaultDilate.class)
+	@OpMethod(ops = { net.imagej.ops.morphology.dilate.DefaultDilate.class,
+		net.imagej.ops.morphology.dilate.RectangleDilate.class })
 	public <T extends RealType<T>> IterableInterval<T> dilate(
 		final IterableInterval<T> out, final RandomAccessibleInterval<T> in1,
 		final Shape in2, final boolean isFull,
@@ -230,7 +234,8 @@ public class MorphologyNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(op = net.imagej.ops.morphology.erode.DefaultErode.class)
+	@OpMethod(ops = { net.imagej.ops.morphology.erode.DefaultErode.class,
+		net.imagej.ops.morphology.erode.RectangleErode.class })
 	public <T extends RealType<T>> IterableInterval<T> erode(
 		final RandomAccessibleInterval<T> in1, final Shape in2)
 	{
@@ -240,7 +245,8 @@ public class MorphologyNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(op = net.imagej.ops.morphology.erode.DefaultErode.class)
+	@OpMethod(ops = { net.imagej.ops.morphology.erode.DefaultErode.class,
+		net.imagej.ops.morphology.erode.RectangleErode.class })
 	public <T extends RealType<T>> IterableInterval<T> erode(
 		final IterableInterval<T> out, final RandomAccessibleInterval<T> in1,
 		final Shape in2)
@@ -251,7 +257,8 @@ public class MorphologyNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(op = net.imagej.ops.morphology.erode.DefaultErode.class)
+	@OpMethod(ops = { net.imagej.ops.morphology.erode.DefaultErode.class,
+		net.imagej.ops.morphology.erode.RectangleErode.class })
 	public <T extends RealType<T>> IterableInterval<T> erode(
 		final IterableInterval<T> out, final RandomAccessibleInterval<T> in1,
 		final Shape in2, final boolean isFull)
@@ -262,7 +269,8 @@ public class MorphologyNamespace extends AbstractNamespace {
 		return result;
 	}
 
-	@OpMethod(op = net.imagej.ops.morphology.erode.DefaultErode.class)
+	@OpMethod(ops = { net.imagej.ops.morphology.erode.DefaultErode.class,
+		net.imagej.ops.morphology.erode.RectangleErode.class })
 	public <T extends RealType<T>> IterableInterval<T> erode(
 		final IterableInterval<T> out, final RandomAccessibleInterval<T> in1,
 		final Shape in2, final boolean isFull,
@@ -29,28 +29,14 @@
 
 package net.imagej.ops.morphology.dilate;
 
-import net.imagej.ops.Contingent;
 import net.imagej.ops.Ops;
-import net.imagej.ops.map.Maps;
-import net.imagej.ops.special.function.Functions;
-import net.imagej.ops.special.function.UnaryFunctionOp;
-import net.imagej.ops.special.hybrid.AbstractBinaryHybridCF;
-import net.imglib2.Dimensions;
-import net.imglib2.FinalInterval;
 import net.imglib2.IterableInterval;
+import net.imglib2.RandomAccessible;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.algorithm.morphology.Dilation;
-import net.imglib2.algorithm.morphology.MorphologyUtils;
 import net.imglib2.algorithm.neighborhood.Shape;
-import net.imglib2.img.Img;
-import net.imglib2.outofbounds.OutOfBoundsConstantValueFactory;
-import net.imglib2.outofbounds.OutOfBoundsFactory;
 import net.imglib2.type.numeric.RealType;
-import net.imglib2.util.Util;
-import net.imglib2.view.ExtendedRandomAccessibleInterval;
-import net.imglib2.view.Views;
 
-import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
 
 /**
@@ -62,70 +48,13 @@ import org.scijava.plugin.Plugin;
  * @see net.imglib2.algorithm.morphology.Dilation
  */
 @Plugin(type = Ops.Morphology.Dilate.class)
-public class DefaultDilate<T extends RealType<T>> extends
-	AbstractBinaryHybridCF<RandomAccessibleInterval<T>, Shape, IterableInterval<T>>
-	implements Ops.Morphology.Dilate, Contingent
-{
-
-	@Parameter(required = false)
-	private boolean isFull;
-
-	@Parameter(required = false)
-	private OutOfBoundsFactory<T, RandomAccessibleInterval<T>> f;
-
-	private T minVal;
-	private UnaryFunctionOp<Dimensions, Img<T>> imgCreator;
-
-	@Override
-	public boolean conforms() {
-		if (in1() == null || in2() == null || out() == null) return true;
-		return isFull || Maps.compatible(in(), out());
-	}
-
-	@SuppressWarnings({ "rawtypes", "unchecked" })
-	@Override
-	public void initialize() {
-		minVal = Util.getTypeFromInterval(in()).createVariable();
-		minVal.setReal(minVal.getMinValue());
-
-		if (f == null) {
-			f = new OutOfBoundsConstantValueFactory<>(minVal);
-		}
-
-		imgCreator = (UnaryFunctionOp) Functions.unary(ops(), Ops.Create.Img.class,
-			Img.class, in(), minVal.createVariable());
-
-		if (out() == null) setOutput(createOutput(in()));
-	}
-
-	@Override
-	public IterableInterval<T> createOutput(final RandomAccessibleInterval<T> in1,
-		final Shape in2)
-	{
-		if (isFull) {
-			final long[] dims = MorphologyUtils.computeTargetImageDimensionsAndOffset(
-				in1, in2)[0];
-			return imgCreator.calculate(new FinalInterval(dims));
-		}
-		return imgCreator.calculate(in1);
-	}
+public class DefaultDilate<T extends RealType<T>> extends AbstractDilate<T> {
 
 	@Override
-	public void compute(final RandomAccessibleInterval<T> in1, final Shape in2,
-		final IterableInterval<T> output)
+	protected void dilate(final RandomAccessible<T> source,
+		final IterableInterval<T> output, final Shape shape, final T minVal)
 	{
-		final RandomAccessibleInterval<T> shifted;
-		if (isFull) {
-			final long[] offset = MorphologyUtils
-				.computeTargetImageDimensionsAndOffset(in1, in2)[1];
-			shifted = Views.translate(in1, offset);
-		}
-		else {
-			shifted = in1;
-		}
-		final ExtendedRandomAccessibleInterval<T, RandomAccessibleInterval<T>> extended =
-			Views.extend(shifted, f);
-		Dilation.dilate(extended, output, in2, minVal, Runtime.getRuntime()
+		Dilation.dilate(source, output, shape, minVal, Runtime.getRuntime()
 			.availableProcessors());
 	}
 }
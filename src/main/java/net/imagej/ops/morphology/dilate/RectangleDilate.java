@@ -0,0 +1,79 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.ops.morphology.dilate;
+
+import net.imagej.ops.Ops;
+import net.imagej.ops.filter.VanHerkGilWerman;
+import net.imglib2.IterableInterval;
+import net.imglib2.RandomAccessible;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.algorithm.morphology.Dilation;
+import net.imglib2.algorithm.neighborhood.Shape;
+import net.imglib2.type.numeric.RealType;
+
+import org.scijava.Priority;
+import org.scijava.plugin.Plugin;
+
+/**
+ * Computes the dilation of a {@link RandomAccessibleInterval} using a single
+ * {@link Shape}. Rectangles and lines are computed with
+ * {@link VanHerkGilWerman} passes along each dimension, at a cost independent
+ * of their size; other shapes fall back to {@link Dilation}.
+ * 
+ * @param <T> element type
+ * @see DefaultDilate
+ */
+@Plugin(type = Ops.Morphology.Dilate.class, priority = Priority.HIGH)
+public class RectangleDilate<T extends RealType<T>> extends AbstractDilate<T> {
+
+	@Override
+	public boolean conforms() {
+		if (in2() != null && !VanHerkGilWerman.isSupported(in2())) return false;
+		return super.conforms();
+	}
+
+	@Override
+	protected void dilate(final RandomAccessible<T> source,
+		final IterableInterval<T> output, final Shape shape, final T minVal)
+	{
+		final long[] radii = VanHerkGilWerman.radii(shape, output
+			.numDimensions());
+		if (!VanHerkGilWerman.isSupported(radii, minVal)) {
+			// NB: Shapes other than the one we matched on may be passed in when
+			// this op is reused, e.g. by the list-based morphology ops. Types with
+			// values beyond the precision of doubles are not supported either.
+			Dilation.dilate(source, output, shape, minVal, Runtime.getRuntime()
+				.availableProcessors());
+		}
+		else {
+			VanHerkGilWerman.compute(source, output, radii, true);
+		}
+	}
+}
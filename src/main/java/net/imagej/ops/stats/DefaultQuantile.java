@@ -29,10 +29,6 @@
 
 package net.imagej.ops.stats;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-
 import net.imagej.ops.Op;
 import net.imagej.ops.Ops;
 import net.imglib2.type.numeric.RealType;
@@ -56,93 +52,34 @@ public class DefaultQuantile<I extends RealType<I>, O extends RealType<O>>
 
 	@Parameter(min = "0.0", max = "1.0")
 	private double quantile;
-	
-	@Override
-	public void compute(final Iterable<I> input, final O output) {
-		final ArrayList<Double> statistics = new ArrayList<>();
-
-		final Iterator<I> it = input.iterator();
-		while (it.hasNext()) {
-			statistics.add(it.next().getRealDouble());
-		}
-
-		output.setReal(select(statistics, 0, statistics.size() - 1, (int) (statistics
-			.size() * quantile)));
-	}
 
 	/**
-	 * Returns the value of the kth lowest element. Do note that for nth lowest
-	 * element, k = n - 1.
+	 * Buffer holding a copy of the input values, reused across calls. One
+	 * buffer per thread, so the op can be shared among threads.
 	 */
-	private double select(final ArrayList<Double> array, final int inLeft,
-		final int inRight, final int k)
-	{
-
-		int left = inLeft;
-		int right = inRight;
-
-		while (true) {
-
-			if (right <= left + 1) {
-
-				if (right == left + 1 && array.get(right) < array.get(left)) {
-					swap(array, left, right);
-				}
-
-				return array.get(k);
-
-			}
-			final int middle = (left + right) >>> 1;
-			swap(array, middle, left + 1);
-
-			if (array.get(left) > array.get(right)) {
-				swap(array, left, right);
-			}
+	private final ThreadLocal<double[]> buffer = ThreadLocal.withInitial(
+		() -> new double[0]);
 
-			if (array.get(left + 1) > array.get(right)) {
-				swap(array, left + 1, right);
-			}
-
-			if (array.get(left) > array.get(left + 1)) {
-				swap(array, left, left + 1);
-			}
-
-			int i = left + 1;
-			int j = right;
-			final double pivot = array.get(left + 1);
-
-			while (true) {
-				do
-					++i;
-				while (array.get(i) < pivot);
-				do
-					--j;
-				while (array.get(j) > pivot);
-
-				if (j < i) {
-					break;
-				}
-
-				swap(array, i, j);
-			}
-
-			array.set(left + 1, array.get(j));
-			array.set(j, pivot);
-
-			if (j >= k) {
-				right = j - 1;
-			}
-
-			if (j <= k) {
-				left = i;
+	@Override
+	public void compute(final Iterable<I> input, final O output) {
+		double[] values = buffer.get();
+		int n = 0;
+		for (final I value : input) {
+			if (n == values.length) {
+				values = grow(values);
+				buffer.set(values);
 			}
+			values[n++] = value.getRealDouble();
 		}
+
+		output.setReal(QuickSelect.quantile(values, n, quantile));
 	}
 
-	/** Helper method for swapping array entries */
-	private void swap(final List<Double> array, final int a, final int b) {
-		final double temp = array.get(a);
-		array.set(a, array.get(b));
-		array.set(b, temp);
+	// -- Helper methods --
+
+	private static double[] grow(final double[] values) {
+		final double[] grown = new double[Math.max(16, 2 * values.length)];
+		System.arraycopy(values, 0, grown, 0, values.length);
+		return grown;
 	}
 }
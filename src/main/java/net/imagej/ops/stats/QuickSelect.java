@@ -0,0 +1,173 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.ops.stats;
+
+/**
+ * Utility methods for selecting order statistics (such as quantiles) from
+ * primitive arrays, in place and without allocations.
+ * 
+ * @author Daniel Seebacher (University of Konstanz)
+ * @author Christian Dietz (University of Konstanz)
+ */
+public final class QuickSelect {
+
+	private QuickSelect() {
+		// NB: Prevent instantiation of utility class.
+	}
+
+	/**
+	 * Gets the index of the given quantile within {@code n} sorted values, i.e.
+	 * {@code floor(n * quantile)}, clamped to the valid index range.
+	 */
+	public static int index(final int n, final double quantile) {
+		return Math.max(0, Math.min(n - 1, (int) (n * quantile)));
+	}
+
+	/**
+	 * Gets the given quantile of the first {@code n} values, reordering them in
+	 * the process.
+	 * 
+	 * @return The quantile, or {@link Double#NaN} if {@code n} is zero.
+	 */
+	public static double quantile(final double[] values, final int n,
+		final double quantile)
+	{
+		if (n == 0) return Double.NaN;
+		return select(values, 0, n - 1, index(n, quantile));
+	}
+
+	/**
+	 * Gets several quantiles of the first {@code n} values at once, reordering
+	 * them in the process. Each selection only searches the values not already
+	 * partitioned by the previous one.
+	 * 
+	 * @param values The values, of which the first {@code n} are considered.
+	 * @param n The number of values.
+	 * @param quantiles The quantiles to compute, in ascending order.
+	 * @param results Array receiving the quantiles, in the same order.
+	 */
+	public static void quantiles(final double[] values, final int n,
+		final double[] quantiles, final double[] results)
+	{
+		int left = 0;
+		for (int q = 0; q < quantiles.length; q++) {
+			if (n == 0) {
+				results[q] = Double.NaN;
+				continue;
+			}
+			if (q > 0 && quantiles[q] < quantiles[q - 1]) {
+				throw new IllegalArgumentException("Quantiles must be ascending");
+			}
+			final int k = index(n, quantiles[q]);
+			results[q] = select(values, Math.min(left, k), n - 1, k);
+			left = k;
+		}
+	}
+
+	/**
+	 * Returns the value of the kth lowest element within
+	 * {@code values[inLeft..inRight]}, partially sorting the range such that all
+	 * elements left of {@code k} are smaller or equal, and all elements right of
+	 * it larger or equal. Do note that for nth lowest element, k = n - 1.
+	 */
+	public static double select(final double[] values, final int inLeft,
+		final int inRight, final int k)
+	{
+		int left = inLeft;
+		int right = inRight;
+
+		while (true) {
+
+			if (right <= left + 1) {
+
+				if (right == left + 1 && values[right] < values[left]) {
+					swap(values, left, right);
+				}
+
+				return values[k];
+
+			}
+			final int middle = (left + right) >>> 1;
+			swap(values, middle, left + 1);
+
+			if (values[left] > values[right]) {
+				swap(values, left, right);
+			}
+
+			if (values[left + 1] > values[right]) {
+				swap(values, left + 1, right);
+			}
+
+			if (values[left] > values[left + 1]) {
+				swap(values, left, left + 1);
+			}
+
+			int i = left + 1;
+			int j = right;
+			final double pivot = values[left + 1];
+
+			while (true) {
+				do
+					++i;
+				while (values[i] < pivot);
+				do
+					--j;
+				while (values[j] > pivot);
+
+				if (j < i) {
+					break;
+				}
+
+				swap(values, i, j);
+			}
+
+			values[left + 1] = values[j];
+			values[j] = pivot;
+
+			if (j >= k) {
+				right = j - 1;
+			}
+
+			if (j <= k) {
+				left = i;
+			}
+		}
+	}
+
+	// -- Helper methods --
+
+	/** Helper method for swapping array entries */
+	private static void swap(final double[] values, final int a, final int b) {
+		final double temp = values[a];
+		values[a] = values[b];
+		values[b] = temp;
+	}
+
+}
@@ -54,6 +54,18 @@ public class ThreadNamespace extends AbstractNamespace {
 			numberOfElements);
 	}
 
+	/**
+	 * Executes the "chunker" operation on the given arguments, with at least
+	 * {@code grainSize} elements per chunk.
+	 */
+	@OpMethod(op = net.imagej.ops.thread.chunker.DefaultChunker.class)
+	public void chunker(final Chunk chunkable, final long numberOfElements,
+		final int grainSize)
+	{
+		ops().run(net.imagej.ops.Ops.Thread.Chunker.class, chunkable,
+			numberOfElements, grainSize);
+	}
+
 	// -- Named methods --
 
 	@Override
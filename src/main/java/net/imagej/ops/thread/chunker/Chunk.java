@@ -56,4 +56,27 @@ public interface Chunk {
 	 */
 	void execute(int startIndex, int stepSize, int numSteps);
 
+	/**
+	 * Solve the subproblem like {@link #execute(int, int, int)}, for problems
+	 * whose element indices exceed {@link Integer#MAX_VALUE}. Chunks which can
+	 * process such elements override this method; by default, subproblems
+	 * beyond the int range are rejected.
+	 * 
+	 * @param startIndex zero based index that identifies the first element of
+	 *          this subproblem (w.r.t. the global problem enumeration)
+	 * @param stepSize the step-size between two consecutive elements
+	 * @param numSteps how many steps shall be taken
+	 * @throws UnsupportedOperationException if an element index exceeds
+	 *           {@link Integer#MAX_VALUE}
+	 */
+	default void execute(final long startIndex, final int stepSize,
+		final int numSteps)
+	{
+		if (startIndex + (long) stepSize * (numSteps - 1) > Integer.MAX_VALUE) {
+			throw new UnsupportedOperationException(
+				"Element indices beyond Integer.MAX_VALUE are not supported");
+		}
+		execute((int) startIndex, stepSize, numSteps);
+	}
+
 }
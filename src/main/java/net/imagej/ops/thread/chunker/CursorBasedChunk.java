@@ -37,4 +37,9 @@ public abstract class CursorBasedChunk implements Chunk {
 		c.jumpFwd(startIndex + 1);
 	}
 
+	public static void setToStart(final Cursor<?> c, long startIndex) {
+		c.reset();
+		c.jumpFwd(startIndex + 1);
+	}
+
 }
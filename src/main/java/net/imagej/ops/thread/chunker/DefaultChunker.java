@@ -30,70 +30,121 @@
 package net.imagej.ops.thread.chunker;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.imagej.ops.Ops;
 
 import org.scijava.log.LogService;
 import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
+import org.scijava.thread.ThreadService;
 
 /**
- * Simple default implementation of a {@link ChunkerOp}. The list of
- * elements is chunked into equally sized (besides the last one), disjoint
- * chunks, which are processed in parallel. The stepSize is set to one, i.e.
- * each chunk consists of consecutive elements.
+ * Simple default implementation of a {@link ChunkerOp}. The list of elements is
+ * chunked into disjoint chunks of consecutive elements, which are processed in
+ * parallel. The stepSize is set to one, i.e. each chunk consists of
+ * consecutive elements.
+ * <p>
+ * The elements are split into several chunks per available processor, which
+ * are claimed one after another by a worker per processor, so that idle
+ * workers take over the remaining chunks of workers which got stuck with
+ * expensive elements. The workers run on the {@link ThreadService}, and the
+ * calling thread is one of them. Chunks never contain fewer elements than the
+ * grain size, so that small inputs are processed by few (or a single) chunks;
+ * callers with few expensive elements pass a smaller grain size.
+ * </p>
+ * <p>
+ * A chunker called from within a chunk, e.g. by a parallel op inside another
+ * parallel op, processes all its elements in the calling worker, so that
+ * nested chunkers do not start more workers than there are processors.
+ * Element counts beyond {@link Integer#MAX_VALUE} are passed to
+ * {@link Chunk#execute(long, int, int)}.
+ * </p>
  * 
  * @author Christian Dietz (University of Konstanz)
  */
 @Plugin(type = Ops.Thread.Chunker.class)
 public class DefaultChunker extends AbstractChunker {
 
+	/** Default minimum number of elements per chunk. */
+	public static final int DEFAULT_GRAIN_SIZE = 1024;
+
+	/** Number of chunks per available processor, for load balancing. */
+	private static final int CHUNKS_PER_PROCESSOR = 8;
+
+	/** Whether the current thread is processing a chunk. */
+	private static final ThreadLocal<Boolean> WORKING = new ThreadLocal<>();
+
 	private final int STEP_SIZE = 1;
 
 	@Parameter
 	public LogService logService;
 
+	/** Minimum number of elements per chunk. */
+	@Parameter(required = false)
+	private int grainSize = DEFAULT_GRAIN_SIZE;
+
 	@Override
 	public void run() {
-
-		// TODO: is there a better way to determine the optimal chunk size?
-		
-		final int numSteps = Math.max(1, 
-			(int) (numberOfElements / Runtime.getRuntime().availableProcessors())) ;
-		
-		final int numChunks = (int) (numberOfElements / numSteps);
-
-		final ArrayList<Future<?>> futures = new ArrayList<>(numChunks);
-
-		for (int i = 0; i < numChunks - 1; i++) {
-			final int j = i;
-
-			futures.add(threadService.run(new Runnable() {
-
-				@Override
-				public void run() {
-					chunkable.execute(j * numSteps, STEP_SIZE, numSteps);
-				}
-			}));
+		final long numElements = numberOfElements;
+		if (numElements <= 0) return;
+
+		final int processors = Runtime.getRuntime().availableProcessors();
+		final long maxChunks = (long) processors * CHUNKS_PER_PROCESSOR;
+		final long chunkSize = Math.min(Integer.MAX_VALUE, Math.max(Math.max(1,
+			grainSize), (numElements + maxChunks - 1) / maxChunks));
+		final long numChunks = (numElements + chunkSize - 1) / chunkSize;
+
+		if (numChunks == 1 || WORKING.get() != null) {
+			// not worth parallelizing, or nested in a chunk of another chunker
+			for (long start = 0; start < numElements; start += chunkSize) {
+				execute(start, (int) Math.min(chunkSize, numElements - start));
+			}
+			return;
 		}
 
-		// last chunk additionally add the rest of elements
-		futures.add(threadService.run(new Runnable() {
+		final AtomicLong nextChunk = new AtomicLong();
+		final Runnable worker = new Runnable() {
 
 			@Override
 			public void run() {
-				chunkable.execute((numChunks - 1) * numSteps, STEP_SIZE,
-					(int) (numSteps + (numberOfElements % numSteps)));
+				WORKING.set(Boolean.TRUE);
+				try {
+					while (!isCanceled()) {
+						final long chunk = nextChunk.getAndIncrement();
+						if (chunk >= numChunks) return;
+						final long start = chunk * chunkSize;
+						execute(start, (int) Math.min(chunkSize, numElements - start));
+					}
+				}
+				finally {
+					WORKING.remove();
+				}
 			}
-		}));
+		};
+
+		final int numWorkers = (int) Math.min(processors, numChunks);
+		final List<Future<?>> futures = new ArrayList<>(numWorkers - 1);
+		for (int i = 1; i < numWorkers; i++) {
+			futures.add(threadService.run(worker));
+		}
+
+		// NB: The calling thread works as well, so that the chunks are processed
+		// even if all threads of the ThreadService are busy.
+		try {
+			worker.run();
+		}
+		catch (final RuntimeException | Error exc) {
+			// stop the other workers from claiming further chunks
+			nextChunk.set(numChunks);
+			throw exc;
+		}
 
 		for (final Future<?> future : futures) {
 			try {
-				if (isCanceled()) {
-					break;
-				}
 				future.get();
 			}
 			catch (final InterruptedException exc) {
@@ -105,4 +156,13 @@ public class DefaultChunker extends AbstractChunker {
 		}
 	}
 
+	// -- Helper methods --
+
+	private void execute(final long start, final int numSteps) {
+		if (start + numSteps - 1 <= Integer.MAX_VALUE) {
+			chunkable.execute((int) start, STEP_SIZE, numSteps);
+		}
+		else chunkable.execute(start, STEP_SIZE, numSteps);
+	}
+
 }
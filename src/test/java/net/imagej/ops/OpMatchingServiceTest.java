@@ -76,6 +76,31 @@ public class OpMatchingServiceTest extends AbstractOpTest {
 		assertTrue(Double.isNaN(value.get()));
 	}
 
+	/** Tests that repeated requests reuse the previously matched op. */
+	@Test
+	public void testMatchCache() {
+		final DefaultOpMatchingService service =
+			(DefaultOpMatchingService) matcher;
+		service.clearMatchCache();
+
+		final DoubleType first = new DoubleType(1);
+		matcher.findMatch(ops, OpRef.create("test.nan", first));
+		assertEquals(0, service.getMatchCacheHits());
+		assertEquals(1, service.getMatchCacheMisses());
+
+		final DoubleType second = new DoubleType(2);
+		final Module module = matcher.findMatch(ops, OpRef.create("test.nan",
+			second)).getModule();
+		assertEquals(1, service.getMatchCacheHits());
+		assertEquals(1, service.getMatchCacheMisses());
+		assertSame(NaNOp.class, module.getDelegateObject().getClass());
+		assertSame(second, module.getInput("arg"));
+
+		module.run();
+		assertTrue(Double.isNaN(second.get()));
+		assertEquals(1, first.get(), 0);
+	}
+
 	/** Tests support for matching when there are optional parameters. */
 	@Test
 	public void testOptionalParams() {
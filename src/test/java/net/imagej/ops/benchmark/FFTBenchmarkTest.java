@@ -0,0 +1,122 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.benchmark;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import net.imagej.ops.filter.fft.FFTMethodsOpC;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.complex.ComplexFloatType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.view.Views;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+/**
+ * Benchmarks the float array path of {@link FFTMethodsOpC} against the generic
+ * FFTMethods path, which is forced by wrapping the output in a view.
+ */
+@BenchmarkOptions(benchmarkRounds = 20, warmupRounds = 1)
+public class FFTBenchmarkTest extends AbstractOpBenchmark {
+
+	/** Needed for JUnit-Benchmarks */
+	@Rule
+	public TestRule benchmarkRun = new BenchmarkRule();
+
+	private Img<FloatType> in256;
+	private Img<FloatType> in1024;
+	private Img<FloatType> in4096;
+	private Img<FloatType> in256Cubed;
+
+	private Img<ComplexFloatType> out256;
+	private Img<ComplexFloatType> out1024;
+	private Img<ComplexFloatType> out4096;
+	private Img<ComplexFloatType> out256Cubed;
+
+	@Before
+	public void initImg() {
+		in256 = generateFloatArrayTestImg(true, 256, 256);
+		in1024 = generateFloatArrayTestImg(true, 1024, 1024);
+		in4096 = generateFloatArrayTestImg(true, 4096, 4096);
+		in256Cubed = generateFloatArrayTestImg(true, 256, 256, 256);
+
+		out256 = ArrayImgs.complexFloats(129, 256);
+		out1024 = ArrayImgs.complexFloats(513, 1024);
+		out4096 = ArrayImgs.complexFloats(2049, 4096);
+		out256Cubed = ArrayImgs.complexFloats(129, 256, 256);
+	}
+
+	@Test
+	public void floatArray256() {
+		ops.run(FFTMethodsOpC.class, out256, in256);
+	}
+
+	@Test
+	public void generic256() {
+		ops.run(FFTMethodsOpC.class, Views.interval(out256, out256), in256);
+	}
+
+	@Test
+	public void floatArray1024() {
+		ops.run(FFTMethodsOpC.class, out1024, in1024);
+	}
+
+	@Test
+	public void generic1024() {
+		ops.run(FFTMethodsOpC.class, Views.interval(out1024, out1024), in1024);
+	}
+
+	@Test
+	public void floatArray4096() {
+		ops.run(FFTMethodsOpC.class, out4096, in4096);
+	}
+
+	@Test
+	public void generic4096() {
+		ops.run(FFTMethodsOpC.class, Views.interval(out4096, out4096), in4096);
+	}
+
+	@Test
+	public void floatArray256Cubed() {
+		ops.run(FFTMethodsOpC.class, out256Cubed, in256Cubed);
+	}
+
+	@Test
+	public void generic256Cubed() {
+		ops.run(FFTMethodsOpC.class, Views.interval(out256Cubed, out256Cubed),
+			in256Cubed);
+	}
+}
@@ -30,16 +30,25 @@
 package net.imagej.ops.cached;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 
 import net.imagej.ops.AbstractOpTest;
 import net.imagej.ops.Op;
 import net.imagej.ops.OpInfo;
+import net.imagej.ops.OpMatchingService;
+import net.imagej.ops.OpService;
 import net.imagej.ops.Ops;
+import net.imagej.ops.special.computer.AbstractUnaryComputerOp;
+import net.imagej.ops.special.computer.Computers;
+import net.imagej.ops.special.computer.UnaryComputerOp;
+import net.imagej.ops.special.function.BinaryFunctionOp;
 import net.imagej.ops.special.function.Functions;
 import net.imagej.ops.special.function.UnaryFunctionOp;
+import net.imagej.ops.special.hybrid.AbstractBinaryHybridCF;
 import net.imagej.ops.special.hybrid.AbstractUnaryHybridCF;
 import net.imagej.ops.special.hybrid.Hybrids;
 import net.imagej.ops.special.hybrid.UnaryHybridCF;
@@ -49,6 +58,8 @@ import net.imglib2.type.numeric.real.DoubleType;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.cache.CacheService;
 import org.scijava.plugin.Parameter;
 
 /**
@@ -70,11 +81,19 @@ public class CachedOpEnvironmentTest extends AbstractOpTest {
 
 	private UnaryHybridCF<Img<ByteType>, DoubleType> hybrid;
 
+	@Override
+	protected Context createContext() {
+		return new Context(OpService.class, OpMatchingService.class,
+			CacheService.class, OpCacheService.class);
+	}
+
 	@Before
 	public void initCustomOps() {
 		final ArrayList<OpInfo> customOps = new ArrayList<>();
 		customOps.add(new OpInfo(MyMin.class));
 		customOps.add(new OpInfo(MyOptionalParameterOp.class));
+		customOps.add(new OpInfo(MyBinaryOp.class));
+		customOps.add(new OpInfo(MyComputerOp.class));
 
 		env = new CachedOpEnvironment(ops, customOps);
 
@@ -109,6 +128,128 @@ public class CachedOpEnvironmentTest extends AbstractOpTest {
 		assertEquals(2.0, hybrid.calculate(imgB).getRealDouble(), 0.0);
 	}
 
+	@Test
+	public void testCachingBinaryFunction() {
+		ctr = 0;
+
+		final BinaryFunctionOp<Img<ByteType>, Img<ByteType>, DoubleType> binary =
+			Functions.binary(env, BinaryCountingOp.class, DoubleType.class, imgA,
+				imgB);
+
+		// Calling it twice should result in the same result
+		assertEquals(1.0, binary.calculate(imgA, imgB).get(), 0.0);
+		assertEquals(1.0, binary.calculate(imgA, imgB).get(), 0.0);
+
+		// Should be increased
+		assertEquals(2.0, binary.calculate(imgB, imgA).get(), 0.0);
+	}
+
+	@Test
+	public void testCachingComputer() {
+		ctr = 0;
+
+		final UnaryComputerOp<Img<ByteType>, DoubleType> computer = Computers
+			.unary(env, ComputerCountingOp.class, DoubleType.class, imgA);
+		final DoubleType out = new DoubleType();
+
+		// Calling it twice should result in the same result
+		computer.compute(imgA, out);
+		assertEquals(1.0, out.get(), 0.0);
+		out.set(0);
+		computer.compute(imgA, out);
+		assertEquals(1.0, out.get(), 0.0);
+
+		// Should be increased
+		computer.compute(imgB, out);
+		assertEquals(2.0, out.get(), 0.0);
+	}
+
+	@Test
+	public void testEviction() {
+		// budget for a single DoubleType output and its key
+		final OpResultCache probe = new OpResultCache(Long.MAX_VALUE);
+		Functions.unary(new CachedOpEnvironment(ops, env.infos(),
+			new ArrayList<>(), probe), Ops.Stats.Min.class, DoubleType.class, imgA)
+			.calculate(imgA);
+		final OpResultCache cache = new OpResultCache(probe.getBytes());
+		ctr = 0;
+
+		final CachedOpEnvironment small = new CachedOpEnvironment(ops, env
+			.infos(), new ArrayList<>(), cache);
+		final UnaryFunctionOp<Img<ByteType>, DoubleType> f = Functions.unary(small,
+			Ops.Stats.Min.class, DoubleType.class, imgA);
+
+		assertEquals(1.0, f.calculate(imgA).get(), 0.0);
+		assertEquals(1.0, f.calculate(imgA).get(), 0.0);
+		assertEquals(2.0, f.calculate(imgB).get(), 0.0);
+
+		// imgA's output was evicted to make room for imgB's
+		assertEquals(3.0, f.calculate(imgA).get(), 0.0);
+
+		final OpResultCache.Statistics stats = cache.getStatistics(MyMin.class);
+		assertEquals(1, stats.getHits());
+		assertEquals(3, stats.getMisses());
+		assertEquals(2, stats.getEvictions());
+		assertEquals(cache.getMaxBytes(), stats.getBytes());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testSharedCache() {
+		final OpResultCache shared = context.service(OpCacheService.class)
+			.getResultCache();
+		assertSame(shared, env.getCache());
+		assertSame(shared, new CachedOpEnvironment(ops).getCache());
+	}
+
+	@Test
+	public void testMaxBytes() {
+		final OpCacheService cacheService = context.service(OpCacheService.class);
+		final OpResultCache shared = cacheService.getResultCache();
+		func.calculate(imgA);
+		func.calculate(imgB);
+		assertEquals(2, shared.size());
+
+		// shrinking the budget evicts the least recently used output
+		cacheService.setMaxBytes(shared.getBytes() - 1);
+		assertEquals(1, shared.size());
+		cacheService.setMaxBytes(0);
+		assertEquals(0, shared.size());
+		assertEquals(0, shared.getBytes());
+	}
+
+	@Test
+	public void testMaxBytesProperty() {
+		System.setProperty(DefaultOpCacheService.MAX_BYTES_PROPERTY, "12345");
+		final Context c = new Context(OpCacheService.class);
+		try {
+			assertEquals(12345, c.service(OpCacheService.class).getResultCache()
+				.getMaxBytes());
+		}
+		finally {
+			c.dispose();
+			System.clearProperty(DefaultOpCacheService.MAX_BYTES_PROPERTY);
+		}
+	}
+
+	@Test
+	public void testInputsNotRetained() throws InterruptedException {
+		Img<ByteType> img = generateByteArrayTestImg(true, new long[] { 10, 10 });
+		assertEquals(1.0, func.calculate(img).get(), 0.0);
+		assertEquals(1, env.getCache().size());
+
+		// the cache must not keep the input from being collected
+		final WeakReference<Img<ByteType>> ref = new WeakReference<>(img);
+		img = null;
+		for (int i = 0; i < 100 && env.getCache().size() > 0; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(ref.get());
+		assertEquals(0, env.getCache().size());
+		assertEquals(0, env.getCache().getBytes());
+	}
+
 	@Test
 	public void testOptionalParameter() {
 		UnaryFunctionOp<DoubleType, Object> f = Functions.unary(env, OptionalParameterOp.class, Object.class, DoubleType.class);
@@ -136,6 +277,51 @@ public class CachedOpEnvironmentTest extends AbstractOpTest {
 
 	}
 
+	private interface BinaryCountingOp extends Op {
+		String name = "binary.op";
+	}
+
+	// specialized binary op to track number of counts
+	public static class MyBinaryOp extends
+		AbstractBinaryHybridCF<Img<ByteType>, Img<ByteType>, DoubleType> implements
+		BinaryCountingOp
+	{
+
+		@Override
+		public DoubleType createOutput(final Img<ByteType> input1,
+			final Img<ByteType> input2)
+		{
+			return new DoubleType();
+		}
+
+		@Override
+		public void compute(final Img<ByteType> input1, final Img<ByteType> input2,
+			final DoubleType output)
+		{
+			ctr++;
+			output.set(ctr);
+		}
+
+	}
+
+	private interface ComputerCountingOp extends Op {
+		String name = "computer.op";
+	}
+
+	// specialized computer to track number of counts
+	public static class MyComputerOp extends
+		AbstractUnaryComputerOp<Img<ByteType>, DoubleType> implements
+		ComputerCountingOp
+	{
+
+		@Override
+		public void compute(final Img<ByteType> input, final DoubleType output) {
+			ctr++;
+			output.set(ctr);
+		}
+
+	}
+
 	private interface OptionalParameterOp extends Op {
 		String name = "optional.parameter.op";
 	}
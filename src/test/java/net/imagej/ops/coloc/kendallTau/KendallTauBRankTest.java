@@ -89,6 +89,43 @@ public class KendallTauBRankTest extends AbstractOpTest {
 		assertTau(-0.8, new int[] { 1, 1, 2, 3 }, new int[] { 3, 2, 1, 1 });
 	}
 	
+	@Test
+	public void testKendallTauBRankReusedInstance() {
+		assumeTrue(!exhaustive);
+		final Img<IntType> img1 = ArrayImgs.ints(new int[] { 4, 10, 3, 1, 9, 2, 6, 7, 8, 5 }, 10);
+		final Img<IntType> img2 = ArrayImgs.ints(new int[] { 5, 8, 6, 2, 10, 3, 9, 4, 7, 1 }, 10);
+		final Img<IntType> small1 = ArrayImgs.ints(new int[] { 1, 1, 2, 3 }, 4);
+		final Img<IntType> small2 = ArrayImgs.ints(new int[] { 3, 2, 1, 1 }, 4);
+		final BinaryFunctionOp<Img<IntType>, Img<IntType>, Double> op =
+			Functions.binary(ops, KendallTauBRank.class, Double.class, img1, img2);
+
+		// the scratch buffers must not leak into subsequent calls
+		assertEquals(23.0 / 45.0, op.calculate(img1, img2), 1e-10);
+		assertEquals(-0.8, op.calculate(small1, small2), 1e-10);
+		assertEquals(23.0 / 45.0, op.calculate(img1, img2), 1e-10);
+	}
+
+	@Test
+	public void testKendallTauBRankSampling() {
+		assumeTrue(!exhaustive);
+		final int n = 20000;
+		final int[] values1 = new int[n], values2 = new int[n];
+		for (int i = 0; i < n; i++) {
+			values1[i] = Math.abs(pseudoRandom()) % 100;
+			values2[i] = (values1[i] + Math.abs(pseudoRandom()) % 50) % 100;
+		}
+		final Img<IntType> img1 = ArrayImgs.ints(values1, n);
+		final Img<IntType> img2 = ArrayImgs.ints(values2, n);
+
+		final double exact = ops.coloc().kendallTau(img1, img2);
+		final double sampled = ops.coloc().kendallTau(img1, img2, 5000);
+		assertEquals(exact, sampled, 0.05);
+		// the sampling is reproducible
+		assertEquals(sampled, ops.coloc().kendallTau(img1, img2, 5000), 0.0);
+		// no sampling if the region is small enough
+		assertEquals(exact, ops.coloc().kendallTau(img1, img2, n), 0.0);
+	}
+
 	@Test
 	public void exhaustiveKendallTauBRankTesting() {
 		assumeTrue(exhaustive);
@@ -29,8 +29,11 @@
 
 package net.imagej.ops.coloc.pValue;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.util.Iterator;
 import java.util.function.BiFunction;
 
 import net.imagej.ops.coloc.ColocalisationTest;
@@ -70,6 +73,44 @@ public class DefaultPValueTest extends ColocalisationTest {
 		assertColoc(0.6, 0.25, array, 0.25, 0.25, 0.25, 0.75, 0.75, 0.75);
 	}
 
+	/**
+	 * Tests that the randomizations, which are evaluated in parallel, are
+	 * reproducible for a given seed.
+	 */
+	@Test
+	public void testPValueReproducible() {
+		final float[] data = new float[16 * 16];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = i % 7;
+		}
+		final Img<FloatType> ch1 = ArrayImgs.floats(data, 16, 16);
+		final Img<FloatType> ch2 = ch1;
+
+		// sum of products, which depends on the block order of the shuffle
+		final BinaryFunctionOp<Iterable<FloatType>, Iterable<FloatType>, Double> op =
+			op((input1, input2) -> {
+				final Iterator<FloatType> it2 = input2.iterator();
+				double sum = 0;
+				for (final FloatType t : input1) {
+					sum += t.getRealDouble() * it2.next().getRealDouble();
+				}
+				return sum;
+			});
+
+		final double[] values1 = ops.coloc().pValue(new PValueResult(), ch1, ch2,
+			op, 200).getColocValuesArray();
+		final double[] values2 = ops.coloc().pValue(new PValueResult(), ch1, ch2,
+			op, 200).getColocValuesArray();
+		assertArrayEquals(values1, values2, 0.0);
+
+		// make sure the blocks were actually shuffled
+		boolean shuffled = false;
+		for (int i = 1; i < values1.length; i++) {
+			shuffled |= values1[i] != values1[0];
+		}
+		assertTrue(shuffled);
+	}
+
 	/**
 	 * Function is called once with original images. Thereafter, each call is with
 	 * a shuffled version of the first image.
@@ -0,0 +1,111 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.coloc.statistics;
+
+import static org.junit.Assert.assertEquals;
+
+import net.imagej.ops.coloc.ColocalisationTest;
+import net.imglib2.Cursor;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.real.DoubleType;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link DefaultColocStatistics}.
+ */
+public class DefaultColocStatisticsTest extends ColocalisationTest {
+
+	/**
+	 * Tests that the fused statistics agree with the individual coloc and stats
+	 * ops.
+	 */
+	@Test
+	public void testAgreesWithIndividualOps() {
+		final Img<UnsignedByteType> ch1 = positiveCorrelationImageCh1;
+		final Img<UnsignedByteType> ch2 = positiveCorrelationImageCh2;
+		final ColocStatisticsResult result = ops.coloc().statistics(ch1, ch2,
+			new DoubleType(20), new DoubleType(30));
+
+		assertEquals(ch1.size(), result.getCount());
+		assertEquals(ops.stats().mean(ch1).getRealDouble(), result.getMean1(),
+			1e-9);
+		assertEquals(ops.stats().mean(ch2).getRealDouble(), result.getMean2(),
+			1e-9);
+		assertEquals(ops.stats().variance(ch1).getRealDouble(), result
+			.getVariance1(), 1e-6);
+		assertEquals(ops.stats().variance(ch2).getRealDouble(), result
+			.getVariance2(), 1e-6);
+		assertEquals(ops.coloc().pearsons(ch1, ch2), result.getPearsons(), 1e-9);
+		assertEquals(ops.coloc().icq(ch1, ch2), result.getICQ(), 1e-9);
+
+		// thresholded Manders coefficients
+		double sum1 = 0, sum1Coloc = 0, sum2 = 0, sum2Coloc = 0;
+		final Cursor<UnsignedByteType> c1 = ch1.cursor();
+		final Cursor<UnsignedByteType> c2 = ch2.cursor();
+		while (c1.hasNext()) {
+			final double v1 = c1.next().getRealDouble();
+			final double v2 = c2.next().getRealDouble();
+			if (v1 > 20) sum1 += v1;
+			if (v2 > 30) sum2 += v2;
+			if (v1 > 20 && v2 > 30) {
+				sum1Coloc += v1;
+				sum2Coloc += v2;
+			}
+		}
+		assertEquals(sum1Coloc / sum1, result.getManders1(), 1e-9);
+		assertEquals(sum2Coloc / sum2, result.getManders2(), 1e-9);
+	}
+
+	/**
+	 * Tests that the moments stay accurate for data with a large offset.
+	 */
+	@Test
+	public void testLargeOffset() {
+		final int size = 100000;
+		final double[] data1 = new double[size];
+		final double[] data2 = new double[size];
+		for (int i = 0; i < size; i++) {
+			data1[i] = 1e9 + i % 10;
+			data2[i] = 1e9 + 2 * (i % 10);
+		}
+		final ColocStatisticsResult result = ops.coloc().statistics(ArrayImgs
+			.doubles(data1, size), ArrayImgs.doubles(data2, size));
+
+		assertEquals(1e9 + 4.5, result.getMean1(), 1e-6);
+		assertEquals(8.25 * size / (size - 1), result.getVariance1(), 1e-6);
+		assertEquals(2 * 8.25 * size / (size - 1), result.getCovariance(), 1e-6);
+		assertEquals(1.0, result.getPearsons(), 1e-9);
+	}
+
+}
@@ -39,8 +39,11 @@ import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.algorithm.region.hypersphere.HyperSphere;
 import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.array.ArrayImgs;
 import net.imglib2.outofbounds.OutOfBoundsConstantValueFactory;
+import net.imglib2.type.numeric.real.DoubleType;
 import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
 import net.imglib2.util.Util;
 import net.imglib2.view.Views;
 
@@ -91,6 +94,59 @@ public class DeconvolveTest extends AbstractOpTest {
 		}
 	}
 
+	/**
+	 * Tests that the float array fast paths of the Richardson Lucy steps (and of
+	 * the vector accelerator) match the generic ones.
+	 */
+	@Test
+	public void testDeconvolveFloatArrays() {
+		int[] size = new int[] { 65, 47 };
+		int[] kernelSize = new int[] { 13, 9 };
+
+		Img<FloatType> in = new ArrayImgFactory<FloatType>().create(size,
+			new FloatType());
+		placeSphereInCenter(in);
+
+		Img<FloatType> kernel = new ArrayImgFactory<FloatType>().create(kernelSize,
+			new FloatType());
+		placeSphereInCenter(kernel);
+
+		@SuppressWarnings("unchecked")
+		final Img<FloatType> convolved = (Img<FloatType>) ops.run(
+			ConvolveFFTF.class, in, kernel);
+
+		// float images use the float array paths
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<FloatType> deconvolved =
+			(RandomAccessibleInterval<FloatType>) ops.run(RichardsonLucyF.class,
+				convolved, kernel, null, null, null, null, null, 10, false, true);
+
+		// double images use the generic paths
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<DoubleType> deconvolvedDouble =
+			(RandomAccessibleInterval<DoubleType>) ops.run(RichardsonLucyF.class,
+				toDouble(convolved), toDouble(kernel), null, null, null, null, null, 10,
+				false, true);
+
+		final Cursor<FloatType> c = Views.flatIterable(deconvolved).cursor();
+		final Cursor<DoubleType> cDouble = Views.flatIterable(deconvolvedDouble)
+			.cursor();
+		while (c.hasNext()) {
+			assertEquals(cDouble.next().get(), c.next().get(), 1e-3);
+		}
+	}
+
+	private Img<DoubleType> toDouble(final Img<FloatType> img) {
+		final Img<DoubleType> result = ArrayImgs.doubles(Intervals
+			.dimensionsAsLongArray(img));
+		final Cursor<FloatType> c = img.cursor();
+		final Cursor<DoubleType> cResult = result.cursor();
+		while (c.hasNext()) {
+			cResult.next().set(c.next().get());
+		}
+		return result;
+	}
+
 	// utility to place a small sphere at the center of the image
 	private void placeSphereInCenter(Img<FloatType> img) {
 
@@ -28,10 +28,12 @@
  */
 package net.imagej.ops.features.haralick;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import net.imagej.ops.AbstractOpTest;
 import net.imagej.ops.features.AbstractFeatureTest;
+import net.imagej.ops.image.cooccurrenceMatrix.MatrixOrientation;
 import net.imagej.ops.image.cooccurrenceMatrix.MatrixOrientation2D;
 import net.imglib2.img.Img;
 import net.imglib2.type.numeric.integer.UnsignedByteType;
@@ -164,4 +166,37 @@ public class HaralickFeatureTest extends AbstractOpTest {
 		assertEquals(5176.653047585449, ops.haralick().variance(img, 128, 1, MatrixOrientation2D.HORIZONTAL).get(),
 				EPSILON);
 	}
+
+	@Test
+	public void featureSet() {
+		final MatrixOrientation o = MatrixOrientation2D.HORIZONTAL;
+		final double[] expected = { //
+			ops.haralick().asm(img, 128, 1, o).get(), //
+			ops.haralick().clusterPromenence(img, 128, 1, o).get(), //
+			ops.haralick().clusterShade(img, 128, 1, o).get(), //
+			ops.haralick().contrast(img, 128, 1, o).get(), //
+			ops.haralick().correlation(img, 128, 1, o).get(), //
+			ops.haralick().differenceEntropy(img, 128, 1, o).get(), //
+			ops.haralick().differenceVariance(img, 128, 1, o).get(), //
+			ops.haralick().entropy(img, 128, 1, o).get(), //
+			ops.haralick().icm1(img, 128, 1, o).get(), //
+			ops.haralick().icm2(img, 128, 1, o).get(), //
+			ops.haralick().ifdm(img, 128, 1, o).get(), //
+			ops.haralick().maxProbability(img, 128, 1, o).get(), //
+			ops.haralick().sumAverage(img, 128, 1, o).get(), //
+			ops.haralick().sumEntropy(img, 128, 1, o).get(), //
+			ops.haralick().sumVariance(img, 128, 1, o).get(), //
+			ops.haralick().textureHomogeneity(img, 128, 1, o).get(), //
+			ops.haralick().variance(img, 128, 1, o).get() };
+		assertArrayEquals(expected, ops.haralick().featureSet(img, 128, 1, o),
+			0);
+
+		final double[] selected = ops.haralick().featureSet(img, 128, 1, o,
+			new HaralickFeatureType[] { HaralickFeatureType.VARIANCE,
+				HaralickFeatureType.ASM });
+		assertEquals(2, selected.length);
+		assertEquals(expected[HaralickFeatureType.VARIANCE.ordinal()],
+			selected[0], 0);
+		assertEquals(expected[HaralickFeatureType.ASM.ordinal()], selected[1], 0);
+	}
 }
@@ -30,12 +30,24 @@ package net.imagej.ops.features.tamura2d;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import net.imagej.ops.Ops;
 import net.imagej.ops.features.AbstractFeatureTest;
+import net.imagej.ops.filter.mean.DefaultMeanFilter;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.algorithm.neighborhood.RectangleShape;
 import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.outofbounds.OutOfBoundsMirrorFactory;
+import net.imglib2.outofbounds.OutOfBoundsMirrorFactory.Boundary;
 import net.imglib2.type.numeric.RealType;
 import net.imglib2.type.numeric.integer.ByteType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
 
 import org.junit.Test;
 
@@ -74,4 +86,59 @@ public class Tamura2dFeatureTest extends AbstractFeatureTest {
 			DefaultCoarsenessFeature.class, in)).getRealDouble(), 0.0);
 	}
 
+	@Test
+	public void testCoarsenessFeatureReference() {
+		assertEquals(Ops.Tamura.Coarseness.NAME, referenceCoarseness(random),
+			((RealType<?>) ops.run(DefaultCoarsenessFeature.class, random))
+				.getRealDouble(), 1e-12);
+	}
+
+	@Test
+	public void testCoarsenessFeatureTranslated() {
+		// NB: The neighborhoods are relative to the minimum of the input.
+		final double expected = ((RealType<?>) ops.run(
+			DefaultCoarsenessFeature.class, random)).getRealDouble();
+		assertEquals(Ops.Tamura.Coarseness.NAME, expected, ((RealType<?>) ops.run(
+			DefaultCoarsenessFeature.class, Views.translate(random, 7, -3)))
+				.getRealDouble(), 0.0);
+	}
+
+	/**
+	 * Computes the coarseness like the former implementation, with one mean
+	 * filter per span and the leading differences read from the mean images.
+	 */
+	private double referenceCoarseness(final Img<UnsignedByteType> input) {
+		final long[] dims = Intervals.dimensionsAsLongArray(input);
+		final List<Img<UnsignedByteType>> means = new ArrayList<>();
+		for (int span = 1; span <= 5; span++) {
+			final Img<UnsignedByteType> mean = ArrayImgs.unsignedBytes(dims);
+			ops.run(DefaultMeanFilter.class, mean, input, new RectangleShape(span,
+				true), new OutOfBoundsMirrorFactory<>(Boundary.SINGLE));
+			means.add(mean);
+		}
+
+		double sum = 0;
+		final long[] pos = new long[2];
+		final Cursor<UnsignedByteType> cursor = means.get(0).localizingCursor();
+		while (cursor.hasNext()) {
+			cursor.fwd();
+			double maxDiff = 0;
+			for (int span = 1; span <= 5; span++) {
+				final RandomAccess<UnsignedByteType> ra = means.get(span - 1)
+					.randomAccess();
+				for (int d = 0; d < 2; d++) {
+					cursor.localize(pos);
+					if (pos[d] + 2 * span + 1 >= dims[d]) continue;
+					ra.setPosition(pos);
+					final double val1 = ra.get().getRealDouble();
+					ra.move(2 * span + 1, d);
+					maxDiff = Math.max(maxDiff, Math.abs(ra.get().getRealDouble() -
+						val1));
+				}
+			}
+			sum += maxDiff;
+		}
+		return sum / Intervals.numElements(input);
+	}
+
 }
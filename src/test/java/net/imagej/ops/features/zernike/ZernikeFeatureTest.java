@@ -32,7 +32,11 @@ import static org.junit.Assert.assertEquals;
 
 import net.imagej.ops.Ops;
 import net.imagej.ops.features.AbstractFeatureTest;
+import net.imagej.ops.features.zernike.helper.ZernikeComputer;
+import net.imagej.ops.features.zernike.helper.ZernikeMoment;
+import net.imagej.ops.features.zernike.helper.ZernikeMomentsComputer;
 import net.imglib2.type.numeric.RealType;
+import net.imglib2.view.Views;
 
 import org.junit.Test;
 
@@ -70,4 +74,31 @@ public class ZernikeFeatureTest extends AbstractFeatureTest {
 		assertEquals(Ops.Zernike.Magnitude.NAME, v1, v2, 1e-3);
 	}
 
+	@Test
+	public void testMomentsComputer() {
+		final int[] orders = { 4, 4, 3, 6, 12 };
+		final int[] repetitions = { 2, 0, 1, 4, 6 };
+
+		final ZernikeMoment[] moments = (ZernikeMoment[]) ops.run(
+			ZernikeMomentsComputer.class, ellipse, orders, repetitions);
+		assertEquals(orders.length, moments.length);
+		assertEquals(0.10985876611295191, moments[0].getMagnitude(), EPSILON);
+		for (int i = 0; i < orders.length; i++) {
+			final ZernikeMoment moment = (ZernikeMoment) ops.run(
+				ZernikeComputer.class, ellipse, orders[i], repetitions[i]);
+			assertEquals(moment.getMagnitude(), moments[i].getMagnitude(), EPSILON);
+			assertEquals(moment.getPhase(), moments[i].getPhase(), EPSILON);
+		}
+
+		// moments are relative to the bounding box of the input
+		final ZernikeMoment[] translated = (ZernikeMoment[]) ops.run(
+			ZernikeMomentsComputer.class, Views.iterable(Views.translate(ellipse, 17,
+				-5)), orders, repetitions);
+		for (int i = 0; i < orders.length; i++) {
+			assertEquals(moments[i].getMagnitude(), translated[i].getMagnitude(),
+				EPSILON);
+			assertEquals(moments[i].getPhase(), translated[i].getPhase(), EPSILON);
+		}
+	}
+
 }
@@ -31,6 +31,7 @@ package net.imagej.ops.filter;
 import static org.junit.Assert.assertEquals;
 
 import net.imagej.ops.AbstractOpTest;
+import net.imagej.ops.filter.fft.FFTMethodsOpC;
 import net.imagej.ops.filter.fft.FFTMethodsOpF;
 import net.imagej.ops.filter.fftSize.ComputeFFTSize;
 import net.imagej.ops.filter.ifft.IFFTMethodsOpC;
@@ -43,6 +44,8 @@ import net.imglib2.Point;
 import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.algorithm.region.hypersphere.HyperSphere;
 import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.planar.PlanarImgFactory;
 import net.imglib2.type.numeric.complex.ComplexDoubleType;
 import net.imglib2.type.numeric.complex.ComplexFloatType;
 import net.imglib2.type.numeric.real.FloatType;
@@ -180,6 +183,35 @@ public class FFTTest extends AbstractOpTest {
 		}
 	}
 
+	/**
+	 * test that the float array path of {@link FFTMethodsOpC} gives the same
+	 * result as the generic FFTMethods path
+	 */
+	@Test
+	public void testFloatArrayFFT() {
+		final long[] dimensions = new long[] { 16, 12, 10 };
+		final long[] fftDimensions = new long[] { 9, 12, 10 };
+
+		final Img<FloatType> in = generateFloatArrayTestImg(true, dimensions);
+
+		// the float array path is used for array and planar outputs
+		final Img<ComplexFloatType> array = ArrayImgs.complexFloats(
+			fftDimensions);
+		ops.run(FFTMethodsOpC.class, array, in);
+
+		final Img<ComplexFloatType> planar = new PlanarImgFactory<ComplexFloatType>()
+			.create(fftDimensions, new ComplexFloatType());
+		ops.run(FFTMethodsOpC.class, planar, Views.interval(in, in));
+
+		// wrapping the output in a view forces the generic path
+		final Img<ComplexFloatType> expected = ArrayImgs.complexFloats(
+			fftDimensions);
+		ops.run(FFTMethodsOpC.class, Views.interval(expected, expected), in);
+
+		assertComplexImagesEqual(expected, array, 0.01f);
+		assertComplexImagesEqual(expected, planar, 0.01f);
+	}
+
 	@Test
 	@SuppressWarnings("unchecked")
 	public void testPadShiftKernel() {
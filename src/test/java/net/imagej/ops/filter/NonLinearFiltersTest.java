@@ -30,29 +30,51 @@
 package net.imagej.ops.filter;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 import java.util.ArrayList;
 import java.util.Collections;
 
 import net.imagej.ops.AbstractOpTest;
+import net.imagej.ops.Op;
 import net.imagej.ops.filter.max.DefaultMaxFilter;
+import net.imagej.ops.filter.max.HistogramMaxFilter;
 import net.imagej.ops.filter.max.MaxFilterOp;
+import net.imagej.ops.filter.max.RectangleMaxFilter;
 import net.imagej.ops.filter.mean.DefaultMeanFilter;
+import net.imagej.ops.filter.mean.IntegralMeanFilter;
 import net.imagej.ops.filter.mean.MeanFilterOp;
 import net.imagej.ops.filter.median.DefaultMedianFilter;
+import net.imagej.ops.filter.median.HistogramMedianFilter;
 import net.imagej.ops.filter.median.MedianFilterOp;
 import net.imagej.ops.filter.min.DefaultMinFilter;
+import net.imagej.ops.filter.min.HistogramMinFilter;
 import net.imagej.ops.filter.min.MinFilterOp;
+import net.imagej.ops.filter.min.RectangleMinFilter;
 import net.imagej.ops.filter.sigma.DefaultSigmaFilter;
 import net.imagej.ops.filter.sigma.SigmaFilterOp;
+import net.imagej.ops.filter.sum.DefaultSumFilter;
+import net.imagej.ops.filter.sum.IntegralSumFilter;
+import net.imagej.ops.filter.sum.SumFilterOp;
 import net.imagej.ops.filter.variance.DefaultVarianceFilter;
+import net.imagej.ops.filter.variance.IntegralVarianceFilter;
 import net.imagej.ops.filter.variance.VarianceFilterOp;
+import net.imglib2.Cursor;
+import net.imglib2.algorithm.neighborhood.HyperSphereShape;
 import net.imglib2.algorithm.neighborhood.RectangleShape;
 import net.imglib2.algorithm.neighborhood.RectangleShape.NeighborhoodsIterableInterval;
+import net.imglib2.algorithm.neighborhood.Shape;
 import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.ByteArray;
 import net.imglib2.outofbounds.OutOfBoundsMirrorFactory;
 import net.imglib2.outofbounds.OutOfBoundsMirrorFactory.Boundary;
 import net.imglib2.type.numeric.integer.ByteType;
+import net.imglib2.type.numeric.integer.LongType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.DoubleType;
 import net.imglib2.util.Util;
 import net.imglib2.view.Views;
 
@@ -191,4 +213,182 @@ public class NonLinearFiltersTest extends AbstractOpTest {
 		assertEquals((byte)Util.round((sumSq - (sum * sum / 9)) / 8), out.firstElement().get());
 	}
 
+	/**
+	 * @see HistogramMaxFilter
+	 * @see HistogramMedianFilter
+	 * @see HistogramMinFilter
+	 */
+	@Test
+	public void testHistogramRankFilters() {
+		final ArrayImg<UnsignedByteType, ByteArray> img =
+			generateUnsignedByteArrayTestImg(true, new long[] { 23, 17 });
+		final Shape[] shapes = { new RectangleShape(2, true),
+			new HyperSphereShape(1), new HyperSphereShape(3) };
+		for (final Shape s : shapes) {
+			assertRankFilter(img, s, MaxFilterOp.class, HistogramMaxFilter.class,
+				DefaultMaxFilter.class);
+			assertRankFilter(img, s, MedianFilterOp.class,
+				HistogramMedianFilter.class, DefaultMedianFilter.class);
+			assertRankFilter(img, s, MinFilterOp.class, HistogramMinFilter.class,
+				DefaultMinFilter.class);
+		}
+	}
+
+	/**
+	 * @see RectangleMaxFilter
+	 * @see RectangleMinFilter
+	 */
+	@Test
+	public void testRectangleMinMaxFilters() {
+		final Shape s = new RectangleShape(2, false);
+		final Img<ByteType> expected = generateByteArrayTestImg(false,
+			new long[] { 10, 10 });
+
+		assertEquals(RectangleMaxFilter.class, ops.op(MaxFilterOp.class, out, in,
+			s, oobFactory).getClass());
+		ops.run(MaxFilterOp.class, out, in, s, oobFactory);
+		ops.run(DefaultMaxFilter.class, expected, in, s, oobFactory);
+		assertIterationsEqual(expected, out);
+
+		assertEquals(RectangleMinFilter.class, ops.op(MinFilterOp.class, out, in,
+			s, oobFactory).getClass());
+		ops.run(MinFilterOp.class, out, in, s, oobFactory);
+		ops.run(DefaultMinFilter.class, expected, in, s, oobFactory);
+		assertIterationsEqual(expected, out);
+	}
+
+	/**
+	 * Ensures that the rectangle filters, which compute with doubles, are not
+	 * matched for values beyond the precision of doubles.
+	 */
+	@Test
+	public void testRectangleMinMaxFiltersLongType() {
+		final Shape s = new RectangleShape(1, false);
+		final Img<LongType> longIn = ArrayImgs.longs(7, 5);
+		long value = (1L << 60) + 1;
+		for (final LongType t : longIn) {
+			t.set(value);
+			value += 3;
+		}
+		final Img<LongType> longOut = ArrayImgs.longs(7, 5);
+		final Img<LongType> expected = ArrayImgs.longs(7, 5);
+
+		assertNotEquals(RectangleMaxFilter.class, ops.op(MaxFilterOp.class,
+			longOut, longIn, s).getClass());
+		ops.run(MaxFilterOp.class, longOut, longIn, s);
+		ops.run(DefaultMaxFilter.class, expected, longIn, s);
+		assertIterationsEqual(expected, longOut);
+
+		assertNotEquals(RectangleMinFilter.class, ops.op(MinFilterOp.class,
+			longOut, longIn, s).getClass());
+		ops.run(MinFilterOp.class, longOut, longIn, s);
+		ops.run(DefaultMinFilter.class, expected, longIn, s);
+		assertIterationsEqual(expected, longOut);
+	}
+
+	/**
+	 * @see IntegralMeanFilter
+	 * @see IntegralSumFilter
+	 * @see IntegralVarianceFilter
+	 */
+	@Test
+	public void testIntegralFilters() {
+		final Shape[] shapes = { new RectangleShape(1, false),
+			new RectangleShape(3, true) };
+		for (final Shape s : shapes) {
+			assertIntegralFilter(in, s, MeanFilterOp.class,
+				IntegralMeanFilter.class, DefaultMeanFilter.class);
+			assertIntegralFilter(in, s, SumFilterOp.class, IntegralSumFilter.class,
+				DefaultSumFilter.class);
+			assertIntegralFilter(in, s, VarianceFilterOp.class,
+				IntegralVarianceFilter.class, DefaultVarianceFilter.class);
+		}
+	}
+
+	/**
+	 * Ensures that the integral filters are not matched for inputs whose
+	 * integral images are not exactly represented by doubles.
+	 */
+	@Test
+	public void testIntegralFiltersInexact() {
+		final Shape s = new RectangleShape(1, false);
+
+		final Img<DoubleType> doubleIn = generateDoubleArrayTestImg(true, 13, 11);
+		final Img<DoubleType> doubleOut = generateDoubleArrayTestImg(false, 13,
+			11);
+		assertEquals(DefaultMeanFilter.class, ops.op(MeanFilterOp.class, doubleOut,
+			doubleIn, s).getClass());
+		assertEquals(DefaultSumFilter.class, ops.op(SumFilterOp.class, doubleOut,
+			doubleIn, s).getClass());
+		assertEquals(DefaultVarianceFilter.class, ops.op(VarianceFilterOp.class,
+			doubleOut, doubleIn, s).getClass());
+
+		// NB: The sums of squares exceed 2^53, whereas the sums do not.
+		final Img<UnsignedShortType> shortIn = ArrayImgs.unsignedShorts(1500,
+			1500);
+		final Img<DoubleType> shortOut = ArrayImgs.doubles(1500, 1500);
+		assertEquals(IntegralMeanFilter.class, ops.op(MeanFilterOp.class,
+			shortOut, shortIn, s).getClass());
+		assertEquals(IntegralSumFilter.class, ops.op(SumFilterOp.class, shortOut,
+			shortIn, s).getClass());
+		assertEquals(DefaultVarianceFilter.class, ops.op(VarianceFilterOp.class,
+			shortOut, shortIn, s).getClass());
+	}
+
+	/**
+	 * Ensures that the integral filter is matched for rectangles, and that it
+	 * computes the same result as the default filter.
+	 */
+	private void assertIntegralFilter(final Img<ByteType> img, final Shape s,
+		final Class<? extends Op> opType, final Class<? extends Op> integralFilter,
+		final Class<? extends Op> defaultFilter)
+	{
+		final Img<DoubleType> expected = generateDoubleArrayTestImg(false, img
+			.dimension(0), img.dimension(1));
+		final Img<DoubleType> actual = generateDoubleArrayTestImg(false, img
+			.dimension(0), img.dimension(1));
+
+		ops.run(defaultFilter, expected, img, s, oobFactory);
+		assertEquals(integralFilter, ops.op(opType, actual, img, s, oobFactory)
+			.getClass());
+		ops.run(opType, actual, img, s, oobFactory);
+
+		final Cursor<DoubleType> e = expected.cursor();
+		final Cursor<DoubleType> a = actual.cursor();
+		while (e.hasNext()) {
+			assertEquals(e.next().get(), a.next().get(), 1e-6);
+		}
+	}
+
+	/**
+	 * Ensures that the histogram filter is matched for unsigned images, and that
+	 * it computes the same result as the default filter.
+	 */
+	private void assertRankFilter(
+		final ArrayImg<UnsignedByteType, ByteArray> img, final Shape s,
+		final Class<? extends Op> opType,
+		final Class<? extends Op> histogramFilter,
+		final Class<? extends Op> defaultFilter)
+	{
+		final ArrayImg<UnsignedByteType, ByteArray> expected =
+			generateUnsignedByteArrayTestImg(false, img.dimension(0), img.dimension(
+				1));
+		final ArrayImg<UnsignedByteType, ByteArray> actual =
+			generateUnsignedByteArrayTestImg(false, img.dimension(0), img.dimension(
+				1));
+		final OutOfBoundsMirrorFactory<UnsignedByteType, ArrayImg<UnsignedByteType, ByteArray>> oob =
+			new OutOfBoundsMirrorFactory<>(Boundary.SINGLE);
+
+		ops.run(defaultFilter, expected, img, s, oob);
+		assertEquals(histogramFilter, ops.op(opType, actual, img, s, oob)
+			.getClass());
+		ops.run(opType, actual, img, s, oob);
+
+		final Cursor<UnsignedByteType> e = expected.cursor();
+		final Cursor<UnsignedByteType> a = actual.cursor();
+		while (e.hasNext()) {
+			assertEquals(e.next().get(), a.next().get());
+		}
+	}
+
 }
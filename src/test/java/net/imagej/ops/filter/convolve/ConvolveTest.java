@@ -30,17 +30,27 @@
 package net.imagej.ops.filter.convolve;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import net.imagej.ops.AbstractOpTest;
 import net.imagej.ops.Op;
+import net.imagej.ops.OpMatchingService;
+import net.imagej.ops.OpService;
 import net.imagej.ops.Ops;
+import net.imagej.ops.cached.OpCacheService;
+import net.imagej.ops.filter.AbstractBlockwiseFFTFilterC;
+import net.imagej.ops.filter.PreparedKernelCache;
+import net.imagej.ops.filter.correlate.CorrelateFFTBlockwiseC;
+import net.imagej.ops.filter.correlate.CorrelateFFTF;
 import net.imagej.ops.filter.fft.CreateOutputFFTMethods;
 import net.imagej.ops.filter.pad.PadInputFFTMethods;
 import net.imagej.ops.filter.pad.PadShiftKernelFFTMethods;
 import net.imagej.ops.special.function.BinaryFunctionOp;
 import net.imagej.ops.special.function.Functions;
 import net.imagej.ops.special.function.UnaryFunctionOp;
+import net.imglib2.Cursor;
 import net.imglib2.Dimensions;
 import net.imglib2.FinalDimensions;
 import net.imglib2.Point;
@@ -49,6 +59,7 @@ import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.algorithm.region.hypersphere.HyperSphere;
 import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.array.ArrayImgs;
 import net.imglib2.type.numeric.complex.ComplexFloatType;
 import net.imglib2.type.numeric.integer.ByteType;
 import net.imglib2.type.numeric.real.DoubleType;
@@ -56,12 +67,20 @@ import net.imglib2.type.numeric.real.FloatType;
 import net.imglib2.view.Views;
 
 import org.junit.Test;
+import org.scijava.Context;
+import org.scijava.cache.CacheService;
 
 /**
  * Tests involving convolvers.
  */
 public class ConvolveTest extends AbstractOpTest {
 
+	@Override
+	protected Context createContext() {
+		return new Context(OpService.class, OpMatchingService.class,
+			CacheService.class, OpCacheService.class);
+	}
+
 	/** Tests that the correct convolver is selected when using a small kernel. */
 	@Test
 	public void testConvolveMethodSelection() {
@@ -213,6 +232,136 @@ public class ConvolveTest extends AbstractOpTest {
 		assertEquals(size[0], out2.dimension(0));
 	}
 
+	/** tests that repeated fft convolves reuse the prepared kernel spectrum */
+	@Test
+	public void testConvolvePreparedKernel() {
+
+		final PreparedKernelCache cache = PreparedKernelCache.getCache(ops);
+
+		int[] size = new int[] { 61, 47 };
+		int[] kernelSize = new int[] { 17, 23 };
+
+		Img<FloatType> in = new ArrayImgFactory<FloatType>().create(size,
+			new FloatType());
+		placeSphereInCenter(in);
+
+		Img<FloatType> kernel = new ArrayImgFactory<FloatType>().create(kernelSize,
+			new FloatType());
+		placeSphereInCenter(kernel);
+
+		@SuppressWarnings("unchecked")
+		final Img<FloatType> out1 = (Img<FloatType>) ops.run(ConvolveFFTF.class, in,
+			kernel);
+
+		assertEquals(0, cache.getHits());
+		assertEquals(1, cache.getMisses());
+
+		@SuppressWarnings("unchecked")
+		final Img<FloatType> out2 = (Img<FloatType>) ops.run(ConvolveFFTF.class, in,
+			kernel);
+
+		// the second convolve only transforms the image
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		final Cursor<FloatType> c1 = out1.cursor();
+		final Cursor<FloatType> c2 = out2.cursor();
+		while (c1.hasNext()) {
+			assertEquals(c1.next().get(), c2.next().get(), 0);
+		}
+
+		// modifying the kernel in place must invalidate its spectrum
+		for (final FloatType k : kernel) {
+			k.mul(2);
+		}
+
+		@SuppressWarnings("unchecked")
+		final Img<FloatType> out3 = (Img<FloatType>) ops.run(ConvolveFFTF.class, in,
+			kernel);
+
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+
+		final FloatType sum1 = new FloatType();
+		final FloatType sum3 = new FloatType();
+		ops.stats().sum(sum1, out1);
+		ops.stats().sum(sum3, out3);
+		assertEquals(2 * sum1.get(), sum3.get(), 0.001);
+	}
+
+	/** tests that prepared kernels are not cached without an OpCacheService */
+	@Test
+	public void testConvolveWithoutKernelCache() {
+		final Context c = new Context(OpService.class, OpMatchingService.class);
+		try {
+			final OpService o = c.service(OpService.class);
+			assertNull(PreparedKernelCache.getCache(o));
+
+			final Img<DoubleType> in = generateDoubleArrayTestImg(true, 31, 29);
+			final Img<DoubleType> kernel = generateDoubleArrayTestImg(true, 5, 7);
+			@SuppressWarnings("unchecked")
+			final RandomAccessibleInterval<DoubleType> expected =
+				(RandomAccessibleInterval<DoubleType>) ops.run(ConvolveFFTF.class, in,
+					kernel);
+			@SuppressWarnings("unchecked")
+			final RandomAccessibleInterval<DoubleType> actual =
+				(RandomAccessibleInterval<DoubleType>) o.run(ConvolveFFTF.class, in,
+					kernel);
+			assertIterationsEqual(Views.iterable(expected), Views.iterable(actual));
+		}
+		finally {
+			c.dispose();
+		}
+	}
+
+	/** tests that blockwise convolve and correlate match the full image ops */
+	@Test
+	public void testBlockwise() {
+
+		final Img<DoubleType> in = generateDoubleArrayTestImg(true, 67, 53);
+		final Img<DoubleType> kernel = generateDoubleArrayTestImg(true, 9, 7);
+
+		// a budget small enough to force several blocks in each dimension
+		final long memoryBudget = 12000;
+		final long[] blockSize = AbstractBlockwiseFFTFilterC.blockSize(in, kernel,
+			memoryBudget, 2);
+		assertTrue(blockSize[0] < in.dimension(0));
+		assertTrue(blockSize[1] < in.dimension(1));
+
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<DoubleType> convolved =
+			(RandomAccessibleInterval<DoubleType>) ops.run(ConvolveFFTF.class, in,
+				kernel);
+		final Img<DoubleType> convolvedBlocks = ArrayImgs.doubles(67, 53);
+		ops.run(ConvolveFFTBlockwiseC.class, convolvedBlocks, in, kernel,
+			memoryBudget);
+		assertSameValues(convolved, convolvedBlocks);
+
+		final Img<DoubleType> convolvedParallel = ArrayImgs.doubles(67, 53);
+		ops.run(ConvolveFFTBlockwiseC.class, convolvedParallel, in, kernel,
+			memoryBudget, null, 2);
+		assertSameValues(convolved, convolvedParallel);
+
+		@SuppressWarnings("unchecked")
+		final RandomAccessibleInterval<DoubleType> correlated =
+			(RandomAccessibleInterval<DoubleType>) ops.run(CorrelateFFTF.class, in,
+				kernel);
+		final Img<DoubleType> correlatedBlocks = ArrayImgs.doubles(67, 53);
+		ops.run(CorrelateFFTBlockwiseC.class, correlatedBlocks, in, kernel,
+			memoryBudget);
+		assertSameValues(correlated, correlatedBlocks);
+	}
+
+	private void assertSameValues(
+		final RandomAccessibleInterval<DoubleType> expected,
+		final RandomAccessibleInterval<DoubleType> actual)
+	{
+		final Cursor<DoubleType> e = Views.flatIterable(expected).cursor();
+		final Cursor<DoubleType> a = Views.flatIterable(actual).cursor();
+		while (e.hasNext()) {
+			assertEquals(e.next().get(), a.next().get(), 1e-3);
+		}
+	}
+
 	// utility to place a small sphere at the center of the image
 	private void placeSphereInCenter(Img<FloatType> img) {
 
@@ -52,8 +52,17 @@ import net.imagej.ops.geom.geom3d.DefaultVerticesCountConvexHullMesh;
 import net.imagej.ops.geom.geom3d.DefaultVerticesCountMesh;
 import net.imagej.ops.geom.geom3d.DefaultVolumeConvexHullMesh;
 import net.imagej.ops.geom.geom3d.DefaultVolumeMesh;
+import net.imagej.ops.geom.geom3d.mesh.DefaultVertexInterpolator;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.array.ArrayImgs;
 import net.imglib2.roi.labeling.LabelRegion;
+import net.imglib2.type.logic.BitType;
+import net.imglib2.type.logic.BoolType;
 import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.util.Intervals;
+import net.imglib2.view.Views;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -128,6 +137,74 @@ public class MeshFeatureTests extends AbstractFeatureTest {
 		assertTrue(!expectedFacets.hasNext() && !actualFacets.hasNext());
 	}
 
+	/**
+	 * Tests an input spanning several slabs: copies of the test region stacked
+	 * along z must give the triangles of the expected mesh, in the same order,
+	 * for each copy.
+	 */
+	@Test
+	public void marchingCubesSlabs() {
+		final int copies = 5;
+		final long depth = ROI.dimension(2) + 1;
+		final long[] dims = Intervals.dimensionsAsLongArray(ROI);
+		dims[2] = copies * depth;
+		final RandomAccessibleInterval<BitType> stack = Views.translate(ArrayImgs
+			.bits(dims), Intervals.minAsLongArray(ROI));
+		final RandomAccess<BitType> ra = stack.randomAccess();
+		final Cursor<BoolType> c = Views.flatIterable(ROI).localizingCursor();
+		while (c.hasNext()) {
+			if (!c.next().get()) continue;
+			for (int k = 0; k < copies; k++) {
+				ra.setPosition(c);
+				ra.move(k * depth, 2);
+				ra.get().set(true);
+			}
+		}
+
+		final Mesh result = (Mesh) ops.run(DefaultMarchingCubes.class, stack);
+		assertEquals(copies * mesh.triangles().size(), result.triangles().size());
+		final Iterator<Triangle> actualFacets = result.triangles().iterator();
+		for (int k = 0; k < copies; k++) {
+			final double dz = k * depth;
+			for (final Triangle expected : mesh.triangles()) {
+				final Triangle actual = actualFacets.next();
+				assertEquals(expected.v0x(), actual.v0x(), EPSILON);
+				assertEquals(expected.v0y(), actual.v0y(), EPSILON);
+				assertEquals(expected.v0z() + dz, actual.v0z(), EPSILON);
+				assertEquals(expected.v1x(), actual.v1x(), EPSILON);
+				assertEquals(expected.v1y(), actual.v1y(), EPSILON);
+				assertEquals(expected.v1z() + dz, actual.v1z(), EPSILON);
+				assertEquals(expected.v2x(), actual.v2x(), EPSILON);
+				assertEquals(expected.v2y(), actual.v2y(), EPSILON);
+				assertEquals(expected.v2z() + dz, actual.v2z(), EPSILON);
+			}
+		}
+	}
+
+	/**
+	 * Tests that an interpolator which cannot be copied, such as an anonymous
+	 * subclass, is used as given.
+	 */
+	@Test
+	public void marchingCubesCustomInterpolator() {
+		final Mesh result = (Mesh) ops.run(DefaultMarchingCubes.class, ROI, 1.0,
+			new DefaultVertexInterpolator() {});
+		assertEquals(mesh.triangles().size(), result.triangles().size());
+		final Iterator<Triangle> actualFacets = result.triangles().iterator();
+		for (final Triangle expected : mesh.triangles()) {
+			final Triangle actual = actualFacets.next();
+			assertEquals(expected.v0x(), actual.v0x(), EPSILON);
+			assertEquals(expected.v0y(), actual.v0y(), EPSILON);
+			assertEquals(expected.v0z(), actual.v0z(), EPSILON);
+			assertEquals(expected.v1x(), actual.v1x(), EPSILON);
+			assertEquals(expected.v1y(), actual.v1y(), EPSILON);
+			assertEquals(expected.v1z(), actual.v1z(), EPSILON);
+			assertEquals(expected.v2x(), actual.v2x(), EPSILON);
+			assertEquals(expected.v2y(), actual.v2y(), EPSILON);
+			assertEquals(expected.v2z(), actual.v2z(), EPSILON);
+		}
+	}
+
 	@Test
 	public void medianElongation() {
 		// formula verified and ground truth computed with matlab
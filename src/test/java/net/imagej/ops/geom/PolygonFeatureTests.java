@@ -30,6 +30,7 @@ package net.imagej.ops.geom;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import net.imagej.ops.Ops;
@@ -51,6 +52,7 @@ import net.imagej.ops.geom.geom2d.DefaultMinimumFeretAngle;
 import net.imagej.ops.geom.geom2d.DefaultMinimumFeretDiameter;
 import net.imagej.ops.geom.geom2d.DefaultMinorAxis;
 import net.imagej.ops.geom.geom2d.DefaultPerimeterLength;
+import net.imagej.ops.geom.geom2d.DefaultRotatingCalipers;
 import net.imagej.ops.geom.geom2d.DefaultRoundness;
 import net.imagej.ops.geom.geom2d.DefaultSizeConvexHullPolygon;
 import net.imagej.ops.geom.geom2d.DefaultSizePolygon;
@@ -59,8 +61,10 @@ import net.imagej.ops.geom.geom2d.DefaultSolidityPolygon;
 import net.imagej.ops.geom.geom2d.DefaultVerticesCountConvexHullPolygon;
 import net.imagej.ops.geom.geom2d.DefaultVerticesCountPolygon;
 import net.imagej.ops.geom.geom2d.LabelRegionToPolygonConverter;
+import net.imagej.ops.geom.geom2d.RotatingCalipers;
 import net.imglib2.RealLocalizable;
 import net.imglib2.RealPoint;
+import net.imglib2.roi.geom.real.DefaultWritablePolygon2D;
 import net.imglib2.roi.geom.real.Polygon2D;
 import net.imglib2.roi.labeling.LabelRegion;
 import net.imglib2.type.numeric.real.DoubleType;
@@ -243,6 +247,42 @@ public class PolygonFeatureTests extends AbstractFeatureTest {
 				((DoubleType) ops.run(DefaultPerimeterLength.class, contour)).get(), EPSILON);
 	}
 
+	@Test
+	public void rotatingCalipers() {
+		final RotatingCalipers calipers = (RotatingCalipers) ops.run(
+			DefaultRotatingCalipers.class, contour);
+		assertEquals(58.5849810104945, calipers.getMinimumFeretDiameter(),
+			EPSILON);
+		assertEquals(153.434948822922, calipers.getMinimumFeretAngle(), EPSILON);
+		assertEquals(104.2353107157071, calipers.getMaximumFeretDiameter(),
+			EPSILON);
+		assertEquals(81.170255332091, calipers.getMaximumFeretAngle(), EPSILON);
+	}
+
+	@Test
+	public void smallestEnclosingRectangleLastEdge() {
+		// NB: The hull is (1, 6), (5, 5), (8, 7), (7, 8), (3, 8); the smallest
+		// rectangle (area 21) is flush with the edge between the last two
+		// vertices, from (7, 8) to (3, 8).
+		final List<RealLocalizable> vertices = new ArrayList<>();
+		vertices.add(new RealPoint(1, 6));
+		vertices.add(new RealPoint(5, 5));
+		vertices.add(new RealPoint(8, 7));
+		vertices.add(new RealPoint(7, 8));
+		vertices.add(new RealPoint(3, 8));
+		final List<? extends RealLocalizable> received = GeomUtils.vertices(
+			((Polygon2D) ops.run(DefaultSmallestEnclosingRectangle.class,
+				new DefaultWritablePolygon2D(vertices))));
+		final double[][] expected = { { 8, 8 }, { 8, 5 }, { 1, 5 }, { 1, 8 } };
+		assertEquals(expected.length, received.size());
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i][0], received.get(i).getDoublePosition(0),
+				EPSILON);
+			assertEquals(expected[i][1], received.get(i).getDoublePosition(1),
+				EPSILON);
+		}
+	}
+
 	@Test
 	public void roundness() {
 		// formula is verified, ground truth is verified with matlab
@@ -178,6 +178,81 @@ public class QuickHull3DTest extends AbstractOpTest {
 		assertConvex(convexHull, epsilon);
 	}
 
+	@Test
+	public void quickhull_duplicates_Test() {
+		// the corners of the unit cube and its center, each added three times
+		final Mesh df = new NaiveDoubleMesh();
+		for (int i = 0; i < 3; i++) {
+			for (int c = 0; c < 8; c++) {
+				df.vertices().add(c & 1, (c >> 1) & 1, (c >> 2) & 1);
+			}
+			df.vertices().add(0.5, 0.5, 0.5);
+		}
+
+		final List<?> result = (List<?>) ops.run(DefaultConvexHull3D.class, df);
+		final Mesh convexHull = (Mesh) result.get(0);
+		final double epsilon = (Double) result.get(1);
+		assertEquals(8, convexHull.vertices().size());
+		assertEquals(12, convexHull.triangles().size());
+		assertConvex(convexHull, epsilon);
+	}
+
+	@Test
+	public void quickhull_coplanar_Test() {
+		// a 5x5x5 grid: all but the corners lie in the plane of a facet
+		final Mesh df = new NaiveDoubleMesh();
+		for (int z = 0; z < 5; z++) {
+			for (int y = 0; y < 5; y++) {
+				for (int x = 0; x < 5; x++) {
+					df.vertices().add(x, y, z);
+				}
+			}
+		}
+
+		final List<?> result = (List<?>) ops.run(DefaultConvexHull3D.class, df);
+		final Mesh convexHull = (Mesh) result.get(0);
+		final double epsilon = (Double) result.get(1);
+		assertEquals(8, convexHull.vertices().size());
+		assertEquals(12, convexHull.triangles().size());
+		assertConvex(convexHull, epsilon);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void quickhull_planar_Test() {
+		final Mesh df = new NaiveDoubleMesh();
+		for (int y = 0; y < 5; y++) {
+			for (int x = 0; x < 5; x++) {
+				df.vertices().add(x, y, 1);
+			}
+		}
+		ops.run(DefaultConvexHull3D.class, df);
+	}
+
+	@Test
+	public void quickhull_sphere_Test() {
+		// NB: Enough points to partition them among the simplex facets in
+		// several chunks. All points on the sphere are hull vertices, none of
+		// the points on the inner sphere are.
+		final int n = 5000;
+		final Mesh df = new NaiveDoubleMesh();
+		for (int i = 0; i < n; i++) {
+			final double z = 1 - (2 * i + 1.0) / n;
+			final double r = Math.sqrt(1 - z * z);
+			final double phi = i * Math.PI * (3 - Math.sqrt(5));
+			final double x = r * Math.cos(phi);
+			final double y = r * Math.sin(phi);
+			df.vertices().add(x, y, z);
+			df.vertices().add(x / 2, y / 2, z / 2);
+		}
+
+		final List<?> result = (List<?>) ops.run(DefaultConvexHull3D.class, df);
+		final Mesh convexHull = (Mesh) result.get(0);
+		final double epsilon = (Double) result.get(1);
+		assertEquals(n, convexHull.vertices().size());
+		assertEquals(2 * n - 4, convexHull.triangles().size());
+		assertConvex(convexHull, epsilon);
+	}
+
 	/**
 	 * Checks for each centroid of each facet if the centroid is behind all other
 	 * facets.
@@ -0,0 +1,125 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+
+package net.imagej.ops.image.equation;
+
+import static org.junit.Assert.assertEquals;
+
+import net.imagej.ops.AbstractOpTest;
+import net.imglib2.Cursor;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.real.DoubleType;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link DefaultEquation}.
+ */
+public class DefaultEquationTest extends AbstractOpTest {
+
+	@Test
+	public void testCompiledEquation() {
+		final Img<DoubleType> image = ArrayImgs.doubles(40, 30, 5);
+		ops.image().equation(image,
+			"Math.cos(0.1*p[0]) + Math.sin(0.1*p[1]) * -p[2] % 3");
+
+		final Cursor<DoubleType> c = image.localizingCursor();
+		while (c.hasNext()) {
+			c.fwd();
+			final double x = c.getDoublePosition(0);
+			final double y = c.getDoublePosition(1);
+			final double z = c.getDoublePosition(2);
+			assertEquals(Math.cos(0.1 * x) + Math.sin(0.1 * y) * -z % 3, c.get()
+				.get(), 0.0);
+		}
+	}
+
+	@Test
+	public void testCompiledLogic() {
+		final Img<DoubleType> image = ArrayImgs.doubles(20, 20);
+		ops.image().equation(image,
+			"(p[0] >= 5 && p[1] < 10) + Math.max(p[0], p[1], 15) - Math.round(-0.5)");
+
+		final Cursor<DoubleType> c = image.localizingCursor();
+		while (c.hasNext()) {
+			c.fwd();
+			final long x = c.getLongPosition(0);
+			final long y = c.getLongPosition(1);
+			final double expected = (x >= 5 && y < 10 ? 1 : 0) + Math.max(x, Math
+				.max(y, 15));
+			assertEquals(expected, c.get().get(), 0.0);
+		}
+	}
+
+	@Test
+	public void testLogicalOperands() {
+		// NB: && and || evaluate to one of their operands, as in Javascript.
+		assertEquals(0, evaluate("p[0] && 7", 0), 0.0);
+		assertEquals(7, evaluate("p[0] && 7", 3), 0.0);
+		assertEquals(7, evaluate("p[0] || 7", 0), 0.0);
+		assertEquals(3, evaluate("p[0] || 7", 3), 0.0);
+		assertEquals(-2, evaluate("(p[0] - 5) || 7", 3), 0.0);
+	}
+
+	@Test
+	public void testNaNIsFalse() {
+		assertEquals(1, evaluate("!(0/0)", 0), 0.0);
+		assertEquals(0, evaluate("!!(0/0)", 0), 0.0);
+		assertEquals(Double.NaN, evaluate("(0/0) && 5", 0), 0.0);
+		assertEquals(5, evaluate("(0/0) || 5", 0), 0.0);
+		assertEquals(1, evaluate("!(p[0] - p[0])", 4), 0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedEquation() {
+		// NB: ^ is a bitwise operator in Javascript, so it must not be compiled.
+		EquationCompiler.compile("p[0]^2", 2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedConditional() {
+		EquationCompiler.compile("p[0] > 1 ? 1 : 0", 2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNonIntegerCoordinate() {
+		// NB: p[0.5] is undefined in Javascript, not p[0].
+		EquationCompiler.compile("p[0.5]", 2);
+	}
+
+	// -- Helper methods --
+
+	private static double evaluate(final String equation, final long x) {
+		return EquationCompiler.compile(equation, 1).applyAsDouble(new long[] {
+			x });
+	}
+
+}
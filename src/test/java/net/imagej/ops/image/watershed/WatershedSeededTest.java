@@ -46,6 +46,7 @@ import net.imglib2.roi.labeling.ImgLabeling;
 import net.imglib2.roi.labeling.LabelingType;
 import net.imglib2.type.logic.BitType;
 import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
 import net.imglib2.type.numeric.real.FloatType;
 
 import org.junit.Test;
@@ -88,6 +89,48 @@ public class WatershedSeededTest extends AbstractOpTest {
 		testWithMask(input, labeledSeeds);
 	}
 
+	/**
+	 * Tests that integer inputs, which use a hierarchical queue, give the same
+	 * result as the equivalent float input, which uses a heap.
+	 */
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testIntegerInput() {
+		long[] dims = { 15, 30 };
+		Img<UnsignedByteType> inputInt = ArrayImgs.unsignedBytes(dims);
+		Img<FloatType> inputFloat = ArrayImgs.floats(dims);
+		MersenneTwisterFast random = new MersenneTwisterFast(SEED);
+		Cursor<FloatType> cursorFloat = inputFloat.cursor();
+		for (UnsignedByteType b : inputInt) {
+			// NB: Few grey levels, so that there are plenty of ties.
+			b.set(random.nextInt(8));
+			cursorFloat.next().set(b.get());
+		}
+
+		Img<BitType> bits = ArrayImgs.bits(dims);
+		RandomAccess<BitType> ra = bits.randomAccess();
+		ra.setPosition(new int[] { 0, 0 });
+		ra.get().set(true);
+		ra.setPosition(new int[] { 4, 6 });
+		ra.get().set(true);
+		ra.setPosition(new int[] { 10, 20 });
+		ra.get().set(true);
+		final ImgLabeling<Integer, IntType> labeledSeeds = ops.labeling().cca(bits, StructuringElement.EIGHT_CONNECTED);
+
+		for (final boolean drawWatersheds : new boolean[] { false, true }) {
+			ImgLabeling<Integer, IntType> outInt = (ImgLabeling<Integer, IntType>) ops.run(WatershedSeeded.class, null,
+					inputInt, labeledSeeds, true, drawWatersheds);
+			ImgLabeling<Integer, IntType> outFloat = (ImgLabeling<Integer, IntType>) ops.run(WatershedSeeded.class,
+					null, inputFloat, labeledSeeds, true, drawWatersheds);
+
+			final Cursor<LabelingType<Integer>> c1 = outInt.cursor();
+			final Cursor<LabelingType<Integer>> c2 = outFloat.cursor();
+			while (c1.hasNext()) {
+				assertEquals(new HashSet<>(c2.next()), new HashSet<>(c1.next()));
+			}
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	private void testWithoutMask(final RandomAccessibleInterval<FloatType> in,
 			final ImgLabeling<Integer, IntType> seeds) {
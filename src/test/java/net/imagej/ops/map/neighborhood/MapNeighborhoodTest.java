@@ -35,17 +35,23 @@ import java.util.Iterator;
 
 import net.imagej.ops.AbstractOpTest;
 import net.imagej.ops.Op;
+import net.imagej.ops.Ops;
 import net.imagej.ops.special.computer.AbstractUnaryComputerOp;
+import net.imglib2.Cursor;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.algorithm.neighborhood.RectangleShape;
 import net.imglib2.img.Img;
 import net.imglib2.type.numeric.integer.ByteType;
+import net.imglib2.view.Views;
 
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
 /**
- * Test for {@link DefaultMapNeighborhood} and {@link MapNeighborhoodWithCenter}.
+ * Test for {@link DefaultMapNeighborhood}, {@link MapNeighborhoodWithCenter}
+ * and their parallel counterparts.
  *
  * @author Jonathan Hale (University of Konstanz)
  */
@@ -112,6 +118,62 @@ public class MapNeighborhoodTest extends AbstractOpTest {
 		}
 	}
 
+	/**
+	 * Test if every neighborhood pixel of the image was really accessed during
+	 * the parallel map operation.
+	 *
+	 * @see MapNeighborhoodParallel
+	 * @see MapNeighborhoodWithCenterParallel
+	 */
+	@Test
+	public void testMapNeighborhoodsParallelAccess() {
+		ops.op(MapNeighborhoodParallel.class, out, in, new RectangleShape(1,
+			false), new CountNeighbors()).run();
+		for (final ByteType t : out) {
+			assertEquals(9, t.get());
+		}
+
+		ops.op(MapNeighborhoodWithCenterParallel.class, out, in,
+			new RectangleShape(1, false), new CountNeighborsWithCenter()).run();
+		for (final ByteType t : out) {
+			assertEquals(9, t.get());
+		}
+		for (final ByteType t : in) {
+			assertEquals(9, t.get());
+		}
+	}
+
+	/**
+	 * Test that the parallel map is matched, and that it computes the same
+	 * result as the sequential one for an output with a different iteration
+	 * order than the neighborhoods.
+	 *
+	 * @see MapNeighborhoodParallel
+	 */
+	@Test
+	public void testMapNeighborhoodsParallel() {
+		final RandomAccessibleInterval<ByteType> extended = Views.interval(Views
+			.extendBorder(in), in);
+		final Img<ByteType> cellOut = generateByteTestCellImg(false, new int[] { 3,
+			4 }, 11, 10);
+		final RectangleShape shape = new RectangleShape(2, false);
+
+		ops.op(DefaultMapNeighborhood.class, out, extended, shape,
+			new SumNeighbors()).run();
+		final Op mapOp = ops.op(Ops.Map.class, cellOut, extended, shape,
+			new SumNeighbors());
+		assertEquals(MapNeighborhoodParallel.class, mapOp.getClass());
+		mapOp.run();
+
+		final Cursor<ByteType> c = out.localizingCursor();
+		final RandomAccess<ByteType> ra = cellOut.randomAccess();
+		while (c.hasNext()) {
+			c.fwd();
+			ra.setPosition(c);
+			assertEquals(c.get().get(), ra.get().get());
+		}
+	}
+
 	/**
 	 * Function which increments the output value for every pixel in the
 	 * neighborhood.
@@ -132,6 +194,23 @@ public class MapNeighborhoodTest extends AbstractOpTest {
 		}
 	}
 
+	/**
+	 * Function which sums up the neighborhood, wrapping around on overflow.
+	 */
+	private static class SumNeighbors extends
+		AbstractUnaryComputerOp<Iterable<ByteType>, ByteType>
+	{
+
+		@Override
+		public void compute(final Iterable<ByteType> input, final ByteType output) {
+			byte sum = 0;
+			for (final ByteType t : input) {
+				sum += t.get();
+			}
+			output.set(sum);
+		}
+	}
+
 	/**
 	 * Function which increments a outputPixel for every neighboring pixel defined
 	 * by the mapping.
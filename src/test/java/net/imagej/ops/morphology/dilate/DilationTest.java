@@ -96,6 +96,29 @@ public class DilationTest extends AbstractOpTest {
 			assertEquals(c1.next().get(), c2.next().get());
 	}
 
+	@Test
+	public void testRectangleDilate() {
+		final Shape[] shapes = { new RectangleShape(2, false),
+			new HorizontalLineShape(3, 1, false) };
+		for (final Shape shape : shapes) {
+			@SuppressWarnings("unchecked")
+			final Img<ByteType> out1 = (Img<ByteType>) ops.run(
+				RectangleDilate.class, Img.class, in, shape, false);
+			final Img<ByteType> out2 = Dilation.dilate(in, shape, 1);
+			assertIterationsEqual(out1, out2);
+		}
+	}
+
+	@Test
+	public void testRectangleDilateFull() {
+		final Shape shape = new RectangleShape(2, false);
+		@SuppressWarnings("unchecked")
+		final Img<ByteType> out1 = (Img<ByteType>) ops.run(RectangleDilate.class,
+			Img.class, in, shape, true);
+		final Img<ByteType> out2 = Dilation.dilateFull(in, shape, 1);
+		assertIterationsEqual(out1, out2);
+	}
+
 	@Test
 	public void testSingleDilateFull() {
 		final Shape shape = new DiamondShape(1);
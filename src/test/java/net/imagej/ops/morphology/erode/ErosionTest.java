@@ -94,6 +94,29 @@ public class ErosionTest extends AbstractOpTest {
 			assertEquals(c1.next().get(), c2.next().get());
 	}
 
+	@Test
+	public void testRectangleErode() {
+		final Shape[] shapes = { new RectangleShape(2, false),
+			new HorizontalLineShape(3, 1, false) };
+		for (final Shape shape : shapes) {
+			@SuppressWarnings("unchecked")
+			final Img<ByteType> out1 = (Img<ByteType>) ops.run(
+				RectangleErode.class, Img.class, in, shape, false);
+			final Img<ByteType> out2 = Erosion.erode(in, shape, 1);
+			assertIterationsEqual(out1, out2);
+		}
+	}
+
+	@Test
+	public void testRectangleErodeFull() {
+		final Shape shape = new RectangleShape(2, false);
+		@SuppressWarnings("unchecked")
+		final Img<ByteType> out1 = (Img<ByteType>) ops.run(RectangleErode.class,
+			Img.class, in, shape, true);
+		final Img<ByteType> out2 = Erosion.erodeFull(in, shape, 1);
+		assertIterationsEqual(out1, out2);
+	}
+
 	@Test
 	public void testSingleErodeFull() {
 		final Shape shape = new DiamondShape(1);
@@ -0,0 +1,93 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.ops.stats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link QuickSelect}.
+ */
+public class QuickSelectTest {
+
+	@Test
+	public void testQuantile() {
+		final Random random = new Random(0xdeadbeefL);
+		for (final int n : new int[] { 1, 2, 3, 10, 101, 1000 }) {
+			final double[] values = randomValues(random, n);
+			final double[] sorted = values.clone();
+			Arrays.sort(sorted);
+			for (final double q : new double[] { 0, 0.1, 0.25, 0.5, 0.9, 1 }) {
+				final double[] copy = values.clone();
+				assertEquals(sorted[QuickSelect.index(n, q)], QuickSelect.quantile(copy,
+					n, q), 0);
+			}
+		}
+	}
+
+	@Test
+	public void testQuantiles() {
+		final Random random = new Random(0xcafebabeL);
+		final double[] quantiles = { 0, 0.25, 0.5, 0.5, 0.75, 1 };
+		final double[] results = new double[quantiles.length];
+		for (final int n : new int[] { 1, 5, 64, 999 }) {
+			final double[] values = randomValues(random, n);
+			final double[] sorted = values.clone();
+			Arrays.sort(sorted);
+			QuickSelect.quantiles(values, n, quantiles, results);
+			for (int q = 0; q < quantiles.length; q++) {
+				assertEquals(sorted[QuickSelect.index(n, quantiles[q])], results[q],
+					0);
+			}
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		assertTrue(Double.isNaN(QuickSelect.quantile(new double[0], 0, 0.5)));
+	}
+
+	// -- Helper methods --
+
+	private double[] randomValues(final Random random, final int n) {
+		final double[] values = new double[n];
+		for (int i = 0; i < n; i++) {
+			// NB: Few distinct values, to exercise ties.
+			values[i] = random.nextInt(20);
+		}
+		return values;
+	}
+
+}
@@ -0,0 +1,216 @@
+/*
+ * #%L
+ * ImageJ software for multidimensional image processing and analysis.
+ * %%
+ * Copyright (C) 2014 - 2018 ImageJ developers.
+ * %%
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ * #L%
+ */
+
+package net.imagej.ops.thread;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import net.imagej.ops.AbstractOpTest;
+import net.imagej.ops.thread.chunker.Chunk;
+import net.imagej.ops.thread.chunker.DefaultChunker;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link DefaultChunker}.
+ */
+public class DefaultChunkerTest extends AbstractOpTest {
+
+	@Test
+	public void testSmall() {
+		assertAllVisitedOnce(10);
+	}
+
+	@Test
+	public void testLarge() {
+		assertAllVisitedOnce(1000003);
+	}
+
+	@Test
+	public void testGrainSize() {
+		assertAllVisitedOnce(12345, 1);
+		assertAllVisitedOnce(12345, 100000);
+	}
+
+	@Test
+	public void testDefaultGrainSize() {
+		// small inputs are processed in a single chunk by the calling thread
+		final Thread caller = Thread.currentThread();
+		final AtomicInteger chunks = new AtomicInteger();
+		ops.run(DefaultChunker.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				assertEquals(0, startIndex);
+				assertEquals(DefaultChunker.DEFAULT_GRAIN_SIZE, numSteps);
+				assertSame(caller, Thread.currentThread());
+				chunks.incrementAndGet();
+			}
+		}, DefaultChunker.DEFAULT_GRAIN_SIZE);
+		assertEquals(1, chunks.get());
+	}
+
+	@Test
+	public void testFewExpensiveElements() {
+		// NB: With a grain size of 1, every element may be processed in a chunk
+		// of its own.
+		final AtomicInteger chunks = new AtomicInteger();
+		ops.run(DefaultChunker.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				assertEquals(1, numSteps);
+				chunks.incrementAndGet();
+			}
+		}, 8, 1);
+		assertEquals(8, chunks.get());
+	}
+
+	@Test
+	public void testNested() {
+		final AtomicIntegerArray visits = new AtomicIntegerArray(64 * 1000);
+		ops.run(DefaultChunker.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				for (int i = 0; i < numSteps; i++) {
+					final int offset = (startIndex + i * stepSize) * 1000;
+					ops.run(DefaultChunker.class, visitor(visits, offset), 1000, 10);
+				}
+			}
+		}, 64, 1);
+		assertVisitedOnce(visits);
+	}
+
+	@Test
+	public void testNestedInline() {
+		// NB: Nested chunkers run in the worker of the outer chunk.
+		final AtomicInteger foreign = new AtomicInteger();
+		ops.run(DefaultChunker.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				final Thread worker = Thread.currentThread();
+				ops.run(DefaultChunker.class, new Chunk() {
+
+					@Override
+					public void execute(final int start, final int step,
+						final int steps)
+					{
+						if (Thread.currentThread() != worker) foreign.incrementAndGet();
+					}
+				}, 1000, 1);
+			}
+		}, 64, 1);
+		assertEquals(0, foreign.get());
+	}
+
+	@Test
+	public void testMoreThanIntElements() {
+		final long numElements = 3L * Integer.MAX_VALUE / 2;
+		final Map<Long, Integer> chunks = new ConcurrentSkipListMap<>();
+		ops.run(DefaultChunker.class, new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				execute((long) startIndex, stepSize, numSteps);
+			}
+
+			@Override
+			public void execute(final long startIndex, final int stepSize,
+				final int numSteps)
+			{
+				assertEquals(1, stepSize);
+				assertNull(chunks.put(startIndex, numSteps));
+			}
+		}, numElements);
+
+		// the chunks cover all elements without gaps or overlaps
+		long next = 0;
+		for (final Map.Entry<Long, Integer> chunk : chunks.entrySet()) {
+			assertEquals(next, chunk.getKey().longValue());
+			next += chunk.getValue();
+		}
+		assertEquals(numElements, next);
+	}
+
+	// -- Helper methods --
+
+	private void assertAllVisitedOnce(final int numElements,
+		final Object... grainSize)
+	{
+		final AtomicIntegerArray visits = new AtomicIntegerArray(numElements);
+		if (grainSize.length == 0) {
+			ops.run(DefaultChunker.class, visitor(visits, 0), numElements);
+		}
+		else {
+			ops.run(DefaultChunker.class, visitor(visits, 0), numElements,
+				grainSize[0]);
+		}
+		assertVisitedOnce(visits);
+	}
+
+	private void assertVisitedOnce(final AtomicIntegerArray visits) {
+		for (int i = 0; i < visits.length(); i++) {
+			assertEquals("Element " + i, 1, visits.get(i));
+		}
+	}
+
+	private Chunk visitor(final AtomicIntegerArray visits, final int offset) {
+		return new Chunk() {
+
+			@Override
+			public void execute(final int startIndex, final int stepSize,
+				final int numSteps)
+			{
+				for (int i = 0; i < numSteps; i++) {
+					visits.incrementAndGet(offset + startIndex + i * stepSize);
+				}
+			}
+		};
+	}
+
+}